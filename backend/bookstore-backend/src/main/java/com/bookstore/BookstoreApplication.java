@@ -3,9 +3,11 @@ package com.bookstore;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.bookstore.mapper")
+@EnableScheduling
 public class BookstoreApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,82 @@
+package com.bookstore.auth;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 登录令牌过滤器
+ * 从 Authorization: Bearer 请求头取令牌并在内存中校验，有效且未被登出撤销时把用户ID放入请求属性 {@link #USER_ID}，
+ * 控制器通过 @RequestAttribute 读取。收藏相关接口必须登录，缺少或无效的令牌直接返回 401；
+ * 其他接口未登录时照常处理，只是没有用户ID（例如图书列表不填充收藏状态）。
+ */
+@Component
+public class AuthTokenFilter extends OncePerRequestFilter {
+
+    /** 已登录用户ID的请求属性名 */
+    public static final String USER_ID = "bookstore.userId";
+
+    private static final String BEARER = "Bearer ";
+
+    /** 必须登录才能访问的路径前缀 */
+    private static final String[] PROTECTED_PATHS = {"/favorites"};
+
+    private static final byte[] UNAUTHORIZED_BODY =
+            "{\"code\":401,\"message\":\"未登录或登录已过期\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private TokenRevocationList revocationList;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TokenService.Claims claims = tokenService.parse(bearerToken(request));
+        if (claims != null && !revocationList.isRevoked(claims.tokenId())) {
+            request.setAttribute(USER_ID, claims.userId());
+        } else if (isProtected(request)) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(UNAUTHORIZED_BODY.length);
+            response.getOutputStream().write(UNAUTHORIZED_BODY);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * @return 请求头中的令牌，没有时返回null
+     */
+    public static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return null;
+        }
+        return header.substring(BEARER.length()).trim();
+    }
+
+    private static boolean isProtected(HttpServletRequest request) {
+        // 跨域预检请求不携带令牌
+        if ("OPTIONS".equals(request.getMethod())) {
+            return false;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : PROTECTED_PATHS) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package com.bookstore.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 已撤销令牌集合
+ * 登出时把令牌编号加入并发集合，过滤器在请求路径上只做一次无锁的 contains 查询。
+ * 过期清理由哈希时间轮完成：时间轮有 wheelSize 个槽，每槽对应 tickMs 毫秒，
+ * 令牌按过期所在的刻度 deadlineTick（向上取整）挂到 deadlineTick % wheelSize 号槽的链表上，
+ * 每个刻度只检查当前槽，移除 deadlineTick 已到的条目，其余（相差整圈的）留待后续圈次。
+ * 刻度向上取整保证条目不会早于令牌本身过期被移除，过期后的令牌本就会被签名校验拒绝，
+ * 因此集合只保存已撤销且仍未过期的令牌，内存与之成正比。
+ * 撤销记录只保存在本进程内，重启后丢失。
+ */
+@Component
+public class TokenRevocationList {
+
+    private final long tickMs;
+
+    /** 已撤销且未过期的令牌编号，读路径无锁 */
+    private final Set<Long> revoked = ConcurrentHashMap.newKeySet();
+
+    /** 时间轮的槽，每槽为一个单链表；由 this 保护 */
+    private final Entry[] wheel;
+
+    /** 当前时间（毫秒），测试中可替换 */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /** 已处理到的刻度（自纪元起） */
+    private long processedTick = -1;
+
+    private int entryCount;
+
+    /**
+     * @param tickMs 时间轮刻度，即条目在令牌过期后最多滞留的时间
+     * @param wheelSize 时间轮槽数
+     */
+    public TokenRevocationList(@Value("${bookstore.auth.revocation.tick-ms:1000}") long tickMs,
+                               @Value("${bookstore.auth.revocation.wheel-size:512}") int wheelSize) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("时间轮刻度与槽数必须为正数");
+        }
+        this.tickMs = tickMs;
+        this.wheel = new Entry[wheelSize];
+    }
+
+    /**
+     * 撤销令牌，直到其过期时间
+     * @param tokenId 令牌编号
+     * @param expiresAtMillis 令牌过期时间（毫秒），已过期时不记录
+     */
+    public void revoke(long tokenId, long expiresAtMillis) {
+        long now = clock.getAsLong();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        synchronized (this) {
+            if (processedTick < 0) {
+                processedTick = now / tickMs;
+            }
+            if (!revoked.add(tokenId)) {
+                return;
+            }
+            long deadlineTick = Math.floorDiv(expiresAtMillis + tickMs - 1, tickMs);
+            int slot = (int) Math.floorMod(deadlineTick, (long) wheel.length);
+            wheel[slot] = new Entry(tokenId, deadlineTick, wheel[slot]);
+            entryCount++;
+        }
+    }
+
+    /**
+     * @param tokenId 令牌编号
+     * @return 令牌是否已撤销且尚未从集合中移除
+     */
+    public boolean isRevoked(long tokenId) {
+        return revoked.contains(tokenId);
+    }
+
+    /**
+     * 定时推进时间轮，移除已过期的令牌；调度延迟时一次补齐错过的刻度
+     */
+    @Scheduled(fixedRateString = "${bookstore.auth.revocation.tick-ms:1000}")
+    public synchronized void advance() {
+        long currentTick = clock.getAsLong() / tickMs;
+        if (processedTick < 0 || entryCount == 0) {
+            processedTick = currentTick;
+            return;
+        }
+        // 落后超过一圈时每个槽只需检查一次
+        long from = Math.max(processedTick + 1, currentTick - wheel.length + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            expire((int) Math.floorMod(tick, (long) wheel.length), currentTick);
+        }
+        processedTick = Math.max(processedTick, currentTick);
+    }
+
+    /**
+     * 运行统计：已撤销未过期的令牌数与时间轮参数
+     */
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("revoked", entryCount);
+        data.put("wheelSize", wheel.length);
+        data.put("tickMs", tickMs);
+        return data;
+    }
+
+    private void expire(int slot, long currentTick) {
+        Entry previous = null;
+        for (Entry entry = wheel[slot]; entry != null; entry = entry.next) {
+            if (entry.deadlineTick <= currentTick) {
+                revoked.remove(entry.tokenId);
+                entryCount--;
+                if (previous == null) {
+                    wheel[slot] = entry.next;
+                } else {
+                    previous.next = entry.next;
+                }
+            } else {
+                previous = entry;
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final long tokenId;
+
+        private final long deadlineTick;
+
+        private Entry next;
+
+        Entry(long tokenId, long deadlineTick, Entry next) {
+            this.tokenId = tokenId;
+            this.deadlineTick = deadlineTick;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.bookstore.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 签名登录令牌
+ * 令牌为 base64url(载荷).base64url(HMAC-SHA256 签名)，载荷为 密钥编号(1) + 用户ID(8) + 过期时间秒(8) + 随机数(8)。
+ * 校验只在内存中完成：解码、检查过期、按密钥编号取密钥重算签名并常量时间比较，不查询数据库或会话存储。
+ * 密钥在启动时由配置构建为不可变的密钥环，按编号直接索引。轮换通过修改配置并逐台重启完成：
+ * 先让所有实例都能校验新密钥，再切换签发密钥，旧令牌全部过期后撤下旧密钥（步骤见 README）。
+ * Mac 实例非线程安全，每个密钥按线程各缓存一个。
+ */
+@Component
+public class TokenService {
+
+    /** 载荷字节数 */
+    private static final int PAYLOAD_BYTES = 1 + 8 + 8 + 8;
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    /** 载荷与签名 base64url 编码后的长度 */
+    private static final int PAYLOAD_CHARS = (PAYLOAD_BYTES * 4 + 2) / 3;
+
+    private static final int SIGNATURE_CHARS = (32 * 4 + 2) / 3;
+
+    private final long ttlSeconds;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /** 当前时间（毫秒），测试中可替换 */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final KeyRing keyRing;
+
+    /**
+     * @param keys 密钥列表，格式为 编号:base64密钥，逗号分隔；第一个用于签发，其余只用于校验
+     * @param ttlSeconds 令牌有效期
+     */
+    public TokenService(@Value("${bookstore.auth.token.keys}") String keys,
+                        @Value("${bookstore.auth.token.ttl-seconds:86400}") long ttlSeconds) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("令牌有效期必须为正数");
+        }
+        if (keys == null || keys.isBlank()) {
+            throw new IllegalArgumentException("未配置令牌签名密钥 bookstore.auth.token.keys");
+        }
+        this.ttlSeconds = ttlSeconds;
+        KeyRing ring = null;
+        String[] entries = keys.split(",");
+        // 倒序加入，使第一个密钥最后成为签发密钥
+        for (int i = entries.length - 1; i >= 0; i--) {
+            String entry = entries[i].trim();
+            int colon = entry.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalArgumentException("密钥格式应为 编号:base64密钥");
+            }
+            int keyId = Integer.parseInt(entry.substring(0, colon).trim());
+            byte[] secret = Base64.getDecoder().decode(entry.substring(colon + 1).trim());
+            ring = ring == null ? KeyRing.of(keyId, secret) : ring.with(keyId, secret);
+        }
+        if (ring == null) {
+            throw new IllegalArgumentException("至少需要配置一个令牌密钥");
+        }
+        this.keyRing = ring;
+    }
+
+    /**
+     * 签发令牌
+     * @param userId 用户ID
+     * @return 令牌
+     */
+    public String issue(long userId) {
+        KeyRing ring = keyRing;
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_BYTES);
+        payload.put((byte) ring.signingKeyId)
+                .putLong(userId)
+                .putLong(clock.getAsLong() / 1000 + ttlSeconds)
+                .putLong(random.nextLong());
+        byte[] bytes = payload.array();
+        return ENCODER.encodeToString(bytes) + "." + ENCODER.encodeToString(ring.keys[ring.signingKeyId].sign(bytes));
+    }
+
+    /**
+     * 校验令牌
+     * @param token 令牌，可以为null
+     * @return 令牌中的用户ID；令牌格式错误、签名不符、密钥已撤下或已过期时返回null
+     */
+    public Long verify(String token) {
+        Claims claims = parse(token);
+        return claims == null ? null : claims.userId();
+    }
+
+    /**
+     * 校验并解析令牌
+     * @param token 令牌，可以为null
+     * @return 令牌内容；无效或已过期时返回null
+     */
+    public Claims parse(String token) {
+        if (token == null || token.length() != PAYLOAD_CHARS + 1 + SIGNATURE_CHARS
+                || token.charAt(PAYLOAD_CHARS) != '.') {
+            return null;
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, PAYLOAD_CHARS));
+            signature = DECODER.decode(token.substring(PAYLOAD_CHARS + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        int keyId = buffer.get() & 0xFF;
+        long userId = buffer.getLong();
+        long expiresAt = buffer.getLong();
+        long nonce = buffer.getLong();
+        // 先检查过期，过期令牌不必计算签名
+        if (expiresAt * 1000 <= clock.getAsLong()) {
+            return null;
+        }
+        SigningKey key = keyRing.keys[keyId];
+        if (key == null || !MessageDigest.isEqual(key.sign(payload), signature)) {
+            return null;
+        }
+        return new Claims(userId, expiresAt * 1000, nonce);
+    }
+
+    /**
+     * 运行统计：签发密钥编号、可用于校验的密钥编号与令牌有效期
+     */
+    public Map<String, Object> stats() {
+        KeyRing ring = keyRing;
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("signingKeyId", ring.signingKeyId);
+        data.put("verifyingKeyIds", ring.keyIds());
+        data.put("ttlSeconds", ttlSeconds);
+        return data;
+    }
+
+    /**
+     * 令牌内容
+     * @param userId 用户ID
+     * @param expiresAtMillis 过期时间（毫秒）
+     * @param tokenId 签发时生成的随机数，用于标识单个令牌（如登出撤销）
+     */
+    public record Claims(long userId, long expiresAtMillis, long tokenId) {
+    }
+
+    /**
+     * 不可变的密钥环，按编号直接索引
+     */
+    private static final class KeyRing {
+
+        private final SigningKey[] keys;
+
+        private final int signingKeyId;
+
+        private KeyRing(SigningKey[] keys, int signingKeyId) {
+            this.keys = keys;
+            this.signingKeyId = signingKeyId;
+        }
+
+        static KeyRing of(int keyId, byte[] secret) {
+            return new KeyRing(new SigningKey[256], 0).with(keyId, secret);
+        }
+
+        KeyRing with(int keyId, byte[] secret) {
+            if (keyId < 0 || keyId > 255) {
+                throw new IllegalArgumentException("密钥编号应在 0 到 255 之间");
+            }
+            SigningKey[] copy = keys.clone();
+            copy[keyId] = new SigningKey(secret);
+            return new KeyRing(copy, keyId);
+        }
+
+        List<Integer> keyIds() {
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    ids.add(i);
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * 单个密钥及其按线程缓存的 Mac 实例
+     */
+    private static final class SigningKey {
+
+        private final ThreadLocal<Mac> macs;
+
+        SigningKey(byte[] secret) {
+            if (secret.length < 32) {
+                throw new IllegalArgumentException("令牌密钥至少需要 32 字节");
+            }
+            SecretKeySpec spec = new SecretKeySpec(secret.clone(), ALGORITHM);
+            this.macs = ThreadLocal.withInitial(() -> {
+                try {
+                    Mac mac = Mac.getInstance(ALGORITHM);
+                    mac.init(spec);
+                    return mac;
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("无法初始化 " + ALGORITHM, e);
+                }
+            });
+        }
+
+        byte[] sign(byte[] payload) {
+            return macs.get().doFinal(payload);
+        }
+    }
+}
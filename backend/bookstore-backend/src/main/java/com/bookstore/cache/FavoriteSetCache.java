@@ -0,0 +1,129 @@
+package com.bookstore.cache;
+
+import com.bookstore.mapper.FavoriteMapper;
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TransactionCallbacks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户收藏集合缓存
+ * 以 userId 为键缓存该用户收藏的全部 bookId（LongHashSet），首次访问时从数据库加载，
+ * 使 isFavorite 不再每次执行 COUNT 查询。
+ * 收藏/取消收藏在事务提交后使该用户的缓存失效，下次访问按已提交的数据重新加载：
+ * 失效操作会等待正在进行的加载完成后再移除其结果，因此提交前开始的加载不会留下缺少这次修改的集合，
+ * 其他请求也不会看到未提交的收藏。代价是每次收藏或取消收藏都会让该用户下次访问时重新加载一次整个集合。
+ * 集合加载完成后不再修改，读取无需加锁。缓存按写入时间过期，任何遗漏的修改最多保留 ttl-seconds。
+ * 容量与过期时间可配置，命中率等统计由 {@link #stats()} 提供。
+ */
+@Component
+public class FavoriteSetCache {
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    private final Cache<Long, LongHashSet> cache;
+
+    public FavoriteSetCache(@Value("${bookstore.favorite.cache.max-users:10000}") long maxUsers,
+                            @Value("${bookstore.favorite.cache.ttl-seconds:600}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 查询用户是否收藏了图书，未缓存时加载该用户的全部收藏
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @return 是否已收藏
+     */
+    public boolean contains(Long userId, Long bookId) {
+        return cache.get(userId, this::load).contains(bookId);
+    }
+
+    /**
+     * 批量查询用户是否收藏了各图书，仅在该用户已缓存时作答，不触发加载
+     * @param userId 用户ID
+     * @param bookIds 图书ID列表
+     * @return bookId -> 是否已收藏；用户未缓存时返回null
+     */
+    public Map<Long, Boolean> containsAllIfCached(Long userId, Collection<Long> bookIds) {
+        LongHashSet favorites = cache.getIfPresent(userId);
+        if (favorites == null) {
+            return null;
+        }
+        Map<Long, Boolean> statuses = new LinkedHashMap<>();
+        for (Long bookId : bookIds) {
+            statuses.put(bookId, bookId != null && favorites.contains(bookId));
+        }
+        return statuses;
+    }
+
+    /**
+     * 取用户收藏的全部图书ID，未缓存时加载
+     * @param userId 用户ID
+     * @return 图书ID副本，顺序不确定
+     */
+    public long[] bookIds(Long userId) {
+        return cache.get(userId, this::load).toArray();
+    }
+
+    /**
+     * 记录新增收藏。处于事务中时在事务提交后使该用户的缓存失效，回滚则不处理。
+     */
+    public void added(Long userId, Long bookId) {
+        invalidateAfterCommit(userId);
+    }
+
+    /**
+     * 记录取消收藏。处于事务中时在事务提交后使该用户的缓存失效，回滚则不处理。
+     */
+    public void removed(Long userId, Long bookId) {
+        invalidateAfterCommit(userId);
+    }
+
+    /**
+     * 缓存统计：命中、未命中、命中率、淘汰数、缓存用户数
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> data = new HashMap<>();
+        data.put("hitCount", stats.hitCount());
+        data.put("missCount", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictionCount", stats.evictionCount());
+        data.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        data.put("size", cache.estimatedSize());
+        return data;
+    }
+
+    private LongHashSet load(Long userId) {
+        List<Long> bookIds = favoriteMapper.selectBookIds(userId);
+        LongHashSet set = new LongHashSet(bookIds.size());
+        for (Long bookId : bookIds) {
+            set.add(bookId);
+        }
+        return set;
+    }
+
+    /**
+     * 失效而不是原地修改：多个提交的回调顺序不确定，按顺序原地增删可能留下错误的结果，
+     * 失效后重新加载总是得到已提交的状态
+     */
+    private void invalidateAfterCommit(Long userId) {
+        TransactionCallbacks.afterCommit(() -> cache.invalidate(userId));
+    }
+}
@@ -0,0 +1,108 @@
+package com.bookstore.cache;
+
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.utils.TextTokenizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 搜索结果缓存
+ * 以 (规范化查询, 是否匹配描述, 目录版本号) 为键缓存匹配的图书ID（Caffeine，条数有界）。
+ * 图书增删改会使目录版本号递增，旧版本的结果不再命中、随淘汰自然清除，无需显式失效。
+ * 未命中时同一键的并发请求合并为一次计算（single-flight），其余请求等待并共享结果。
+ * 只缓存ID，图书内容与收藏数在读取时从索引获取，收藏数变化不影响缓存。
+ */
+@Component
+public class SearchResultCache {
+
+    private final BookSearchIndex bookSearchIndex;
+
+    private final Cache<Key, long[]> cache;
+
+    /** 正在计算中的查询 */
+    private final ConcurrentHashMap<Key, CompletableFuture<long[]>> inflight = new ConcurrentHashMap<>();
+
+    /** 实际执行的搜索次数 */
+    private final LongAdder computations = new LongAdder();
+
+    /** 等待其他请求计算结果而未重复计算的次数 */
+    private final LongAdder coalescedWaiters = new LongAdder();
+
+    public SearchResultCache(BookSearchIndex bookSearchIndex,
+                             @Value("${bookstore.book.search-cache.max-size:1000}") long maxSize) {
+        this.bookSearchIndex = bookSearchIndex;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 搜索匹配的图书ID
+     * @param query 查询关键词，不能为空
+     * @param includeDescription 是否同时匹配描述字段
+     * @return 匹配的图书ID，升序；调用方不得修改
+     */
+    public long[] search(String query, boolean includeDescription) {
+        // 索引匹配本身忽略大小写与全角半角，归一化后语义不变
+        Key key = new Key(TextTokenizer.normalize(query), includeDescription, bookSearchIndex.version());
+        long[] ids = cache.getIfPresent(key);
+        if (ids != null) {
+            return ids;
+        }
+
+        CompletableFuture<long[]> mine = new CompletableFuture<>();
+        CompletableFuture<long[]> running = inflight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedWaiters.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            computations.increment();
+            ids = bookSearchIndex.searchIds(key.query, includeDescription);
+            cache.put(key, ids);
+            mine.complete(ids);
+            return ids;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 缓存统计：命中率、实际搜索次数、合并等待次数
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> data = new HashMap<>();
+        data.put("hitCount", stats.hitCount());
+        data.put("missCount", stats.missCount());
+        data.put("hitRate", stats.hitRate());
+        data.put("evictionCount", stats.evictionCount());
+        data.put("computations", computations.sum());
+        data.put("coalescedWaiters", coalescedWaiters.sum());
+        data.put("catalogVersion", bookSearchIndex.version());
+        data.put("size", cache.estimatedSize());
+        return data;
+    }
+
+    private record Key(String query, boolean includeDescription, long version) {
+    }
+}
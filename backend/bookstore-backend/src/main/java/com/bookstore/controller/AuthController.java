@@ -1,7 +1,11 @@
 package com.bookstore.controller;
 
+import com.bookstore.auth.AuthTokenFilter;
+import com.bookstore.auth.TokenRevocationList;
+import com.bookstore.auth.TokenService;
 import com.bookstore.entity.User;
 import com.bookstore.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -10,7 +14,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/auth")
@@ -19,6 +22,12 @@ public class AuthController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private TokenRevocationList revocationList;
+    
     /**
      * 用户登录
      */
@@ -35,8 +44,8 @@ public class AuthController {
             result.put("message", "登录成功");
             
             Map<String, Object> data = new HashMap<>();
-            // 生成令牌，实际项目中应使用JWT等技术
-            String token = "mock-token-" + UUID.randomUUID().toString().replaceAll("-", "");
+            // 签发携带用户ID与过期时间的签名令牌，后续请求由 AuthTokenFilter 在内存中校验
+            String token = tokenService.issue(user.getId());
             data.put("token", token);
             
             Map<String, Object> userMap = new HashMap<>();
@@ -81,18 +90,24 @@ public class AuthController {
             user.setPassword(null);
             result.put("data", user);
         } else {
-            result.put("code", 500);
-            result.put("message", "注册失败");
+            // 注册只在用户名已存在时失败（包括并发注册同名用户被唯一键拒绝）
+            result.put("code", 400);
+            result.put("message", "用户名已存在");
         }
         
         return result;
     }
     
     /**
-     * 用户登出
+     * 用户登出：撤销当前令牌直到其过期，令牌无效或缺失时同样返回成功
      */
     @PostMapping("/logout")
-    public Map<String, Object> logout() {
+    public Map<String, Object> logout(HttpServletRequest request) {
+        TokenService.Claims claims = tokenService.parse(AuthTokenFilter.bearerToken(request));
+        if (claims != null) {
+            revocationList.revoke(claims.tokenId(), claims.expiresAtMillis());
+        }
+        
         Map<String, Object> result = new HashMap<>();
         result.put("code", 200);
         result.put("message", "登出成功");
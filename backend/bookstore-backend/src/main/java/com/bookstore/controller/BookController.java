@@ -1,37 +1,158 @@
 package com.bookstore.controller;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.auth.AuthTokenFilter;
+import com.bookstore.dto.BookImportResult;
+import com.bookstore.dto.BookListQuery;
 import com.bookstore.entity.Book;
 import com.bookstore.service.BookService;
+import com.bookstore.service.FavoriteService;
+import com.bookstore.utils.PageCursor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/books")
 public class BookController {
 
+    /** 默认每页条数 */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    /** 每页条数上限 */
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private BookService bookService;
     
+    @Autowired
+    private FavoriteService favoriteService;
+    
     /**
      * 获取图书列表
+     * 可按关键词 query、分类 category 与价格区间 minPrice/maxPrice 组合过滤；
+     * sort 可选 updateTime（默认）、price、name、createTime，order 为 asc 或 desc（默认）；
+     * 传 page 时按页码分页，否则按游标（键集）分页，cursor 为空时返回第一页
      */
     @GetMapping
     public Map<String, Object> list(
-            @RequestParam(required = false) String query) {
+            @RequestParam(required = false) String query,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "updateTime") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(required = false) Long page,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withFavorite,
+            @RequestAttribute(name = AuthTokenFilter.USER_ID, required = false) Long userId) {
+        
+        int pageSize = normalizeSize(size);
+        Map<String, Object> result = new HashMap<>();
+        BookListQuery listQuery = listQuery(query, category, minPrice, maxPrice, sort, order);
+        
+        Map<String, Object> data;
+        try {
+            if (page != null) {
+                data = pageData(bookService.pageBooks(listQuery, Math.max(page, 1), pageSize), withFavorite ? userId : null);
+            } else {
+                PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+                List<Book> books = bookService.listBooksAfter(listQuery, after, pageSize + 1);
+                data = cursorData(books, pageSize, sortKeyOf(sort), withFavorite ? userId : null);
+            }
+        } catch (IllegalArgumentException e) {
+            result.put("code", 400);
+            result.put("message", e.getMessage());
+            return result;
+        }
         
-        List<Book> books = bookService.listAllBooks(query);
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", data);
+        
+        return result;
+    }
+    
+    /**
+     * 获取收藏量排行榜
+     * order=desc 返回收藏最多的 N 本，order=asc 返回收藏最少的 N 本
+     */
+    @GetMapping("/top")
+    public Map<String, Object> top(
+            @RequestParam(defaultValue = "10") Integer n,
+            @RequestParam(defaultValue = "desc") String order) {
         
         Map<String, Object> result = new HashMap<>();
         result.put("code", 200);
         result.put("message", "获取成功");
+        result.put("data", bookService.listTopBooks(normalizeSize(n), order));
         
-        Map<String, Object> data = new HashMap<>();
-        data.put("list", books);
-        result.put("data", data);
+        return result;
+    }
+    
+    /**
+     * 获取收藏趋势榜
+     * window 为 1h、24h（默认）或 7d，窗口内的收藏按时间指数衰减计分，越近的收藏权重越高
+     */
+    @GetMapping("/trending")
+    public Map<String, Object> trending(
+            @RequestParam(defaultValue = "24h") String window,
+            @RequestParam(defaultValue = "10") Integer n) {
+        
+        Map<String, Object> result = new HashMap<>();
+        try {
+            result.put("data", bookService.listTrendingBooks(window, normalizeSize(n)));
+        } catch (IllegalArgumentException e) {
+            result.put("code", 400);
+            result.put("message", e.getMessage());
+            return result;
+        }
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        
+        return result;
+    }
+    
+    /**
+     * 搜索框联想
+     * 返回书名、作者或其中单词以 prefix 开头的图书，按收藏量降序
+     */
+    @GetMapping("/suggest")
+    public Map<String, Object> suggest(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", bookService.suggestBooks(prefix, normalizeSize(limit)));
+        
+        return result;
+    }
+    
+    /**
+     * 分类计数
+     * 返回各分类的图书数；传 query 时只统计匹配关键词的图书
+     */
+    @GetMapping("/facets")
+    public Map<String, Object> facets(@RequestParam(required = false) String query) {
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", bookService.categoryFacets(query));
         
         return result;
     }
@@ -56,6 +177,50 @@ public class BookController {
         return result;
     }
     
+    /**
+     * 相似图书
+     * 返回书名、分类、描述与该图书相近的图书，按相似度降序
+     */
+    @GetMapping("/{id}/similar")
+    public Map<String, Object> similar(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Map<String, Object> result = new HashMap<>();
+        if (bookService.getBookDetail(id) == null) {
+            result.put("code", 404);
+            result.put("message", "图书不存在");
+            return result;
+        }
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", bookService.listSimilarBooks(id, normalizeSize(limit)));
+        
+        return result;
+    }
+    
+    /**
+     * 收藏了这本书的用户也收藏了
+     * 返回与该图书共同被收藏最多的图书，按共同收藏的用户数降序
+     */
+    @GetMapping("/{id}/also-favorited")
+    public Map<String, Object> alsoFavorited(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        
+        Map<String, Object> result = new HashMap<>();
+        if (bookService.getBookDetail(id) == null) {
+            result.put("code", 404);
+            result.put("message", "图书不存在");
+            return result;
+        }
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", bookService.listAlsoFavoritedBooks(id, normalizeSize(limit)));
+        
+        return result;
+    }
+    
     /**
      * 添加图书
      */
@@ -130,24 +295,179 @@ public class BookController {
         return result;
     }
 
+    /**
+     * 批量导入图书
+     * 请求体为 JSON Lines（每行一个图书对象）或带表头的 CSV（name,author,category,price,description），
+     * 按 format 参数或 Content-Type 判断格式，边读边解析、分批写入，返回每批进度与失败行。
+     */
+    @PostMapping("/bulk")
+    public Map<String, Object> bulkImport(
+            HttpServletRequest request,
+            @RequestParam(required = false) String format) throws IOException {
+        
+        Map<String, Object> result = new HashMap<>();
+        if (format == null) {
+            String contentType = request.getContentType();
+            format = contentType != null && contentType.toLowerCase().contains("csv") ? "csv" : "jsonl";
+        }
+        if (!"csv".equalsIgnoreCase(format) && !"jsonl".equalsIgnoreCase(format)) {
+            result.put("code", 400);
+            result.put("message", "不支持的导入格式");
+            return result;
+        }
+        
+        BookImportResult importResult;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            importResult = bookService.importBooks(reader, format);
+        } catch (IllegalArgumentException e) {
+            result.put("code", 400);
+            result.put("message", e.getMessage());
+            return result;
+        }
+        
+        result.put("code", 200);
+        result.put("message", "导入完成");
+        result.put("data", importResult);
+        
+        return result;
+    }
+
+    /**
+     * 流式导出全部图书
+     * 以 JSON Lines（默认）或 CSV 格式逐行写出，不在内存中组装完整结果
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(defaultValue = "jsonl") String format,
+            HttpServletResponse response) throws IOException {
+        
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"jsonl".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "不支持的导出格式");
+            return;
+        }
+        
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setHeader("Content-Disposition", "attachment; filename=books." + (csv ? "csv" : "jsonl"));
+        bookService.exportBooks(response.getWriter(), format);
+    }
+
     /**
      * 获取图书列表（支持按收藏量排序）
+     * 可按关键词 query、分类 category 与价格区间 minPrice/maxPrice 组合过滤；
+     * 传 page 时按页码分页，否则按游标（键集）分页，cursor 为空时返回第一页
      */
     @GetMapping("/favorite-sort")
     public Map<String, Object> listByFavoriteCount(
             @RequestParam(required = false) String query,
-            @RequestParam(defaultValue = "desc") String sortType) {
-        
-        List<Book> books = bookService.listAllBooksAndSortByFavoriteCount(query, sortType);
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "desc") String sortType,
+            @RequestParam(required = false) Long page,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean withFavorite,
+            @RequestAttribute(name = AuthTokenFilter.USER_ID, required = false) Long userId) {
         
+        int pageSize = normalizeSize(size);
         Map<String, Object> result = new HashMap<>();
+        
+        BookListQuery listQuery = listQuery(query, category, minPrice, maxPrice, null, sortType);
+        
+        Map<String, Object> data;
+        if (page != null) {
+            data = pageData(bookService.pageBooksByFavoriteCount(listQuery, Math.max(page, 1), pageSize), withFavorite ? userId : null);
+        } else {
+            List<Book> books;
+            try {
+                PageCursor after = cursor == null ? null : PageCursor.decode(cursor);
+                books = bookService.listBooksByFavoriteCountAfter(listQuery, after, pageSize + 1);
+            } catch (IllegalArgumentException e) {
+                result.put("code", 400);
+                result.put("message", e.getMessage());
+                return result;
+            }
+            data = cursorData(books, pageSize, book -> book.getFavoriteCount() == null ? 0 : book.getFavoriteCount(), withFavorite ? userId : null);
+        }
+        
         result.put("code", 200);
         result.put("message", "获取成功");
-        
-        Map<String, Object> data = new HashMap<>();
-        data.put("list", books);
         result.put("data", data);
         
         return result;
     }
-} 
\ No newline at end of file
+    
+    private static BookListQuery listQuery(String query, String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                           String sort, String order) {
+        BookListQuery listQuery = new BookListQuery();
+        listQuery.setQuery(query);
+        listQuery.setCategory(category);
+        listQuery.setMinPrice(minPrice);
+        listQuery.setMaxPrice(maxPrice);
+        listQuery.setSort(sort);
+        listQuery.setOrder(order);
+        return listQuery;
+    }
+    
+    /**
+     * 游标中的排序键，与 sort 参数对应
+     */
+    private static Function<Book, Object> sortKeyOf(String sort) {
+        return switch (sort) {
+            case "price" -> book -> book.getPrice() == null ? null : book.getPrice().toPlainString();
+            case "name" -> Book::getName;
+            case "createTime" -> Book::getCreateTime;
+            default -> Book::getUpdateTime;
+        };
+    }
+    
+    /**
+     * 限制每页条数在 [1, MAX_PAGE_SIZE] 之间
+     */
+    private static int normalizeSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+    
+    /**
+     * 组装页码分页结果，favoriteUserId 不为null时内联该用户的收藏状态
+     */
+    private Map<String, Object> pageData(IPage<Book> page, Long favoriteUserId) {
+        if (favoriteUserId != null) {
+            // 一次查询为本页图书内联收藏状态
+            favoriteService.fillFavoriteStatus(favoriteUserId, page.getRecords());
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("list", page.getRecords());
+        data.put("total", page.getTotal());
+        data.put("page", page.getCurrent());
+        data.put("size", page.getSize());
+        return data;
+    }
+    
+    /**
+     * 组装游标分页结果，books 多查询一条用于判断是否还有下一页；favoriteUserId 不为null时内联该用户的收藏状态
+     */
+    private Map<String, Object> cursorData(List<Book> books, int pageSize, Function<Book, Object> sortKey, Long favoriteUserId) {
+        Map<String, Object> data = new HashMap<>();
+        String nextCursor = null;
+        if (books.size() > pageSize) {
+            books = books.subList(0, pageSize);
+            Book last = books.get(pageSize - 1);
+            nextCursor = PageCursor.encode(sortKey.apply(last), last.getId());
+        }
+        if (favoriteUserId != null) {
+            // 一次查询为本页图书内联收藏状态
+            favoriteService.fillFavoriteStatus(favoriteUserId, books);
+        }
+        data.put("list", books);
+        data.put("size", pageSize);
+        data.put("nextCursor", nextCursor);
+        return data;
+    }
+}
@@ -1,6 +1,7 @@
 package com.bookstore.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.auth.AuthTokenFilter;
 import com.bookstore.entity.Book;
 import com.bookstore.service.FavoriteService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,17 +18,14 @@ public class FavoriteController {
     @Autowired
     private FavoriteService favoriteService;
     
-    // 使用固定用户ID 1
-    private static final Long FIXED_USER_ID = 1L;
+    /** 批量检查收藏状态的最大图书数 */
+    private static final int MAX_CHECK_SIZE = 200;
     
     /**
      * 获取用户收藏列表
      */
     @GetMapping
-    public Map<String, Object> list() {
-        // 使用固定用户ID
-        Long userId = FIXED_USER_ID;
-        
+    public Map<String, Object> list(@RequestAttribute(AuthTokenFilter.USER_ID) Long userId) {
         List<Book> favorites = favoriteService.getAllUserFavorites(userId);
         
         Map<String, Object> result = new HashMap<>();
@@ -45,28 +43,28 @@ public class FavoriteController {
      * 添加收藏
      */
     @PostMapping
-    public Map<String, Object> add(@RequestBody Map<String, Long> params) {
+    public Map<String, Object> add(@RequestAttribute(AuthTokenFilter.USER_ID) Long userId, @RequestBody Map<String, Long> params) {
         Long bookId = params.get("bookId");
-        // 使用固定用户ID
-        Long userId = FIXED_USER_ID;
-        
         Map<String, Object> result = new HashMap<>();
         
-        // 检查是否已收藏
-        if (favoriteService.isFavorite(userId, bookId)) {
+        if (bookId == null || bookId <= 0) {
             result.put("code", 400);
-            result.put("message", "已收藏该图书");
+            result.put("message", "图书ID无效");
             return result;
         }
         
-        boolean success = favoriteService.addFavorite(userId, bookId);
-        
-        if (success) {
-            result.put("code", 200);
-            result.put("message", "收藏成功");
-        } else {
-            result.put("code", 500);
-            result.put("message", "收藏失败");
+        // 查重与写入由一条语句完成，唯一键冲突即为已收藏
+        try {
+            if (favoriteService.addFavorite(userId, bookId)) {
+                result.put("code", 200);
+                result.put("message", "收藏成功");
+            } else {
+                result.put("code", 400);
+                result.put("message", "已收藏该图书");
+            }
+        } catch (IllegalArgumentException e) {
+            result.put("code", 404);
+            result.put("message", e.getMessage());
         }
         
         return result;
@@ -76,27 +74,16 @@ public class FavoriteController {
      * 取消收藏
      */
     @DeleteMapping("/{bookId}")
-    public Map<String, Object> delete(@PathVariable Long bookId) {
-        // 使用固定用户ID
-        Long userId = FIXED_USER_ID;
-        
+    public Map<String, Object> delete(@RequestAttribute(AuthTokenFilter.USER_ID) Long userId, @PathVariable Long bookId) {
         Map<String, Object> result = new HashMap<>();
         
-        // 检查是否已收藏
-        if (!favoriteService.isFavorite(userId, bookId)) {
-            result.put("code", 400);
-            result.put("message", "未收藏该图书");
-            return result;
-        }
-        
-        boolean success = favoriteService.removeFavorite(userId, bookId);
-        
-        if (success) {
+        // 删除与判断由一条语句完成，未删除即为未收藏
+        if (favoriteService.removeFavorite(userId, bookId)) {
             result.put("code", 200);
             result.put("message", "取消收藏成功");
         } else {
-            result.put("code", 500);
-            result.put("message", "取消收藏失败");
+            result.put("code", 400);
+            result.put("message", "未收藏该图书");
         }
         
         return result;
@@ -106,10 +93,7 @@ public class FavoriteController {
      * 检查是否已收藏
      */
     @GetMapping("/check/{bookId}")
-    public Map<String, Object> check(@PathVariable Long bookId) {
-        // 使用固定用户ID
-        Long userId = FIXED_USER_ID;
-        
+    public Map<String, Object> check(@RequestAttribute(AuthTokenFilter.USER_ID) Long userId, @PathVariable Long bookId) {
         boolean isFavorite = favoriteService.isFavorite(userId, bookId);
         
         Map<String, Object> result = new HashMap<>();
@@ -119,4 +103,27 @@ public class FavoriteController {
         
         return result;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 批量检查是否已收藏
+     */
+    @PostMapping("/check")
+    public Map<String, Object> checkBatch(@RequestAttribute(AuthTokenFilter.USER_ID) Long userId, @RequestBody Map<String, List<Long>> params) {
+        List<Long> bookIds = params.get("bookIds");
+        Map<String, Object> result = new HashMap<>();
+        
+        if (bookIds == null || bookIds.size() > MAX_CHECK_SIZE) {
+            result.put("code", 400);
+            result.put("message", "图书ID列表不能为空且不能超过" + MAX_CHECK_SIZE + "个");
+            return result;
+        }
+        
+        Map<Long, Boolean> statuses = favoriteService.checkFavorites(userId, bookIds);
+        
+        result.put("code", 200);
+        result.put("message", "查询成功");
+        result.put("data", statuses);
+        
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package com.bookstore.controller;
+
+import com.bookstore.auth.TokenRevocationList;
+import com.bookstore.auth.TokenService;
+import com.bookstore.cache.FavoriteSetCache;
+import com.bookstore.cache.SearchResultCache;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.BookSimilarityIndex;
+import com.bookstore.index.BookSuggestIndex;
+import com.bookstore.index.CoFavoriteIndex;
+import com.bookstore.index.TrendingIndex;
+import com.bookstore.index.UsernameFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    @Autowired
+    private FavoriteSetCache favoriteSetCache;
+    
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+    
+    @Autowired
+    private BookSimilarityIndex bookSimilarityIndex;
+    
+    @Autowired
+    private CoFavoriteIndex coFavoriteIndex;
+    
+    @Autowired
+    private TrendingIndex trendingIndex;
+    
+    @Autowired
+    private UsernameFilter usernameFilter;
+    
+    @Autowired
+    private SearchResultCache searchResultCache;
+    
+    @Autowired
+    private TokenService tokenService;
+    
+    @Autowired
+    private TokenRevocationList revocationList;
+    
+    /**
+     * 获取各内存缓存的运行统计
+     */
+    @GetMapping
+    public Map<String, Object> stats() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("favoriteSetCache", favoriteSetCache.stats());
+        data.put("catalog", bookSearchIndex.stats());
+        data.put("suggestIndex", bookSuggestIndex.stats());
+        data.put("similarIndex", bookSimilarityIndex.stats());
+        data.put("coFavoriteIndex", coFavoriteIndex.stats());
+        data.put("trendingIndex", trendingIndex.stats());
+        data.put("usernameFilter", usernameFilter.stats());
+        data.put("searchResultCache", searchResultCache.stats());
+        data.put("authToken", tokenService.stats());
+        data.put("tokenRevocation", revocationList.stats());
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取成功");
+        result.put("data", data);
+        
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+package com.bookstore.counter;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.FavoriteLeaderboard;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.utils.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 收藏数写缓冲
+ * 收藏/取消收藏只在内存中按图书累加增量（每本书一个 LongAdder，热点图书的并发累加不会互相争用），
+ * 由定时任务把增量合并成一条多行 UPDATE 写回数据库，避免热门图书的 book 行成为锁热点。
+ * 读取收藏数时需通过 {@link #pending(Long)} 合并尚未写回的增量。
+ */
+@Component
+public class FavoriteCountBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(FavoriteCountBuffer.class);
+
+    /** 单本图书收藏量上限，与 BookServiceImpl 保持一致 */
+    public static final int MAX_FAVORITE_COUNT = 1000;
+
+    /** 单条 UPDATE 语句最多合并的图书数 */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    /** bookId -> 未写回的增量 */
+    private final ConcurrentHashMap<Long, LongAdder> deltas = new ConcurrentHashMap<>();
+
+    /** bookId -> 已取出、正在写回的增量，写回完成前仍计入 pending */
+    private final ConcurrentHashMap<Long, Long> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * 记录收藏数变化。处于事务中时在事务提交后才计入，回滚则丢弃。
+     * @param bookId 图书ID
+     * @param delta 变化量
+     */
+    public void add(Long bookId, int delta) {
+        if (bookId == null || delta == 0) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> record(bookId, delta));
+    }
+
+    /**
+     * 查询尚未写回数据库的收藏数增量
+     * @param bookId 图书ID
+     * @return 增量
+     */
+    public long pending(Long bookId) {
+        if (bookId == null) {
+            return 0;
+        }
+        LongAdder adder = deltas.get(bookId);
+        Long flushing = inflight.get(bookId);
+        return (adder == null ? 0 : adder.sum()) + (flushing == null ? 0 : flushing);
+    }
+
+    /**
+     * 合并未写回的增量到图书的收藏数上，结果限制在 [0, MAX_FAVORITE_COUNT]
+     * @param book 图书，可以为null
+     * @return 同一图书对象
+     */
+    public Book merge(Book book) {
+        if (book == null) {
+            return null;
+        }
+        long delta = pending(book.getId());
+        if (delta != 0) {
+            long base = book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
+            book.setFavoriteCount((int) Math.max(0, Math.min(base + delta, MAX_FAVORITE_COUNT)));
+        }
+        return book;
+    }
+
+    /**
+     * 定时把累计的增量批量写回数据库，间隔由 bookstore.favorite-count.flush-interval-ms 配置
+     */
+    @Scheduled(fixedDelayString = "${bookstore.favorite-count.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        Map<Long, Long> batch = new LinkedHashMap<>();
+        for (Map.Entry<Long, LongAdder> entry : deltas.entrySet()) {
+            long delta = entry.getValue().sum();
+            if (delta != 0) {
+                // 先登记为写回中再扣减，保证任何时刻 pending 都不会漏算
+                inflight.put(entry.getKey(), delta);
+                entry.getValue().add(-delta);
+                batch.put(entry.getKey(), delta);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Long> bookIds = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < bookIds.size(); from += FLUSH_BATCH_SIZE) {
+            List<Long> chunkIds = bookIds.subList(from, Math.min(from + FLUSH_BATCH_SIZE, bookIds.size()));
+            Map<Long, Long> chunk = new LinkedHashMap<>();
+            for (Long bookId : chunkIds) {
+                chunk.put(bookId, batch.get(bookId));
+            }
+            try {
+                bookMapper.applyFavoriteCountDeltas(chunk, MAX_FAVORITE_COUNT);
+            } catch (RuntimeException e) {
+                // 写回失败时把增量放回缓冲，等待下次重试
+                log.warn("收藏数写回失败，{} 本图书的增量将在下次重试", chunk.size(), e);
+                chunk.forEach(this::accumulate);
+                chunkIds.forEach(inflight::remove);
+                continue;
+            }
+            try {
+                syncIndex(chunkIds);
+            } catch (RuntimeException e) {
+                log.warn("收藏数写回后刷新索引失败", e);
+            } finally {
+                chunkIds.forEach(inflight::remove);
+            }
+        }
+    }
+
+    /**
+     * 应用关闭前写回所有缓冲的增量
+     */
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    /**
+     * 计入新的收藏数变化并同步排行榜。与 syncIndex 在同一把锁下进行，
+     * 保证排行榜按“数据库值 + 未写回增量”校正时不会重复或遗漏这次变化。
+     */
+    private void record(Long bookId, int delta) {
+        synchronized (favoriteLeaderboard) {
+            accumulate(bookId, delta);
+            favoriteLeaderboard.adjust(bookId, delta);
+        }
+    }
+
+    private void accumulate(Long bookId, long delta) {
+        deltas.computeIfAbsent(bookId, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 以数据库中写回后的收藏数刷新搜索索引，并校正排行榜（写回时可能被上下限截断）
+     */
+    private void syncIndex(List<Long> bookIds) {
+        LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Book::getId, Book::getFavoriteCount).in(Book::getId, bookIds);
+        List<Book> books = bookMapper.selectList(wrapper);
+        Map<Long, Integer> favoriteCounts = new LinkedHashMap<>();
+        for (Book book : books) {
+            favoriteCounts.put(book.getId(), book.getFavoriteCount());
+        }
+        bookSearchIndex.updateFavoriteCounts(favoriteCounts);
+        for (Book book : books) {
+            int stored = book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
+            synchronized (favoriteLeaderboard) {
+                // 数据库值已包含写回中的增量，只需再加上之后新产生的增量
+                LongAdder adder = deltas.get(book.getId());
+                favoriteLeaderboard.put(book.getId(), (int) (stored + (adder == null ? 0 : adder.sum())));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.bookstore.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图书批量导入结果
+ */
+@Data
+public class BookImportResult {
+
+    /** 读取的数据行数（不含表头与空行） */
+    private long totalRows;
+
+    /** 成功导入的行数 */
+    private long importedRows;
+
+    /** 失败的行数 */
+    private long failedRows;
+
+    /** 每个批次的进度 */
+    private List<ChunkProgress> chunks = new ArrayList<>();
+
+    /** 失败行明细，最多保留 MAX_FAILURES 条 */
+    private List<FailedRow> failures = new ArrayList<>();
+
+    /** 失败行明细是否被截断 */
+    private boolean failuresTruncated;
+
+    public static final int MAX_FAILURES = 1000;
+
+    /**
+     * 记录失败行
+     * @param line 行号
+     * @param reason 失败原因
+     */
+    public void addFailure(long line, String reason) {
+        failedRows++;
+        if (failures.size() < MAX_FAILURES) {
+            failures.add(new FailedRow(line, reason));
+        } else {
+            failuresTruncated = true;
+        }
+    }
+
+    @Data
+    public static class ChunkProgress {
+        /** 批次序号，从1开始 */
+        private final int chunk;
+        /** 本批次提交插入的行数 */
+        private final int rows;
+        /** 本批次成功导入的行数 */
+        private final int imported;
+        /** 截至本批次累计导入的行数 */
+        private final long importedTotal;
+        /** 本批次写入耗时（毫秒） */
+        private final long elapsedMillis;
+    }
+
+    @Data
+    public static class FailedRow {
+        /** 行号，从1开始 */
+        private final long line;
+        /** 失败原因 */
+        private final String reason;
+    }
+}
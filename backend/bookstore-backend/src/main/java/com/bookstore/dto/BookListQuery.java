@@ -0,0 +1,44 @@
+package com.bookstore.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 图书列表的过滤与排序条件
+ */
+@Data
+public class BookListQuery {
+
+    /** 搜索关键词 */
+    private String query;
+
+    /** 分类 */
+    private String category;
+
+    /** 最低价格（含） */
+    private BigDecimal minPrice;
+
+    /** 最高价格（含） */
+    private BigDecimal maxPrice;
+
+    /** 排序字段: 'updateTime'（默认）、'price'、'name'、'createTime'；按收藏量排序的列表忽略此项 */
+    private String sort;
+
+    /** 排序方向: 'asc'升序, 'desc'降序（默认） */
+    private String order;
+
+    /**
+     * @return 是否按升序排列
+     */
+    public boolean isAsc() {
+        return "asc".equalsIgnoreCase(order);
+    }
+
+    /**
+     * @return 是否有价格条件
+     */
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
@@ -1,8 +1,10 @@
 package com.bookstore.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.math.BigDecimal;
@@ -30,4 +32,27 @@ public class Book {
     private LocalDateTime createTime;
     
     private LocalDateTime updateTime;
+    
+    /**
+     * 当前用户是否已收藏，仅在列表请求 withFavorite=true 时填充
+     */
+    @TableField(exist = false)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean isFavorite;
+    
+    // 构造函数方便创建图书副本（收藏状态属于当前用户，不复制）
+    public Book() {
+    }
+    
+    public Book(Book source) {
+        this.id = source.id;
+        this.name = source.name;
+        this.author = source.author;
+        this.category = source.category;
+        this.price = source.price;
+        this.description = source.description;
+        this.favoriteCount = source.favoriteCount;
+        this.createTime = source.createTime;
+        this.updateTime = source.updateTime;
+    }
 } 
\ No newline at end of file
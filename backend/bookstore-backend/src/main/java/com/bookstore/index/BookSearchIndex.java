@@ -0,0 +1,471 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.utils.IdBitmap;
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TextTokenizer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图书目录快照与搜索倒排索引
+ * 全部图书保存在一个不可变快照（{@link CatalogSnapshot}）中：按 id 升序的紧凑数组与基本类型列，
+ * 书名、作者、分类、描述归一化（全角转半角、大小写折叠）后的词元倒排与词表后缀数组（{@link TermIndex}，
+ * 中日韩二元组与字母数字整词，见 {@link TextTokenizer}），每个分类的图书ID压缩位图，
+ * 以及价格、书名、创建时间、更新时间的预排序排列（{@link SortedViews}）。
+ * 查询耗时取决于词表与候选规模而不是图书总数；分类过滤是一次位图查找，分类计数（facet）即位图基数；
+ * 价格区间是排列上的二分查找，按页码或游标取一页为 O(log n + 页大小)。
+ * 图书详情（作者、分类、价格缺省值已填充）在图书进入快照时规范化一次，只有需要填充缺省值的图书另存一个规范化副本。
+ * 写操作在新副本上修改后通过 volatile 引用整体发布（copy-on-write），读操作只读取一次引用，
+ * 不加锁、不访问数据库，也不会看到只应用了一半的更新。
+ * 启动时全量加载，之后由图书写操作按 id 增量刷新，并按 bookstore.book.catalog.max-staleness-ms
+ * 定期与数据库全量比对，使绕过本实例的数据库修改最多滞后该时长：读库、比对与构建新快照都在写锁外进行，
+ * 只有差异的图书被应用，发布时若期间有增量写入，则保留这些图书的增量结果、把其余差异应用到最新快照。
+ * 数据库与快照一致时不发布新快照，版本号也不变。
+ * 写入代价：每次增量写入（无论几本图书）复制一次全部列与排列，约为图书数 * {@link CatalogSnapshot#BYTES_PER_BOOK}
+ * 字节（10 万本约 6 MB，见 stats 的 copyBytesPerWrite），文本变化时再复制一次词元映射；
+ * 收藏数只复制收藏数一列。每个 max-staleness 周期内的复制总量约为 周期内写入次数 * 单次复制量，
+ * 超过一次全量比对的开销（读取并比较全部图书）时，批量写入应使用 {@link #putAll(Collection)} 合并为一次复制。
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * 预排序视图的排序字段，相同值按ID排序
+     */
+    public enum SortKey {
+        PRICE, NAME, CREATE_TIME, UPDATE_TIME
+    }
+
+    /**
+     * 排序视图的一页
+     * @param ids 本页图书ID，按排序顺序
+     * @param total 满足过滤条件的图书总数，游标分页时为-1
+     */
+    public record SortedPage(long[] ids, long total) {
+    }
+
+    /** 未设置分类的图书归入的分类名，与图书详情的默认值一致 */
+    public static final String UNCATEGORIZED = "未分类";
+
+    /** 未设置作者的图书详情中的作者 */
+    public static final String UNKNOWN_AUTHOR = "未知作者";
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookSimilarityIndex bookSimilarityIndex;
+
+    /** 当前发布的快照 */
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.empty(0);
+
+    /** 最近一次全量重建的时间 */
+    private volatile long rebuiltAt;
+
+    /** 最近一次全量重建（读库、比对、发布）的耗时 */
+    private volatile long rebuildMillis;
+
+    /** 详情查询命中与未命中（图书不存在）次数 */
+    private final LongAdder detailHits = new LongAdder();
+    private final LongAdder detailMisses = new LongAdder();
+
+    /** 写操作按 id 从数据库重新加载的次数与总耗时 */
+    private final LongAdder reloadCount = new LongAdder();
+    private final LongAdder reloadNanos = new LongAdder();
+
+    /** 写操作之间互斥，读操作不使用 */
+    private final Object writeLock = new Object();
+
+    /** 全量重建之间互斥，不阻塞写操作 */
+    private final Object rebuildLock = new Object();
+
+    /** 全量重建读库期间增量写入的图书ID，不在重建时为null；由 writeLock 保护 */
+    private LongHashSet writtenDuringRebuild;
+
+    /**
+     * 全量读库并与当前快照比对，只应用有差异的图书。
+     * 读库、比对和构建新快照都不持有写锁；发布时若快照已被增量写入替换，
+     * 期间写入过的图书以增量结果为准（它们在写入时从数据库重新读取过），其余差异应用到最新快照。
+     * 启动时快照为空，联想与相似索引整体构建，同样在写锁外进行。
+     */
+    @PostConstruct
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            CatalogSnapshot base;
+            synchronized (writeLock) {
+                base = catalog;
+                writtenDuringRebuild = new LongHashSet();
+            }
+            try {
+                List<Book> books = bookMapper.selectList(null);
+                Map<Long, Book> changes = base.diff(books);
+                CatalogSnapshot rebuilt = changes.isEmpty() ? base : base.apply(changes);
+                boolean initial = base.ids.length == 0;
+                if (initial) {
+                    bookSuggestIndex.rebuild(books);
+                    bookSimilarityIndex.rebuild(books);
+                }
+                synchronized (writeLock) {
+                    LongHashSet written = writtenDuringRebuild;
+                    if (catalog != base) {
+                        changes.keySet().removeIf(written::contains);
+                        rebuilt = changes.isEmpty() ? catalog : catalog.apply(changes);
+                    }
+                    catalog = rebuilt;
+                    if (initial) {
+                        // 整体构建用的是读库时的数据，期间写入的图书按最新快照重新放入
+                        for (long id : written.toArray()) {
+                            syncDerivedIndexes(id, get(id));
+                        }
+                    } else {
+                        changes.forEach(this::syncDerivedIndexes);
+                    }
+                }
+                rebuiltAt = System.currentTimeMillis();
+                rebuildMillis = (System.nanoTime() - start) / 1_000_000;
+            } finally {
+                synchronized (writeLock) {
+                    writtenDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 按最大滞后时间定期全量比对
+     */
+    @Scheduled(fixedDelayString = "${bookstore.book.catalog.max-staleness-ms:60000}",
+            initialDelayString = "${bookstore.book.catalog.max-staleness-ms:60000}")
+    public void rebuildStale() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("图书目录快照重建失败，继续使用旧快照", e);
+        }
+    }
+
+    /**
+     * 从数据库重新加载指定图书并更新快照，图书不存在时从快照移除。
+     * 若处于事务中，回滚后会再次按数据库状态刷新，避免快照残留未提交的数据。
+     * @param id 图书ID
+     */
+    public void refresh(Long id) {
+        if (id == null) {
+            return;
+        }
+        reload(id);
+        reloadOnRollback(id);
+    }
+
+    /**
+     * 将已持久化的图书直接加入快照，用于批量导入后避免逐条回查数据库
+     * @param books 已写入数据库且带有ID的图书
+     */
+    public void putAll(Collection<Book> books) {
+        Map<Long, Book> changes = new TreeMap<>();
+        for (Book book : books) {
+            if (book.getId() != null) {
+                changes.put(book.getId(), book);
+            }
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            catalog = catalog.apply(changes);
+            changes.forEach(this::syncDerivedIndexes);
+            changes.keySet().forEach(this::markWritten);
+        }
+    }
+
+    /**
+     * 以数据库中的收藏数批量覆盖快照中的值，只复制一次收藏数数组
+     * @param favoriteCounts 图书ID -> 收藏数
+     */
+    public void updateFavoriteCounts(Map<Long, Integer> favoriteCounts) {
+        if (favoriteCounts.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            CatalogSnapshot current = catalog;
+            int[] counts = current.favoriteCounts.clone();
+            for (Map.Entry<Long, Integer> entry : favoriteCounts.entrySet()) {
+                int index = current.indexOf(entry.getKey());
+                if (index >= 0) {
+                    counts[index] = entry.getValue() == null ? 0 : entry.getValue();
+                }
+                markWritten(entry.getKey());
+            }
+            catalog = current.withFavoriteCounts(counts);
+        }
+    }
+
+    /**
+     * 图书是否在目录快照中，不查询数据库也不复制图书
+     * @param id 图书ID
+     * @return 是否存在
+     */
+    public boolean contains(Long id) {
+        return id != null && catalog.indexOf(id) >= 0;
+    }
+
+    /**
+     * 按ID取图书，不查询数据库
+     * @param id 图书ID
+     * @return 图书副本，不存在时返回null
+     */
+    public Book get(Long id) {
+        CatalogSnapshot current = catalog;
+        int index = id == null ? -1 : current.indexOf(id);
+        return index < 0 ? null : current.copy(index);
+    }
+
+    /**
+     * 按ID取规范化后的图书详情：作者、分类为空时填充“未知作者”“未分类”，价格为空或为负时为0.00。
+     * 规范化在图书进入快照时已完成，这里只复制
+     * @param id 图书ID
+     * @return 图书副本，不存在时返回null
+     */
+    public Book detail(Long id) {
+        CatalogSnapshot current = catalog;
+        int index = id == null ? -1 : current.indexOf(id);
+        if (index < 0) {
+            detailMisses.increment();
+            return null;
+        }
+        detailHits.increment();
+        Book book = new Book(current.details[index]);
+        book.setFavoriteCount(current.favoriteCounts[index]);
+        return book;
+    }
+
+    /**
+     * 按ID批量取图书，不查询数据库
+     * @param ids 图书ID
+     * @return 图书副本，顺序与 ids 一致，不存在的ID被跳过
+     */
+    public List<Book> get(long[] ids) {
+        return catalog.get(ids);
+    }
+
+    /**
+     * 按关键词搜索图书（子串匹配，忽略大小写与全角半角）
+     * @param query 查询关键词，为空时返回全部图书
+     * @param includeDescription 是否同时匹配描述字段
+     * @return 匹配的图书副本，按 id 升序
+     */
+    public List<Book> search(String query, boolean includeDescription) {
+        CatalogSnapshot current = catalog;
+        if (query == null || query.isBlank()) {
+            return current.get(current.ids);
+        }
+        return current.get(current.searchIds(query, includeDescription));
+    }
+
+    /**
+     * 按关键词搜索图书ID（子串匹配，忽略大小写与全角半角），结果可配合 {@link #get(long[])} 取图书
+     * @param query 查询关键词，不能为空
+     * @param includeDescription 是否同时匹配描述字段
+     * @return 匹配的图书ID，升序
+     */
+    public long[] searchIds(String query, boolean includeDescription) {
+        return catalog.searchIds(query, includeDescription);
+    }
+
+    /**
+     * 按分类过滤图书ID
+     * @param ids 升序的图书ID，为null时表示全部图书
+     * @param category 分类名，为空时不过滤
+     * @return 属于该分类的图书ID，升序
+     */
+    public long[] filterByCategory(long[] ids, String category) {
+        CatalogSnapshot current = catalog;
+        if (category == null || category.isBlank()) {
+            return ids == null ? current.ids : ids;
+        }
+        IdBitmap bitmap = current.categories.get(CatalogSnapshot.categoryKey(category));
+        if (bitmap == null) {
+            return NO_IDS;
+        }
+        return ids == null ? bitmap.toArray() : bitmap.retain(ids);
+    }
+
+    /**
+     * 按价格区间过滤图书ID
+     * @param ids 升序的图书ID，为null时表示全部图书
+     * @param minCents 最低价格（分，含），为null时不限
+     * @param maxCents 最高价格（分，含），为null时不限
+     * @return 价格在区间内的图书ID，升序
+     */
+    public long[] filterByPrice(long[] ids, Long minCents, Long maxCents) {
+        return catalog.views.filterByPrice(ids, minCents, maxCents);
+    }
+
+    /**
+     * 按页码从预排序视图取一页
+     * @param key 排序字段
+     * @param asc 是否升序
+     * @param ids 升序的候选图书ID，为null时表示全部图书
+     * @param minCents 最低价格（分，含），为null时不限
+     * @param maxCents 最高价格（分，含），为null时不限
+     * @param offset 跳过的条数
+     * @param limit 本页条数
+     * @return 本页图书ID与总数
+     */
+    public SortedPage sortedPage(SortKey key, boolean asc, long[] ids, Long minCents, Long maxCents,
+                                 long offset, int limit) {
+        return catalog.views.select(key, asc, ids, minCents, maxCents, null, offset, limit);
+    }
+
+    /**
+     * 按游标从预排序视图取游标之后的一页
+     * @param after 上一页最后一条图书（只需ID与排序字段），为null时取第一页
+     * @return 本页图书ID，按排序顺序
+     */
+    public long[] sortedAfter(SortKey key, boolean asc, long[] ids, Long minCents, Long maxCents,
+                              Book after, int limit) {
+        return catalog.views.select(key, asc, ids, minCents, maxCents, after, 0, limit).ids();
+    }
+
+    /**
+     * 价格换算为分，null 视为0（与图书详情的默认价格一致）
+     */
+    public static long priceCents(BigDecimal price) {
+        return price == null ? 0 : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * 分类计数
+     * @param ids 升序的图书ID，为null时统计全部图书（直接取位图基数）
+     * @return 分类 -> 图书数，按图书数降序、分类名升序
+     */
+    public Map<String, Long> facets(long[] ids) {
+        CatalogSnapshot current = catalog;
+        Map<String, Long> counts = new HashMap<>();
+        if (ids == null) {
+            current.categories.forEach((category, bitmap) -> counts.put(category, bitmap.cardinality()));
+        } else {
+            for (long id : ids) {
+                int index = current.indexOf(id);
+                if (index >= 0) {
+                    counts.merge(CatalogSnapshot.categoryKey(current.books[index].getCategory()), 1L, Long::sum);
+                }
+            }
+        }
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    /**
+     * @return 目录版本号，图书增删或书名、作者、分类、描述变化后递增，可作为搜索结果缓存键的一部分
+     */
+    public long version() {
+        return catalog.version;
+    }
+
+    /**
+     * 快照统计：图书数、词元数、词表后缀数、版本号、距上次全量重建的时间；
+     * 以及详情查询的命中率，按 id 重新加载与全量重建的耗时（快照包含全部图书，不会淘汰）
+     */
+    public Map<String, Object> stats() {
+        CatalogSnapshot current = catalog;
+        Map<String, Object> data = new HashMap<>();
+        data.put("size", current.ids.length);
+        data.put("tokens", current.terms.size());
+        data.put("suffixes", current.terms.suffixCount());
+        data.put("categories", current.categories.size());
+        data.put("categoryBitmapBytes", current.categories.values().stream().mapToLong(IdBitmap::memoryBytes).sum());
+        data.put("version", current.version);
+        data.put("copyBytesPerWrite", (long) current.ids.length * CatalogSnapshot.BYTES_PER_BOOK);
+        data.put("millisSinceRebuild", System.currentTimeMillis() - rebuiltAt);
+        data.put("lastRebuildMillis", rebuildMillis);
+        long hits = detailHits.sum();
+        long misses = detailMisses.sum();
+        data.put("detailHitCount", hits);
+        data.put("detailMissCount", misses);
+        data.put("detailHitRate", hits + misses == 0 ? 1.0 : (double) hits / (hits + misses));
+        long reloads = reloadCount.sum();
+        data.put("reloadCount", reloads);
+        data.put("averageReloadMillis", reloads == 0 ? 0.0 : reloadNanos.sum() / 1_000_000.0 / reloads);
+        return data;
+    }
+
+    private void reload(Long id) {
+        long start = System.nanoTime();
+        Book book = bookMapper.selectById(id);
+        reloadCount.increment();
+        reloadNanos.add(System.nanoTime() - start);
+        Map<Long, Book> changes = new TreeMap<>();
+        changes.put(id, book);
+        synchronized (writeLock) {
+            catalog = catalog.apply(changes);
+            syncDerivedIndexes(id, book);
+            markWritten(id);
+        }
+    }
+
+    /**
+     * 同步联想与相似索引，在写锁内调用
+     * @param book 图书，为null时移除
+     */
+    private void syncDerivedIndexes(Long id, Book book) {
+        if (book == null) {
+            bookSuggestIndex.remove(id);
+            bookSimilarityIndex.remove(id);
+        } else {
+            bookSuggestIndex.put(book);
+            bookSimilarityIndex.put(book);
+        }
+    }
+
+    /**
+     * 记录全量重建读库期间的增量写入，在写锁内调用
+     */
+    private void markWritten(Long id) {
+        if (writtenDuringRebuild != null && id != null) {
+            writtenDuringRebuild.add(id);
+        }
+    }
+
+    private void reloadOnRollback(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reload(id);
+                    }
+                }
+            });
+        }
+    }
+}
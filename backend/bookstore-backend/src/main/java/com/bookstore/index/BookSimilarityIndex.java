@@ -0,0 +1,389 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TextTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 相似图书索引（MinHash + LSH）
+ * 把书名、分类、描述归一化后按检索分词切成词元（中日韩二元组与整词）作为 shingle 集合，
+ * 每本书预先计算 bands * rows 个 MinHash 值作为签名，两本书签名中相等位置的比例即 Jaccard 相似度的估计。
+ * 签名按 rows 个一段分为 bands 段，每段的哈希作为桶键：相似度为 s 的两本书至少落入同一个桶的概率为
+ * 1 - (1 - s^rows)^bands。查询只评估与目标书共享桶的候选（最多 maxCandidates 个），不扫描整个目录。
+ * bands 越多召回越高，rows 越多候选越少、只保留更相似的书；maxCandidates 限制热门桶下单次查询的耗时。
+ * 由 BookSearchIndex 在图书增删改时同步维护。
+ */
+@Component
+public class BookSimilarityIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    /** 生成哈希函数参数的固定种子，保证签名在重启与重建之间可复现 */
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final int bands;
+
+    private final int rows;
+
+    private final int maxCandidates;
+
+    /** 第 i 个哈希函数为 (multipliers[i] * x + addends[i]) 的高31位，取值非负 */
+    private final long[] multipliers;
+
+    private final long[] addends;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** id -> 签名，没有任何词元的图书不收录 */
+    private Map<Long, int[]> signatures = new HashMap<>();
+
+    /** 桶键 -> 图书ID */
+    private Buckets buckets = new Buckets(16);
+
+    public BookSimilarityIndex(@Value("${bookstore.book.similar.bands:8}") int bands,
+                               @Value("${bookstore.book.similar.rows:3}") int rows,
+                               @Value("${bookstore.book.similar.max-candidates:500}") int maxCandidates) {
+        if (bands <= 0 || rows <= 0 || maxCandidates <= 0) {
+            throw new IllegalArgumentException("bands、rows 与 max-candidates 必须为正数");
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.maxCandidates = maxCandidates;
+        SplittableRandom random = new SplittableRandom(SEED);
+        multipliers = new long[bands * rows];
+        addends = new long[bands * rows];
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            addends[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * 全量重建，签名在锁外计算，查询只在替换时短暂等待
+     * @param books 全部图书
+     */
+    public void rebuild(Collection<Book> books) {
+        Map<Long, int[]> rebuilt = new HashMap<>(books.size() * 2);
+        for (Book book : books) {
+            int[] signature = book.getId() == null ? null : signature(book);
+            if (signature != null) {
+                rebuilt.put(book.getId(), signature);
+            }
+        }
+        Buckets rebuiltBuckets = new Buckets(rebuilt.size() * bands);
+        rebuilt.forEach((id, signature) -> {
+            for (int band = 0; band < bands; band++) {
+                rebuiltBuckets.add(bandKey(signature, band), id);
+            }
+        });
+        lock.writeLock().lock();
+        try {
+            signatures = rebuilt;
+            buckets = rebuiltBuckets;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 加入或更新图书，文本未变（签名相同）时不改动桶
+     * @param book 图书
+     */
+    public void put(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        int[] signature = signature(book);
+        lock.writeLock().lock();
+        try {
+            int[] old = signatures.get(book.getId());
+            if (Arrays.equals(old, signature)) {
+                return;
+            }
+            removeBuckets(book.getId(), old);
+            if (signature == null) {
+                signatures.remove(book.getId());
+                return;
+            }
+            signatures.put(book.getId(), signature);
+            for (int band = 0; band < bands; band++) {
+                buckets.add(bandKey(signature, band), book.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图书
+     * @param id 图书ID
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeBuckets(id, signatures.remove(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找相似图书
+     * @param id 图书ID
+     * @param limit 最多返回条数
+     * @return 图书ID，按估计相似度降序、ID升序；不含自身，图书未收录时为空
+     */
+    public long[] similar(Long id, int limit) {
+        if (id == null || limit <= 0) {
+            return NO_IDS;
+        }
+        lock.readLock().lock();
+        try {
+            int[] signature = signatures.get(id);
+            if (signature == null) {
+                return NO_IDS;
+            }
+            LongHashSet candidates = new LongHashSet();
+            for (int band = 0; band < bands && candidates.size() < maxCandidates; band++) {
+                buckets.collect(bandKey(signature, band), id, candidates, maxCandidates);
+            }
+            long[] ids = candidates.toArray();
+            // 排序键：高位为签名中相等的位置数，低位为取反的ID，降序即相似度降序、ID升序
+            long[] keys = new long[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                keys[i] = ((long) agreement(signature, signatures.get(ids[i])) << 40) | (~ids[i] & ((1L << 40) - 1));
+            }
+            Arrays.sort(keys);
+            long[] result = new long[Math.min(limit, keys.length)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ~keys[keys.length - 1 - i] & ((1L << 40) - 1);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估计两本已收录图书的 Jaccard 相似度
+     * @return 签名中相等位置的比例，任一图书未收录时为0
+     */
+    public double similarity(Long a, Long b) {
+        lock.readLock().lock();
+        try {
+            int[] x = signatures.get(a);
+            int[] y = signatures.get(b);
+            return x == null || y == null ? 0 : (double) agreement(x, y) / x.length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 运行统计：收录图书数、参数与内存占用
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            // 签名表：每项 HashMap 节点 32 + Long 16 + int[] 头 16
+            long signatureBytes = (long) signatures.size() * (64 + 4L * bands * rows);
+            Map<String, Object> data = new HashMap<>();
+            data.put("books", signatures.size());
+            data.put("bands", bands);
+            data.put("rows", rows);
+            data.put("maxCandidates", maxCandidates);
+            data.put("bucketEntries", buckets.size);
+            data.put("memoryBytes", signatureBytes + buckets.memoryBytes());
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeBuckets(Long id, int[] signature) {
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.remove(bandKey(signature, band), id);
+        }
+    }
+
+    /**
+     * 计算签名
+     * @return 签名，书名、分类、描述均无词元时返回null
+     */
+    private int[] signature(Book book) {
+        LongHashSet shingles = new LongHashSet();
+        addShingles(shingles, book.getName());
+        addShingles(shingles, book.getCategory());
+        addShingles(shingles, book.getDescription());
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[multipliers.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles.toArray()) {
+            for (int i = 0; i < signature.length; i++) {
+                int h = (int) ((multipliers[i] * shingle + addends[i]) >>> 33);
+                if (h < signature[i]) {
+                    signature[i] = h;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static void addShingles(LongHashSet shingles, String text) {
+        if (text == null) {
+            return;
+        }
+        for (String token : TextTokenizer.tokenize(TextTokenizer.normalize(text))) {
+            shingles.add(hash(token));
+        }
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long h = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            h = (h ^ signature[i]) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static int agreement(int[] x, int[] y) {
+        int equal = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (x[i] == y[i]) {
+                equal++;
+            }
+        }
+        return equal;
+    }
+
+    /** 词元的64位 FNV-1a 哈希，再混合一次使各位分布均匀 */
+    private static long hash(String token) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h = (h ^ token.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * 桶：(桶键, 图书ID) 对的开放寻址表，同一桶键的条目位于同一条探测链上。
+     * 键与ID分别存放在两个 long[] 中，不为每个桶创建集合对象。
+     */
+    private static final class Buckets {
+
+        /** 空槽标记，图书ID不会取到该值 */
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys;
+
+        private long[] ids;
+
+        private int size;
+
+        Buckets(int expectedSize) {
+            int capacity = 16;
+            while (capacity < expectedSize * 2) {
+                capacity <<= 1;
+            }
+            keys = new long[capacity];
+            ids = new long[capacity];
+            Arrays.fill(ids, EMPTY);
+        }
+
+        void add(long key, long id) {
+            if ((size + 1) * 2 > ids.length) {
+                resize();
+            }
+            int mask = ids.length - 1;
+            int index = (int) key & mask;
+            while (ids[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            ids[index] = id;
+            size++;
+        }
+
+        /**
+         * 删除一个条目，采用后移删除保持探测链连续
+         */
+        void remove(long key, long id) {
+            int mask = ids.length - 1;
+            int index = (int) key & mask;
+            while (keys[index] != key || ids[index] != id) {
+                if (ids[index] == EMPTY) {
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            int gap = index;
+            int next = (gap + 1) & mask;
+            while (ids[next] != EMPTY) {
+                int home = (int) keys[next] & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    ids[gap] = ids[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            ids[gap] = EMPTY;
+            size--;
+        }
+
+        /**
+         * 收集桶中除 self 以外的图书，集合达到 max 个时停止
+         */
+        void collect(long key, long self, LongHashSet into, int max) {
+            int mask = ids.length - 1;
+            for (int index = (int) key & mask; ids[index] != EMPTY; index = (index + 1) & mask) {
+                if (keys[index] == key && ids[index] != self) {
+                    into.add(ids[index]);
+                    if (into.size() >= max) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        long memoryBytes() {
+            return 32L + 16L * ids.length;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldIds = ids;
+            keys = new long[oldIds.length << 1];
+            ids = new long[oldIds.length << 1];
+            Arrays.fill(ids, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldIds[i] != EMPTY) {
+                    add(oldKeys[i], oldIds[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TextTokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书前缀联想索引
+ * 对归一化的书名、作者（全角转半角并做大小写折叠，规则与检索的 {@link TextTokenizer#normalize} 一致）
+ * 以及其中每个单词开头的后缀建立压缩前缀树（radix trie，单分支路径合并为一条边），
+ * 每个节点记录子树中的条目数。查询时定位前缀节点：子树较小时收集全部图书按收藏数取前 N，
+ * 子树较大（匹配的图书足够密集）时改为沿收藏排行榜从高到低遍历并校验前缀，两种情况都不扫描整个目录。
+ * 由 BookSearchIndex 在图书增删改时同步维护。
+ */
+@Component
+public class BookSuggestIndex {
+
+    /**
+     * 沿排行榜遍历一步相对收集子树一个条目的开销倍数。
+     * 子树有 size 个条目、共 total 本书时，遍历排行榜约需 limit * total / size 步，
+     * 当 size * size > SCAN_COST * limit * total 时遍历排行榜更快。
+     */
+    private static final int SCAN_COST = 2;
+
+    /** 排序键中 id 占用的低位数，与 FavoriteLeaderboard 一致 */
+    private static final int ID_BITS = 40;
+
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final long[] NO_IDS = new long[0];
+
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node("");
+
+    /** id -> 归一化的 [书名, 作者]，用于删除时还原词条和前缀校验；词条本身不重复保存 */
+    private final Map<Long, String[]> texts = new HashMap<>();
+
+    /**
+     * 全量重建
+     * @param books 全部图书
+     */
+    public void rebuild(Collection<Book> books) {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            texts.clear();
+            for (Book book : books) {
+                add(book);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 加入或更新图书
+     * @param book 图书
+     */
+    public void put(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeTerms(book.getId());
+            add(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除图书
+     * @param id 图书ID
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeTerms(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按前缀联想图书，书名、作者或其中某个单词以该前缀开头即匹配（忽略大小写与全角/半角）
+     * @param prefix 前缀
+     * @param limit 最多返回条数
+     * @return 图书ID，按收藏数降序、ID降序
+     */
+    public long[] suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return NO_IDS;
+        }
+        String normalizedPrefix = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = find(normalizedPrefix);
+            if (node == null) {
+                return NO_IDS;
+            }
+            if ((long) node.size * node.size > (long) SCAN_COST * limit * texts.size()) {
+                return favoriteLeaderboard.top(limit, false, id -> matches(id, normalizedPrefix));
+            }
+
+            LongHashSet ids = new LongHashSet(node.size);
+            collect(node, ids);
+            // 以 (收藏数, id) 编码为 long 排序，避免装箱
+            long[] ranked = ids.toArray();
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = ((long) favoriteLeaderboard.favoriteCount(ranked[i]) << ID_BITS) | ranked[i];
+            }
+            Arrays.sort(ranked);
+            int size = Math.min(limit, ranked.length);
+            long[] result = new long[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ranked[ranked.length - 1 - i] & ID_MASK;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引统计：图书数、节点数、估算占用字节数及平均每本图书的字节数
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long[] nodesAndBytes = new long[2];
+            measure(root, nodesAndBytes);
+            // texts 表：每项 HashMap 节点 32 + Long 16 + 两元素数组 24，加上字符串本身
+            long bytes = nodesAndBytes[1];
+            for (String[] bookTexts : texts.values()) {
+                bytes += 72;
+                for (String text : bookTexts) {
+                    bytes += text == null ? 0 : stringBytes(text);
+                }
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("books", texts.size());
+            data.put("nodes", nodesAndBytes[0]);
+            data.put("entries", root.size);
+            data.put("memoryBytes", bytes);
+            data.put("bytesPerBook", texts.isEmpty() ? 0 : bytes / texts.size());
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Book book) {
+        String[] bookTexts = {normalize(book.getName()), normalize(book.getAuthor())};
+        if (bookTexts[0] == null && bookTexts[1] == null) {
+            return;
+        }
+        texts.put(book.getId(), bookTexts);
+        for (String term : terms(bookTexts)) {
+            insert(term, book.getId());
+        }
+    }
+
+    private void removeTerms(Long id) {
+        String[] bookTexts = texts.remove(id);
+        if (bookTexts == null) {
+            return;
+        }
+        for (String term : terms(bookTexts)) {
+            delete(root, term, 0, id);
+        }
+    }
+
+    private boolean matches(long id, String normalizedPrefix) {
+        String[] bookTexts = texts.get(id);
+        if (bookTexts == null) {
+            return false;
+        }
+        for (String text : bookTexts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (isWordStart(text, i) && text.startsWith(normalizedPrefix, i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 词条：书名、作者及其中每个单词开头的后缀，去重
+     */
+    private static Set<String> terms(String[] bookTexts) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String text : bookTexts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (isWordStart(text, i)) {
+                    result.add(text.substring(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWordStart(String text, int i) {
+        return i == 0 || (Character.isWhitespace(text.charAt(i - 1)) && !Character.isWhitespace(text.charAt(i)));
+    }
+
+    private static String normalize(String text) {
+        return text == null || text.isBlank() ? null : TextTokenizer.normalize(text).strip();
+    }
+
+    /**
+     * 定位前缀所在节点；前缀结束在某条边中间时返回该边指向的节点，其子树同样全部匹配
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int depth = 0;
+        while (depth < prefix.length()) {
+            Node child = node.child(prefix.charAt(depth));
+            if (child == null) {
+                return null;
+            }
+            String edge = child.edge;
+            int n = Math.min(edge.length(), prefix.length() - depth);
+            if (!edge.regionMatches(0, prefix, depth, n)) {
+                return null;
+            }
+            depth += n;
+            node = child;
+        }
+        return node;
+    }
+
+    private void insert(String term, long id) {
+        Node node = root;
+        node.size++;
+        int depth = 0;
+        while (depth < term.length()) {
+            Node child = node.child(term.charAt(depth));
+            if (child == null) {
+                child = new Node(term.substring(depth));
+                node.addChild(child);
+                node = child;
+                node.size++;
+                depth = term.length();
+                break;
+            }
+            String edge = child.edge;
+            int common = 0;
+            int max = Math.min(edge.length(), term.length() - depth);
+            while (common < max && edge.charAt(common) == term.charAt(depth + common)) {
+                common++;
+            }
+            if (common < edge.length()) {
+                // 拆分边：插入中间节点承接公共前缀
+                Node middle = new Node(edge.substring(0, common));
+                middle.size = child.size;
+                child.edge = edge.substring(common);
+                middle.addChild(child);
+                node.replaceChild(middle);
+                child = middle;
+            }
+            node = child;
+            node.size++;
+            depth += common;
+        }
+        node.ids = addId(node.ids, id);
+    }
+
+    /**
+     * 删除词条，返回是否删除成功；沿途更新子树条目数并回收空节点、合并单分支节点
+     */
+    private boolean delete(Node node, String term, int depth, long id) {
+        if (depth == term.length()) {
+            long[] ids = removeId(node.ids, id);
+            if (ids == node.ids) {
+                return false;
+            }
+            node.ids = ids;
+            node.size--;
+            return true;
+        }
+        Node child = node.child(term.charAt(depth));
+        if (child == null || !term.startsWith(child.edge, depth)) {
+            return false;
+        }
+        if (!delete(child, term, depth + child.edge.length(), id)) {
+            return false;
+        }
+        node.size--;
+        if (child.size == 0) {
+            node.removeChild(child);
+        } else if (child.ids.length == 0 && child.children.length == 1) {
+            Node grandchild = child.children[0];
+            grandchild.edge = child.edge + grandchild.edge;
+            node.replaceChild(grandchild);
+        }
+        return true;
+    }
+
+    private static void collect(Node node, LongHashSet out) {
+        for (long id : node.ids) {
+            out.add(id);
+        }
+        for (Node child : node.children) {
+            collect(child, out);
+        }
+    }
+
+    /**
+     * 估算节点占用：节点对象 32 字节（压缩指针）、边字符串，以及各数组 16 字节头加元素
+     */
+    private static void measure(Node node, long[] nodesAndBytes) {
+        nodesAndBytes[0]++;
+        long edgeBytes = stringBytes(node.edge);
+        long arrayBytes = (node.keys.length == 0 ? 0 : 16 + 2L * node.keys.length)
+                + (node.children.length == 0 ? 0 : 16 + 4L * node.children.length)
+                + (node.ids.length == 0 ? 0 : 16 + 8L * node.ids.length);
+        nodesAndBytes[1] += 32 + edgeBytes + arrayBytes;
+        for (Node child : node.children) {
+            measure(child, nodesAndBytes);
+        }
+    }
+
+    /**
+     * 字符串对象 24 字节 + 字节数组头 16 字节，紧凑字符串下 Latin-1 每字符 1 字节，否则 2 字节
+     */
+    private static long stringBytes(String text) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < text.length() && bytesPerChar == 1; i++) {
+            if (text.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+            }
+        }
+        return 40 + (long) text.length() * bytesPerChar;
+    }
+
+    private static long[] addId(long[] ids, long id) {
+        for (long existing : ids) {
+            if (existing == id) {
+                return ids;
+            }
+        }
+        long[] result = Arrays.copyOf(ids, ids.length + 1);
+        result[ids.length] = id;
+        return result;
+    }
+
+    private static long[] removeId(long[] ids, long id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                long[] result = new long[ids.length - 1];
+                System.arraycopy(ids, 0, result, 0, i);
+                System.arraycopy(ids, i + 1, result, i, ids.length - 1 - i);
+                return result;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 前缀树节点，子节点按边首字符有序存放在数组中
+     */
+    private static final class Node {
+        /** 从父节点到本节点的边标签 */
+        private String edge;
+        /** 子节点边的首字符，升序 */
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        /** 词条恰好在此结束的图书 */
+        private long[] ids = NO_IDS;
+        /** 子树（含本节点）中的条目数 */
+        private int size;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        void addChild(Node child) {
+            int index = -(Arrays.binarySearch(keys, child.edge.charAt(0)) + 1);
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newKeys[index] = child.edge.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        void replaceChild(Node child) {
+            children[Arrays.binarySearch(keys, child.edge.charAt(0))] = child;
+        }
+
+        void removeChild(Node child) {
+            int index = Arrays.binarySearch(keys, child.edge.charAt(0));
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.utils.CaseInsensitiveMatcher;
+import com.bookstore.utils.IdBitmap;
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TextTokenizer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 不可变的目录快照，发布后任何字段和数组都不再修改
+ * 全部图书按 id 升序存放在紧凑数组中，收藏数、价格与时间另存为基本类型列；
+ * 词元倒排见 {@link TermIndex}，预排序排列见 {@link SortedViews}，分类为图书ID压缩位图。
+ * 写入时在副本上应用变更后生成新快照：n 长度的列与排列（每本图书约 {@link #BYTES_PER_BOOK} 字节）总是复制一次，
+ * 倒排、后缀数组与分类位图只复制受影响的部分。
+ */
+final class CatalogSnapshot {
+
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * 每次写入为每本图书复制的字节数估计：ID、价格、两个时间列各 8，两个图书引用各 8，收藏数 4，四个排列各 4
+     */
+    static final int BYTES_PER_BOOK = 8 * 4 + 8 * 2 + 4 + 4 * 4;
+
+    /** 图书ID，升序 */
+    final long[] ids;
+
+    /** 与 ids 对应的图书，仅用于复制，不对外暴露 */
+    final Book[] books;
+
+    /** 与 ids 对应的规范化图书详情，无需填充缺省值时与 books 共享同一对象 */
+    final Book[] details;
+
+    /** 与 ids 对应的收藏数，单独存放使收藏数更新只需复制这一个数组 */
+    final int[] favoriteCounts;
+
+    /** 与 ids 对应的价格（分）与创建、更新时间（毫秒），与 views 共享 */
+    private final long[] priceCents;
+    private final long[] createTimes;
+    private final long[] updateTimes;
+
+    /** 词元倒排与词表后缀数组 */
+    final TermIndex terms;
+
+    /** 分类 -> 该分类的图书ID位图，发布后只读 */
+    final Map<String, IdBitmap> categories;
+
+    /** 预排序视图 */
+    final SortedViews views;
+
+    /** 目录版本号，只在图书增删或文本字段变化（影响匹配结果）时递增，价格、收藏数等变化不递增 */
+    final long version;
+
+    private CatalogSnapshot(long[] ids, Book[] books, Book[] details, int[] favoriteCounts, long[] priceCents,
+                            long[] createTimes, long[] updateTimes, TermIndex terms, Map<String, IdBitmap> categories,
+                            SortedViews views, long version) {
+        this.ids = ids;
+        this.books = books;
+        this.details = details;
+        this.favoriteCounts = favoriteCounts;
+        this.priceCents = priceCents;
+        this.createTimes = createTimes;
+        this.updateTimes = updateTimes;
+        this.terms = terms;
+        this.categories = categories;
+        this.views = views;
+        this.version = version;
+    }
+
+    static CatalogSnapshot empty(long version) {
+        return new CatalogSnapshot(NO_IDS, new Book[0], new Book[0], new int[0], NO_IDS, NO_IDS, NO_IDS,
+                TermIndex.empty(), new HashMap<>(), SortedViews.empty(), version);
+    }
+
+    static String categoryKey(String category) {
+        return category == null || category.isBlank() ? BookSearchIndex.UNCATEGORIZED : category.trim();
+    }
+
+    int indexOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    Book copy(int index) {
+        Book book = new Book(books[index]);
+        book.setFavoriteCount(favoriteCounts[index]);
+        return book;
+    }
+
+    List<Book> get(long[] wanted) {
+        List<Book> result = new ArrayList<>(wanted.length);
+        for (long id : wanted) {
+            int index = indexOf(id);
+            if (index >= 0) {
+                result.add(copy(index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 与数据库全量数据比对
+     * @param rows 数据库中的全部图书
+     * @return 有差异的图书ID -> 数据库中的图书，快照中有而数据库中没有的为null，按ID升序
+     */
+    Map<Long, Book> diff(List<Book> rows) {
+        Map<Long, Book> changes = new TreeMap<>();
+        boolean[] present = new boolean[ids.length];
+        for (Book row : rows) {
+            if (row.getId() == null) {
+                continue;
+            }
+            int index = indexOf(row.getId());
+            if (index >= 0) {
+                present[index] = true;
+                if (sameRow(index, row)) {
+                    continue;
+                }
+            }
+            changes.put(row.getId(), row);
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (!present[i]) {
+                changes.put(ids[i], null);
+            }
+        }
+        return changes;
+    }
+
+    private boolean sameRow(int index, Book row) {
+        Book current = copy(index);
+        if (row.getFavoriteCount() == null && favoriteCounts[index] == 0) {
+            current.setFavoriteCount(null);
+        }
+        return current.equals(row);
+    }
+
+    CatalogSnapshot withFavoriteCounts(int[] counts) {
+        return new CatalogSnapshot(ids, books, details, counts, priceCents, createTimes, updateTimes, terms,
+                categories, views, version);
+    }
+
+    /**
+     * 按关键词求匹配的图书ID：词元索引给出候选，再对候选做子串校验
+     * （{@link CaseInsensitiveMatcher} 直接比较原文），语义与 contains 匹配一致
+     * @return 升序ID
+     */
+    long[] searchIds(String query, boolean includeDescription) {
+        String foldedQuery = TextTokenizer.normalize(query);
+        long[] candidates = terms.candidates(foldedQuery, ids);
+        if (includeDescription && isSingleTerm(foldedQuery)) {
+            // 查询本身就是一个词元时，候选所含的词元都包含查询，无需逐本校验
+            return candidates;
+        }
+        CaseInsensitiveMatcher matcher = CaseInsensitiveMatcher.compile(query);
+        long[] matched = new long[candidates.length];
+        int size = 0;
+        for (long id : candidates) {
+            if (matches(books[indexOf(id)], matcher, includeDescription)) {
+                matched[size++] = id;
+            }
+        }
+        return Arrays.copyOf(matched, size);
+    }
+
+    private static boolean isSingleTerm(String foldedQuery) {
+        List<String> terms = TextTokenizer.tokenize(foldedQuery);
+        return terms.size() == 1 && terms.get(0).equals(foldedQuery);
+    }
+
+    private static boolean matches(Book book, CaseInsensitiveMatcher matcher, boolean includeDescription) {
+        return matcher.matches(book.getName())
+                || matcher.matches(book.getAuthor())
+                || matcher.matches(book.getCategory())
+                || (includeDescription && matcher.matches(book.getDescription()));
+    }
+
+    /**
+     * 在副本上应用一批图书变更（值为null表示删除），返回新快照。
+     * 各列与排列按ID归并复制一次，无论变更多少本图书；只有受影响的词元会重建倒排数组、
+     * 受影响的分类会复制位图，文本不变时词元索引整体共享。只有增删图书或文本字段变化时版本号才递增。
+     * @param changes 图书ID -> 新图书，按ID升序
+     */
+    CatalogSnapshot apply(Map<Long, Book> changes) {
+        int capacity = ids.length + changes.size();
+        long[] newIds = new long[capacity];
+        Book[] newBooks = new Book[capacity];
+        Book[] newDetails = new Book[capacity];
+        int[] newCounts = new int[capacity];
+        long[] newPrices = new long[capacity];
+        long[] newCreateTimes = new long[capacity];
+        long[] newUpdateTimes = new long[capacity];
+        // 旧下标 -> 新下标，变更或删除的图书为-1；以及变更后图书的新下标
+        int[] moved = new int[ids.length];
+        Arrays.fill(moved, -1);
+        int[] inserted = new int[changes.size()];
+        int insertedSize = 0;
+        Map<String, LongHashSet> removed = new HashMap<>();
+        Map<String, LongHashSet> added = new HashMap<>();
+        Map<String, IdBitmap> newCategories = new HashMap<>(categories);
+        Set<String> copiedCategories = new HashSet<>();
+        boolean textChanged = false;
+
+        // 按ID归并旧数组与变更
+        int size = 0;
+        int i = 0;
+        for (Map.Entry<Long, Book> change : changes.entrySet()) {
+            long id = change.getKey();
+            while (i < ids.length && ids[i] < id) {
+                moved[i] = size;
+                copyRow(i++, size++, newIds, newBooks, newDetails, newCounts, newPrices, newCreateTimes, newUpdateTimes);
+            }
+            Book old = null;
+            if (i < ids.length && ids[i] == id) {
+                old = books[i++];
+            }
+            Book book = change.getValue();
+            boolean sameText = old != null && book != null && sameText(old, book);
+            textChanged |= !sameText && (old != null || book != null);
+            Set<String> oldTokens = old == null || sameText ? Set.of() : tokens(old);
+            String oldCategory = old == null ? null : categoryKey(old.getCategory());
+            Set<String> newTokens = Set.of();
+            if (book != null) {
+                newTokens = sameText ? Set.of() : tokens(book);
+                newIds[size] = id;
+                newBooks[size] = new Book(book);
+                newDetails[size] = normalized(newBooks[size]);
+                newCounts[size] = book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
+                newPrices[size] = BookSearchIndex.priceCents(book.getPrice());
+                newCreateTimes[size] = SortedViews.millis(book.getCreateTime());
+                newUpdateTimes[size] = SortedViews.millis(book.getUpdateTime());
+                inserted[insertedSize++] = size++;
+            }
+            String newCategory = book == null ? null : categoryKey(book.getCategory());
+            if (oldCategory != null && !oldCategory.equals(newCategory)) {
+                writableCategory(newCategories, copiedCategories, oldCategory).remove(id);
+            }
+            if (newCategory != null && !newCategory.equals(oldCategory)) {
+                writableCategory(newCategories, copiedCategories, newCategory).add(id);
+            }
+            for (String token : oldTokens) {
+                if (!newTokens.contains(token)) {
+                    removed.computeIfAbsent(token, k -> new LongHashSet()).add(id);
+                }
+            }
+            for (String token : newTokens) {
+                if (!oldTokens.contains(token)) {
+                    added.computeIfAbsent(token, k -> new LongHashSet()).add(id);
+                }
+            }
+        }
+        while (i < ids.length) {
+            moved[i] = size;
+            copyRow(i++, size++, newIds, newBooks, newDetails, newCounts, newPrices, newCreateTimes, newUpdateTimes);
+        }
+
+        for (String category : copiedCategories) {
+            if (newCategories.get(category).isEmpty()) {
+                newCategories.remove(category);
+            }
+        }
+
+        newIds = Arrays.copyOf(newIds, size);
+        newBooks = Arrays.copyOf(newBooks, size);
+        newPrices = Arrays.copyOf(newPrices, size);
+        newCreateTimes = Arrays.copyOf(newCreateTimes, size);
+        newUpdateTimes = Arrays.copyOf(newUpdateTimes, size);
+        SortedViews newViews = views.merge(newIds, newBooks, newPrices, newCreateTimes, newUpdateTimes,
+                moved, Arrays.copyOf(inserted, insertedSize));
+        return new CatalogSnapshot(newIds, newBooks, Arrays.copyOf(newDetails, size), Arrays.copyOf(newCounts, size),
+                newPrices, newCreateTimes, newUpdateTimes, terms.apply(removed, added), newCategories, newViews,
+                textChanged ? version + 1 : version);
+    }
+
+    private void copyRow(int from, int to, long[] newIds, Book[] newBooks, Book[] newDetails, int[] newCounts,
+                         long[] newPrices, long[] newCreateTimes, long[] newUpdateTimes) {
+        newIds[to] = ids[from];
+        newBooks[to] = books[from];
+        newDetails[to] = details[from];
+        newCounts[to] = favoriteCounts[from];
+        newPrices[to] = priceCents[from];
+        newCreateTimes[to] = createTimes[from];
+        newUpdateTimes[to] = updateTimes[from];
+    }
+
+    /**
+     * 取本次变更中可修改的分类位图：旧快照的位图首次修改前先复制，不存在时新建
+     */
+    private static IdBitmap writableCategory(Map<String, IdBitmap> categories, Set<String> copied, String category) {
+        IdBitmap bitmap = categories.get(category);
+        if (copied.add(category)) {
+            bitmap = bitmap == null ? new IdBitmap() : bitmap.copy();
+            categories.put(category, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 图书详情的规范化：作者、分类为空时填充缺省值，价格为空或为负时为0.00；无需填充时返回原对象
+     */
+    private static Book normalized(Book book) {
+        boolean noAuthor = book.getAuthor() == null || book.getAuthor().isEmpty();
+        boolean noCategory = book.getCategory() == null || book.getCategory().isEmpty();
+        boolean noPrice = book.getPrice() == null || book.getPrice().compareTo(BigDecimal.ZERO) < 0;
+        if (!noAuthor && !noCategory && !noPrice) {
+            return book;
+        }
+        Book detail = new Book(book);
+        if (noAuthor) {
+            detail.setAuthor(BookSearchIndex.UNKNOWN_AUTHOR);
+        }
+        if (noCategory) {
+            detail.setCategory(BookSearchIndex.UNCATEGORIZED);
+        }
+        if (noPrice) {
+            detail.setPrice(new BigDecimal("0.00"));
+        }
+        return detail;
+    }
+
+    private static boolean sameText(Book a, Book b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getAuthor(), b.getAuthor())
+                && Objects.equals(a.getCategory(), b.getCategory())
+                && Objects.equals(a.getDescription(), b.getDescription());
+    }
+
+    private static Set<String> tokens(Book book) {
+        Set<String> tokens = new HashSet<>();
+        for (String text : new String[]{book.getName(), book.getAuthor(), book.getCategory(), book.getDescription()}) {
+            if (text != null) {
+                tokens.addAll(TextTokenizer.tokenize(TextTokenizer.normalize(text)));
+            }
+        }
+        return tokens;
+    }
+}
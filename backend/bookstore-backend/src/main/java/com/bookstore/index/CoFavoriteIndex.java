@@ -0,0 +1,375 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.FavoriteMapper;
+import com.bookstore.utils.LongIntHashMap;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 收藏共现索引（“收藏了这本书的用户也收藏了”）
+ * 对每本书维护一张稀疏的共现表（LongIntHashMap：另一本书的ID -> 同时收藏两本书的用户数），
+ * 图书经 bookId -> 槽位的 LongIntHashMap 找到共现表，键不装箱；
+ * 启动时流式扫描一次收藏表构建，之后由收藏/取消收藏在事务提交后增量维护，查询不访问数据库。
+ * 每张表超过 2 * topK 个条目时只保留计数最高的 topK 个，内存与图书数 * topK 成正比，不保存用户的收藏；
+ * 被裁掉的条目再次出现时从头计数，因此计数是近似值，排在前面的图书基本不受影响。
+ * 收藏超过 maxUserFavorites 本的用户（批量收藏者，信号弱且共现数按平方增长）不参与计数。
+ * 增量维护时按 userId 分段加锁：事务提交前取得该用户的锁，提交后查询一次该用户已提交的收藏并计入，
+ * 事务结束时释放。同一用户的收藏修改因此按提交顺序逐个计入，每次查询到的收藏恰好是此前已计入的收藏
+ * 加上本次修改：同一用户并发收藏两本书时，两本书之间的共现只计一次。
+ */
+@Component
+public class CoFavoriteIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    /** 排序键中 id 占用的低位数 */
+    private static final int ID_BITS = 40;
+
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    /** 用户锁的分段数，取2的幂 */
+    private static final int USER_LOCK_STRIPES = 64;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    private final int topK;
+
+    private final int maxUserFavorites;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 按 userId 分段的用户锁，串行化同一用户的提交与计入 */
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCK_STRIPES];
+
+    /** bookId -> 共现表槽位 */
+    private LongIntHashMap rowSlots = new LongIntHashMap();
+
+    /** 槽位 -> 共现表，已释放的槽位为null */
+    private LongIntHashMap[] rows = new LongIntHashMap[0];
+
+    /** 已释放、可复用的共现表槽位 */
+    private int[] freeRows = new int[0];
+
+    private int freeRowCount;
+
+    /** 已分配过的共现表槽位数（含已释放） */
+    private int rowCount;
+
+    public CoFavoriteIndex(@Value("${bookstore.favorite.co-favorite.top-k:50}") int topK,
+                           @Value("${bookstore.favorite.co-favorite.max-user-favorites:500}") int maxUserFavorites) {
+        if (topK <= 0 || maxUserFavorites <= 1) {
+            throw new IllegalArgumentException("top-k 必须为正数，max-user-favorites 必须大于1");
+        }
+        this.topK = topK;
+        this.maxUserFavorites = maxUserFavorites;
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 启动时流式扫描收藏表构建，同一用户的收藏在结果中相邻，逐个用户累加共现
+     */
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rowSlots = new LongIntHashMap();
+            rows = new LongIntHashMap[0];
+            freeRowCount = 0;
+            rowCount = 0;
+            UserScan scan = new UserScan();
+            favoriteMapper.selectAllForScan(context -> scan.accept(context.getResultObject()));
+            scan.finish();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 记录新增收藏。处于事务中时在事务提交后才计入，回滚则丢弃。
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     */
+    public void added(Long userId, Long bookId) {
+        afterCommit(userId, bookId, 1);
+    }
+
+    /**
+     * 记录取消收藏。处于事务中时在事务提交后才计入，回滚则丢弃。
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     */
+    public void removed(Long userId, Long bookId) {
+        afterCommit(userId, bookId, -1);
+    }
+
+    /**
+     * 查询与该图书共同被收藏最多的图书
+     * @param bookId 图书ID
+     * @param limit 最多返回条数，不超过 topK
+     * @return 图书ID，按共同收藏的用户数降序、ID升序
+     */
+    public long[] alsoFavorited(Long bookId, int limit) {
+        if (bookId == null || limit <= 0) {
+            return NO_IDS;
+        }
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = row(bookId);
+            if (row == null) {
+                return NO_IDS;
+            }
+            long[] keys = sortKeys(row);
+            long[] ids = new long[Math.min(Math.min(limit, topK), keys.length)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ~keys[keys.length - 1 - i] & ID_MASK;
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 运行统计：图书数、共现条目数与内存占用
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long entries = 0;
+            // 每本书的表对象 32 加上表的数组，再加上槽位表与槽位数组
+            long bytes = rowSlots.memoryBytes() + 8L * rows.length + 4L * freeRows.length;
+            for (int slot = 0; slot < rowCount; slot++) {
+                if (rows[slot] != null) {
+                    entries += rows[slot].size();
+                    bytes += 32 + rows[slot].memoryBytes();
+                }
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("books", rowSlots.size());
+            data.put("entries", entries);
+            data.put("topK", topK);
+            data.put("maxUserFavorites", maxUserFavorites);
+            data.put("memoryBytes", bytes);
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 处于事务中时在提交前取得用户锁、提交后计入、事务结束时释放，回滚则只释放锁；
+     * 不在事务中时（修改已经提交）持有用户锁立即计入
+     */
+    private void afterCommit(long userId, long bookId, int delta) {
+        ReentrantLock userLock = userLocks[Long.hashCode(userId) & (USER_LOCK_STRIPES - 1)];
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userLock.lock();
+            try {
+                apply(userId, bookId, delta);
+            } finally {
+                userLock.unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                userLock.lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                apply(userId, bookId, delta);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    userLock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 持有用户锁时调用：查询用户已提交的收藏，其中除本次修改外都已计入，据此在写锁内更新共现。
+     * 查询结果与本次修改不符（绕过索引的写入）时跳过，由下次重建纠正。
+     */
+    private void apply(long userId, long bookId, int delta) {
+        List<Long> committed = favoriteMapper.selectBookIds(userId);
+        long[] others = new long[committed.size()];
+        int n = 0;
+        boolean present = false;
+        for (Long other : committed) {
+            if (other == bookId) {
+                present = true;
+            } else {
+                others[n++] = other;
+            }
+        }
+        if (present != delta > 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            update(bookId, others, n, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用户收藏（delta=1）或取消收藏（delta=-1）一本书时更新共现
+     * @param bookId 图书ID
+     * @param others 用户收藏的其他图书，前 n 个有效
+     * @param n 其他图书数
+     * @param delta 变化方向
+     */
+    private void update(long bookId, long[] others, int n, int delta) {
+        int withBook = n + 1;
+        if (withBook <= maxUserFavorites) {
+            for (int i = 0; i < n; i++) {
+                increment(bookId, others[i], delta);
+                increment(others[i], bookId, delta);
+            }
+        } else if (withBook == maxUserFavorites + 1) {
+            // 收藏数越过上限：其余图书两两之间的共现整体撤销；回到上限以内时整体恢复
+            countPairs(others, n, -delta);
+        }
+    }
+
+    private void countPairs(long[] bookIds, int n, int delta) {
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                increment(bookIds[i], bookIds[j], delta);
+                increment(bookIds[j], bookIds[i], delta);
+            }
+        }
+    }
+
+    private void increment(long bookId, long other, int delta) {
+        int slot = rowSlots.containsKey(bookId) ? rowSlots.get(bookId) : -1;
+        if (delta > 0) {
+            if (slot < 0) {
+                slot = allocateRow(bookId);
+            }
+            LongIntHashMap row = rows[slot];
+            row.addTo(other, delta);
+            if (row.size() > 2 * topK) {
+                rows[slot] = prune(row);
+            }
+        } else if (slot >= 0 && rows[slot].containsKey(other)) {
+            // 已被裁掉的条目不再扣减
+            LongIntHashMap row = rows[slot];
+            if (row.addTo(other, delta) <= 0) {
+                row.remove(other);
+                if (row.isEmpty()) {
+                    rowSlots.remove(bookId);
+                    rows[slot] = null;
+                    if (freeRowCount == freeRows.length) {
+                        freeRows = Arrays.copyOf(freeRows, Math.max(16, freeRowCount * 2));
+                    }
+                    freeRows[freeRowCount++] = slot;
+                }
+            }
+        }
+    }
+
+    private LongIntHashMap row(long bookId) {
+        return rowSlots.containsKey(bookId) ? rows[rowSlots.get(bookId)] : null;
+    }
+
+    private int allocateRow(long bookId) {
+        int slot;
+        if (freeRowCount > 0) {
+            slot = freeRows[--freeRowCount];
+        } else {
+            slot = rowCount++;
+            if (slot == rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(16, slot * 2));
+            }
+        }
+        rows[slot] = new LongIntHashMap();
+        rowSlots.put(bookId, slot);
+        return slot;
+    }
+
+    /**
+     * @return 只含计数最高的 topK 个条目的新表
+     */
+    private LongIntHashMap prune(LongIntHashMap row) {
+        long[] keys = sortKeys(row);
+        LongIntHashMap pruned = new LongIntHashMap(topK);
+        for (int i = keys.length - topK; i < keys.length; i++) {
+            pruned.put(~keys[i] & ID_MASK, (int) (keys[i] >>> ID_BITS));
+        }
+        return pruned;
+    }
+
+    /**
+     * @return 升序的排序键：高位为计数，低位为取反的ID，倒序遍历即计数降序、ID升序
+     */
+    private static long[] sortKeys(LongIntHashMap row) {
+        long[] keys = new long[row.size()];
+        int[] n = new int[1];
+        row.forEach((other, count) -> keys[n[0]++] = ((long) count << ID_BITS) | (~other & ID_MASK));
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * 扫描收藏表时收集当前用户的收藏，换到下一个用户时计入共现；超过上限的用户不再收集
+     */
+    private final class UserScan {
+
+        private Long userId;
+
+        private long[] bookIds = new long[16];
+
+        private int size;
+
+        void accept(Favorite favorite) {
+            if (!favorite.getUserId().equals(userId)) {
+                finish();
+                userId = favorite.getUserId();
+                size = 0;
+            }
+            if (size > maxUserFavorites) {
+                return;
+            }
+            if (size == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, size * 2);
+            }
+            bookIds[size++] = favorite.getBookId();
+        }
+
+        void finish() {
+            if (userId == null) {
+                return;
+            }
+            if (size <= maxUserFavorites) {
+                countPairs(bookIds, size, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.bookstore.index;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.bookstore.counter.FavoriteCountBuffer;
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.utils.LongHashSet;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+
+/**
+ * 收藏量排行榜
+ * 以 (收藏数, id) 编码成一个 long 再按位取反作为键放入跳表，键的自然顺序即从高到低的排行顺序
+ * （跳表正向遍历远快于逆向遍历，而取收藏最多的图书是主要用法），
+ * 收藏数变化时只删除旧键、插入新键（O(log M)），取前/后 N 名只需从跳表一端遍历 N 个键，
+ * 无需加载和排序整个图书目录。
+ * 收藏数为合并未写回增量后的值，与接口返回给用户的收藏数一致。
+ * 写操作串行执行；读操作不加锁，结果是弱一致的：遍历期间收藏数发生变化的图书，
+ * 新键落在已遍历过的位置而旧键在前方被删除时会被漏掉，新旧键都被遍历到时按 id 去重只保留先遇到的一个。
+ * 遍历期间收藏数不变的图书总是出现在正确的位置；排行榜与分页接口接受这种误差。
+ */
+@Component
+public class FavoriteLeaderboard {
+
+    /** 键中 id 占用的低位数 */
+    private static final int ID_BITS = 40;
+
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    /** 候选数乘以该系数仍小于榜中图书数时，只对候选按收藏数排序而不是沿排行榜遍历 */
+    private static final int SORT_COST = 16;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    /** ~(收藏数 << ID_BITS | id) 的有序集合，正向即收藏数降序 */
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+
+    /** id -> 当前收藏数，仅在持有对象锁时修改，读取不加锁 */
+    private final Map<Long, Integer> counts = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时从数据库加载全部图书的收藏数，此时尚无未写回的增量
+     */
+    @PostConstruct
+    public void rebuild() {
+        LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Book::getId, Book::getFavoriteCount);
+        synchronized (this) {
+            ranking.clear();
+            counts.clear();
+            for (Book book : bookMapper.selectList(wrapper)) {
+                put(book.getId(), book.getFavoriteCount() == null ? 0 : book.getFavoriteCount());
+            }
+        }
+    }
+
+    /**
+     * 设置图书的收藏数，图书不在榜中时加入
+     * @param id 图书ID
+     * @param favoriteCount 收藏数，限制在 [0, MAX_FAVORITE_COUNT]
+     */
+    public synchronized void put(Long id, int favoriteCount) {
+        if (id == null || id < 0 || id > ID_MASK) {
+            return;
+        }
+        int count = Math.max(0, Math.min(favoriteCount, FavoriteCountBuffer.MAX_FAVORITE_COUNT));
+        Integer old = counts.put(id, count);
+        if (old != null && old == count) {
+            return;
+        }
+        // 先插入新键再删除旧键：新旧键都在并发读取的前方时，读取者不会因两次操作之间的空档漏掉该图书
+        ranking.add(key(count, id));
+        if (old != null) {
+            ranking.remove(key(old, id));
+        }
+    }
+
+    /**
+     * 按增量调整收藏数，图书不在榜中时忽略
+     * @param id 图书ID
+     * @param delta 变化量
+     */
+    public synchronized void adjust(Long id, long delta) {
+        Integer old = counts.get(id);
+        if (old != null && delta != 0) {
+            put(id, (int) Math.max(0, Math.min(old + delta, FavoriteCountBuffer.MAX_FAVORITE_COUNT)));
+        }
+    }
+
+    /**
+     * 从榜中移除图书
+     * @param id 图书ID
+     */
+    public synchronized void remove(Long id) {
+        Integer old = counts.remove(id);
+        if (old != null) {
+            ranking.remove(key(old, id));
+        }
+    }
+
+    /**
+     * 取收藏数最高（或最低）的 N 本图书
+     * @param n 数量
+     * @param asc true 时按 (收藏数, id) 升序取最低的 N 本，否则降序取最高的 N 本
+     * @return 图书ID，按排行顺序
+     */
+    public long[] top(int n, boolean asc) {
+        return top(n, asc, id -> true);
+    }
+
+    /**
+     * 按排行顺序遍历，取前 N 本满足条件的图书
+     * @param n 数量
+     * @param asc 是否升序
+     * @param filter 图书ID过滤条件
+     * @return 图书ID，按排行顺序
+     */
+    public long[] top(int n, boolean asc, LongPredicate filter) {
+        return collect(asc ? ranking.descendingSet() : ranking, 0, n, filter);
+    }
+
+    /**
+     * 按排行顺序取一页（页码分页）
+     * @param asc 是否升序
+     * @param offset 跳过的条数
+     * @param n 数量
+     * @return 图书ID，按排行顺序
+     */
+    public long[] page(boolean asc, long offset, int n) {
+        return collect(asc ? ranking.descendingSet() : ranking, offset, n, id -> true);
+    }
+
+    /**
+     * 按排行顺序取排在 (收藏数, id) 之后的 N 本图书，用于键集分页
+     * @param favoriteCount 上一页最后一本的收藏数
+     * @param id 上一页最后一本的ID
+     * @param n 数量
+     * @param asc 是否升序
+     * @param filter 图书ID过滤条件
+     * @return 图书ID，按排行顺序
+     */
+    public long[] after(int favoriteCount, long id, int n, boolean asc, LongPredicate filter) {
+        long key = key(Math.max(0, Math.min(favoriteCount, FavoriteCountBuffer.MAX_FAVORITE_COUNT)), id & ID_MASK);
+        return collect(asc ? ranking.headSet(key, false).descendingSet() : ranking.tailSet(key, false), 0, n, filter);
+    }
+
+    /**
+     * 在候选图书中按排行顺序取一页（页码分页）
+     * @param candidates 升序的候选图书ID
+     * @param asc 是否升序
+     * @param offset 跳过的条数
+     * @param n 数量
+     * @return 图书ID，按排行顺序
+     */
+    public long[] page(long[] candidates, boolean asc, long offset, int n) {
+        return select(candidates, asc, null, offset, n);
+    }
+
+    /**
+     * 在候选图书中按排行顺序取排在 (收藏数, id) 之后的 N 本图书（键集分页）
+     * @param candidates 升序的候选图书ID
+     * @param favoriteCount 上一页最后一本的收藏数
+     * @param id 上一页最后一本的ID
+     * @param asc 是否升序
+     * @param n 数量
+     * @return 图书ID，按排行顺序
+     */
+    public long[] after(long[] candidates, int favoriteCount, long id, boolean asc, int n) {
+        int count = Math.max(0, Math.min(favoriteCount, FavoriteCountBuffer.MAX_FAVORITE_COUNT));
+        return select(candidates, asc, key(count, id & ID_MASK), 0, n);
+    }
+
+    /**
+     * 候选集远小于排行榜时只对候选的键排序后切片，否则沿排行榜遍历并校验候选，
+     * 两种情况都不对全部图书排序
+     * @param afterKey 游标对应的键，为null时从头开始
+     */
+    private long[] select(long[] candidates, boolean asc, Long afterKey, long offset, int n) {
+        if ((long) candidates.length * SORT_COST >= counts.size()) {
+            NavigableSet<Long> view = asc ? ranking.descendingSet() : ranking;
+            if (afterKey != null) {
+                view = asc ? ranking.headSet(afterKey, false).descendingSet() : ranking.tailSet(afterKey, false);
+            }
+            return collect(view, offset, n, id -> Arrays.binarySearch(candidates, id) >= 0);
+        }
+        // 键的升序即排行降序
+        long[] keys = new long[candidates.length];
+        int size = 0;
+        for (long id : candidates) {
+            Integer count = counts.get(id);
+            if (count == null) {
+                continue;
+            }
+            long key = key(count, id);
+            if (afterKey == null || (asc ? key < afterKey : key > afterKey)) {
+                keys[size++] = key;
+            }
+        }
+        Arrays.sort(keys, 0, size);
+        int start = (int) Math.min(offset, size);
+        int length = Math.min(n, size - start);
+        long[] ids = new long[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = ~keys[asc ? size - 1 - start - i : start + i] & ID_MASK;
+        }
+        return ids;
+    }
+
+    private static long[] collect(NavigableSet<Long> view, long offset, int n, LongPredicate filter) {
+        long[] ids = new long[n];
+        int size = 0;
+        long skipped = 0;
+        LongHashSet seen = new LongHashSet(n);
+        Iterator<Long> it = view.iterator();
+        while (size < n && it.hasNext()) {
+            long id = ~it.next() & ID_MASK;
+            if (!filter.test(id) || !seen.add(id)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                ids[size++] = id;
+            }
+        }
+        return size == n ? ids : Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * 查询图书当前的收藏数，不加锁
+     * @param id 图书ID
+     * @return 收藏数，图书不在榜中时返回0
+     */
+    public int favoriteCount(long id) {
+        return counts.getOrDefault(id, 0);
+    }
+
+    /**
+     * @return 榜中图书数
+     */
+    public synchronized int size() {
+        return counts.size();
+    }
+
+    private static long key(int favoriteCount, long id) {
+        return ~(((long) favoriteCount << ID_BITS) | id);
+    }
+}
@@ -0,0 +1,293 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex.SortKey;
+import com.bookstore.index.BookSearchIndex.SortedPage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 目录快照的预排序视图，不可变，与所属快照共享图书ID与排序列
+ * 对价格、书名、创建时间、更新时间各保存一个升序的图书下标排列（相同值按ID），
+ * 写入时由旧排列换算下标并与排好序的变更图书线性归并，请求时不排序：
+ * 价格区间是排列上的二分查找，按页码或游标取一页为 O(log n + 页大小)。
+ */
+final class SortedViews {
+
+    private static final long[] NO_IDS = new long[0];
+
+    /** 过滤后的候选数乘以该系数仍小于扫描范围时，直接对候选排序而不是扫描预排序排列 */
+    private static final int SORT_COST = 16;
+
+    /** 图书ID，升序，与快照共享 */
+    private final long[] ids;
+
+    /** 与 ids 对应的图书，只读取书名 */
+    private final Book[] books;
+
+    /** 与 ids 对应的价格（分） */
+    private final long[] priceCents;
+
+    /** 与 ids 对应的创建时间（毫秒），未设置时为 Long.MIN_VALUE */
+    private final long[] createTimes;
+
+    /** 与 ids 对应的更新时间（毫秒），未设置时为 Long.MIN_VALUE，降序时排在最后 */
+    private final long[] updateTimes;
+
+    /** 按 SortKey 下标的排列：升序排列的图书下标 */
+    private final int[][] orders;
+
+    private SortedViews(long[] ids, Book[] books, long[] priceCents, long[] createTimes, long[] updateTimes) {
+        this.ids = ids;
+        this.books = books;
+        this.priceCents = priceCents;
+        this.createTimes = createTimes;
+        this.updateTimes = updateTimes;
+        this.orders = new int[SortKey.values().length][];
+    }
+
+    static SortedViews empty() {
+        SortedViews views = new SortedViews(NO_IDS, new Book[0], NO_IDS, NO_IDS, NO_IDS);
+        Arrays.fill(views.orders, new int[0]);
+        return views;
+    }
+
+    /**
+     * @return 未设置时为 Long.MIN_VALUE
+     */
+    static long millis(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * 由本视图的排列得到新快照的视图：未变更的图书相对顺序不变，只需换算下标，
+     * 再与排好序的变更图书线性归并，不对整体重新排序
+     * @param moved 旧下标 -> 新下标，变更或删除的为-1
+     * @param inserted 变更后图书在新快照中的下标
+     */
+    SortedViews merge(long[] newIds, Book[] newBooks, long[] newPrices, long[] newCreateTimes,
+                      long[] newUpdateTimes, int[] moved, int[] inserted) {
+        SortedViews next = new SortedViews(newIds, newBooks, newPrices, newCreateTimes, newUpdateTimes);
+        for (SortKey key : SortKey.values()) {
+            next.orders[key.ordinal()] = next.mergeOrder(key, orders[key.ordinal()], moved, inserted);
+        }
+        return next;
+    }
+
+    /**
+     * 按价格区间过滤图书ID
+     * @param candidates 升序的图书ID，为null时表示全部图书（在价格排列上二分）
+     * @return 价格在区间内的图书ID，升序
+     */
+    long[] filterByPrice(long[] candidates, Long minCents, Long maxCents) {
+        if (minCents == null && maxCents == null) {
+            return candidates == null ? ids : candidates;
+        }
+        if (candidates == null) {
+            int[] order = orders[SortKey.PRICE.ordinal()];
+            int from = minCents == null ? 0 : priceBound(order, minCents);
+            int to = maxCents == null ? order.length : priceBound(order, maxCents + 1);
+            long[] result = new long[Math.max(to - from, 0)];
+            for (int i = from; i < to; i++) {
+                result[i - from] = ids[order[i]];
+            }
+            Arrays.sort(result);
+            return result;
+        }
+        long[] result = new long[candidates.length];
+        int size = 0;
+        for (long id : candidates) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0 && priceInRange(index, minCents, maxCents)) {
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 从预排序排列中取一页
+     * 先由价格区间（按价格排序时）和游标二分收窄扫描范围，无其他过滤时直接按偏移切片；
+     * 候选集远小于扫描范围时对候选排序，否则沿排列扫描并校验候选与价格
+     * @param after 游标图书，不为null时按游标分页且不统计总数
+     */
+    SortedPage select(SortKey key, boolean asc, long[] candidates, Long minCents, Long maxCents,
+                      Book after, long offset, int limit) {
+        int[] order = orders[key.ordinal()];
+        int from = 0;
+        int to = order.length;
+        boolean checkPrice = minCents != null || maxCents != null;
+        if (key == SortKey.PRICE && checkPrice) {
+            from = minCents == null ? 0 : priceBound(order, minCents);
+            to = maxCents == null ? order.length : priceBound(order, maxCents + 1);
+            checkPrice = false;
+        }
+        if (after != null) {
+            if (asc) {
+                from = Math.max(from, bound(key, order, after, true));
+            } else {
+                to = Math.min(to, bound(key, order, after, false));
+            }
+        }
+        if (from >= to) {
+            return new SortedPage(NO_IDS, after == null ? 0 : -1);
+        }
+
+        if (candidates == null && !checkPrice) {
+            int start = (int) Math.min(offset, to - from);
+            int count = Math.min(limit, to - from - start);
+            long[] page = new long[count];
+            for (int i = 0; i < count; i++) {
+                page[i] = ids[order[asc ? from + start + i : to - 1 - start - i]];
+            }
+            return new SortedPage(page, after == null ? to - from : -1);
+        }
+
+        if (candidates != null && (long) candidates.length * SORT_COST < to - from) {
+            return selectCandidates(key, asc, candidates, minCents, maxCents, after, offset, limit);
+        }
+
+        long[] page = new long[limit];
+        int size = 0;
+        long matched = 0;
+        for (int i = 0; i < to - from; i++) {
+            int index = order[asc ? from + i : to - 1 - i];
+            if ((candidates != null && Arrays.binarySearch(candidates, ids[index]) < 0)
+                    || (checkPrice && !priceInRange(index, minCents, maxCents))) {
+                continue;
+            }
+            if (matched++ >= offset && size < limit) {
+                page[size++] = ids[index];
+            } else if (size == limit && after != null) {
+                break;
+            }
+        }
+        return new SortedPage(Arrays.copyOf(page, size), after == null ? matched : -1);
+    }
+
+    /**
+     * 候选集较小时：取出满足价格与游标条件的候选，按排序字段排序后切片
+     */
+    private SortedPage selectCandidates(SortKey key, boolean asc, long[] candidates, Long minCents,
+                                        Long maxCents, Book after, long offset, int limit) {
+        List<Integer> rows = new ArrayList<>();
+        for (long id : candidates) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0 || !priceInRange(index, minCents, maxCents)) {
+                continue;
+            }
+            if (after != null) {
+                int c = compare(key, after, index);
+                if (asc ? c >= 0 : c <= 0) {
+                    continue;
+                }
+            }
+            rows.add(index);
+        }
+        rows.sort(asc ? (a, b) -> compare(key, a, b) : (a, b) -> compare(key, b, a));
+        int start = (int) Math.min(offset, rows.size());
+        int count = Math.min(limit, rows.size() - start);
+        long[] page = new long[count];
+        for (int i = 0; i < count; i++) {
+            page[i] = ids[rows.get(start + i)];
+        }
+        return new SortedPage(page, after == null ? rows.size() : -1);
+    }
+
+    private int[] mergeOrder(SortKey key, int[] oldOrder, int[] moved, int[] inserted) {
+        Integer[] boxed = new Integer[inserted.length];
+        for (int i = 0; i < inserted.length; i++) {
+            boxed[i] = inserted[i];
+        }
+        Arrays.sort(boxed, (a, b) -> compare(key, a, b));
+
+        int[] result = new int[ids.length];
+        int size = 0;
+        int a = 0;
+        for (int old : oldOrder) {
+            int index = moved[old];
+            if (index < 0) {
+                continue;
+            }
+            while (a < boxed.length && compare(key, boxed[a], index) < 0) {
+                result[size++] = boxed[a++];
+            }
+            result[size++] = index;
+        }
+        while (a < boxed.length) {
+            result[size++] = boxed[a++];
+        }
+        return result;
+    }
+
+    private int compare(SortKey key, int a, int b) {
+        int result = switch (key) {
+            case PRICE -> Long.compare(priceCents[a], priceCents[b]);
+            case NAME -> name(books[a]).compareTo(name(books[b]));
+            case CREATE_TIME -> Long.compare(createTimes[a], createTimes[b]);
+            case UPDATE_TIME -> Long.compare(updateTimes[a], updateTimes[b]);
+        };
+        return result != 0 ? result : Long.compare(ids[a], ids[b]);
+    }
+
+    /**
+     * 比较游标图书与下标处的图书
+     */
+    private int compare(SortKey key, Book probe, int index) {
+        int result = switch (key) {
+            case PRICE -> Long.compare(BookSearchIndex.priceCents(probe.getPrice()), priceCents[index]);
+            case NAME -> name(probe).compareTo(name(books[index]));
+            case CREATE_TIME -> Long.compare(millis(probe.getCreateTime()), createTimes[index]);
+            case UPDATE_TIME -> Long.compare(millis(probe.getUpdateTime()), updateTimes[index]);
+        };
+        return result != 0 ? result : Long.compare(probe.getId(), ids[index]);
+    }
+
+    /**
+     * 在按价格升序的排列中二分查找第一个价格不低于 cents 的位置
+     */
+    private int priceBound(int[] order, long cents) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (priceCents[order[mid]] < cents) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean priceInRange(int index, Long minCents, Long maxCents) {
+        return (minCents == null || priceCents[index] >= minCents)
+                && (maxCents == null || priceCents[index] <= maxCents);
+    }
+
+    /**
+     * 在升序排列中二分定位游标：upper 为true时返回第一个大于游标的位置，否则返回第一个不小于游标的位置
+     */
+    private int bound(SortKey key, int[] order, Book after, boolean upper) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = compare(key, after, order[mid]);
+            if (upper ? c >= 0 : c > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String name(Book book) {
+        return book.getName() == null ? "" : book.getName();
+    }
+}
@@ -0,0 +1,318 @@
+package com.bookstore.index;
+
+import com.bookstore.utils.LongHashSet;
+import com.bookstore.utils.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 目录快照的词元倒排与词表后缀数组，不可变，发布后任何字段和数组都不再修改
+ * 查询词元中的二元组直接取倒排，其余词元由后缀数组二分找出包含它的全部词表词元再取倒排并集，
+ * 各词元的候选求交后交给快照做子串校验。
+ * 写入时只有受影响的词元重建倒排数组；没有词元变化时整个对象原样共享，
+ * 有变化时复制一次词元 -> 倒排的映射（与词表大小成正比），词表有增减时再归并后缀数组。
+ */
+final class TermIndex {
+
+    private static final long[] NO_IDS = new long[0];
+
+    /** 某个查询词元的倒排总长超过当前候选数的该倍数时不再参与求交，留给子串校验 */
+    private static final int INTERSECT_RATIO = 4;
+
+    /** 词元 -> 包含该词元的图书ID，升序 */
+    private final Map<String, long[]> postings;
+
+    /** 词表全部后缀，按后缀文本升序：后缀所属的词元与起始位置 */
+    private final String[] suffixTokens;
+    private final int[] suffixOffsets;
+
+    private TermIndex(Map<String, long[]> postings, String[] suffixTokens, int[] suffixOffsets) {
+        this.postings = postings;
+        this.suffixTokens = suffixTokens;
+        this.suffixOffsets = suffixOffsets;
+    }
+
+    static TermIndex empty() {
+        return new TermIndex(new HashMap<>(), new String[0], new int[0]);
+    }
+
+    /**
+     * @return 词元数
+     */
+    int size() {
+        return postings.size();
+    }
+
+    /**
+     * @return 词表后缀数
+     */
+    int suffixCount() {
+        return suffixTokens.length;
+    }
+
+    /**
+     * 求候选集：每个查询词元对应一组倒排（二元组只有自身，其他词元为词表中包含它的所有词元），
+     * 从倒排总长最小的词元开始求交；倒排总长远大于当前候选的词元跳过，由子串校验保证正确。
+     * 查询不含任何词元（只有空白或标点）时以全部图书为候选。
+     * @param foldedQuery 规范化后的查询
+     * @param all 全部图书ID
+     * @return 升序的候选图书ID
+     */
+    long[] candidates(String foldedQuery, long[] all) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(foldedQuery));
+        if (terms.isEmpty()) {
+            return all;
+        }
+
+        List<List<long[]>> expansions = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            List<long[]> lists = expand(term);
+            if (lists.isEmpty()) {
+                return NO_IDS;
+            }
+            expansions.add(lists);
+        }
+        expansions.sort(Comparator.comparingLong(TermIndex::totalLength));
+
+        long[] result = union(expansions.get(0));
+        for (int i = 1; i < expansions.size() && result.length > 0; i++) {
+            List<long[]> lists = expansions.get(i);
+            if (totalLength(lists) > (long) result.length * INTERSECT_RATIO) {
+                break;
+            }
+            result = intersect(result, union(lists));
+        }
+        return result;
+    }
+
+    /**
+     * 应用一批图书的词元增删，返回新的词元索引；没有变化时返回自身
+     * @param removed 词元 -> 不再包含该词元的图书ID
+     * @param added 词元 -> 新包含该词元的图书ID
+     */
+    TermIndex apply(Map<String, LongHashSet> removed, Map<String, LongHashSet> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+        Map<String, long[]> newPostings = new HashMap<>(postings);
+        Set<String> touched = new HashSet<>(removed.keySet());
+        touched.addAll(added.keySet());
+        Set<String> vanished = new HashSet<>();
+        List<String> appeared = new ArrayList<>();
+        for (String token : touched) {
+            long[] posting = mergePosting(postings.getOrDefault(token, NO_IDS), removed.get(token), added.get(token));
+            if (posting.length == 0) {
+                if (newPostings.remove(token) != null) {
+                    vanished.add(token);
+                }
+            } else if (newPostings.put(token, posting) == null) {
+                appeared.add(token);
+            }
+        }
+        if (vanished.isEmpty() && appeared.isEmpty()) {
+            return new TermIndex(newPostings, suffixTokens, suffixOffsets);
+        }
+        return mergeSuffixes(newPostings, vanished, appeared);
+    }
+
+    /**
+     * 查询词元对应的倒排：二元组整体匹配；其他词元在后缀数组中二分出以它开头的后缀，
+     * 这些后缀所属的词元都包含该查询词元
+     */
+    private List<long[]> expand(String term) {
+        if (TextTokenizer.isCjkBigram(term)) {
+            long[] posting = postings.get(term);
+            return posting == null ? List.of() : List.of(posting);
+        }
+        Set<String> tokens = new HashSet<>();
+        List<long[]> lists = new ArrayList<>();
+        for (int i = suffixBound(term); i < suffixTokens.length
+                && suffixTokens[i].startsWith(term, suffixOffsets[i]); i++) {
+            if (tokens.add(suffixTokens[i])) {
+                lists.add(postings.get(suffixTokens[i]));
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * 二分查找第一个不小于 term 的后缀
+     */
+    private int suffixBound(String term) {
+        int low = 0;
+        int high = suffixTokens.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(suffixTokens[mid], suffixOffsets[mid], term, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long totalLength(List<long[]> lists) {
+        long total = 0;
+        for (long[] posting : lists) {
+            total += posting.length;
+        }
+        return total;
+    }
+
+    /**
+     * 多个升序倒排的并集：总是归并当前最短的两个，总代价 O(N log k)
+     */
+    private static long[] union(List<long[]> lists) {
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingInt((long[] posting) -> posting.length));
+        queue.addAll(lists);
+        while (queue.size() > 1) {
+            long[] a = queue.poll();
+            long[] b = queue.poll();
+            long[] merged = new long[a.length + b.length];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    merged[size++] = a[i++];
+                } else if (a[i] > b[j]) {
+                    merged[size++] = b[j++];
+                } else {
+                    merged[size++] = a[i++];
+                    j++;
+                }
+            }
+            while (i < a.length) {
+                merged[size++] = a[i++];
+            }
+            while (j < b.length) {
+                merged[size++] = b[j++];
+            }
+            queue.add(Arrays.copyOf(merged, size));
+        }
+        return queue.poll();
+    }
+
+    /**
+     * 两个升序数组的交集：长度相差悬殊时对长数组二分，否则线性归并
+     */
+    private static long[] intersect(long[] small, long[] large) {
+        long[] result = new long[Math.min(small.length, large.length)];
+        int size = 0;
+        if ((long) small.length * 16 < large.length) {
+            for (long id : small) {
+                if (Arrays.binarySearch(large, id) >= 0) {
+                    result[size++] = id;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    result[size++] = small[i++];
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 从后缀数组中去掉消失词元的后缀，并入新词元的后缀（排序后线性归并）
+     */
+    private TermIndex mergeSuffixes(Map<String, long[]> newPostings, Set<String> vanished, List<String> appeared) {
+        List<String> addedTokens = new ArrayList<>();
+        List<Integer> addedOffsets = new ArrayList<>();
+        for (String token : appeared) {
+            for (int offset = 0; offset < token.length(); offset++) {
+                if (!Character.isLowSurrogate(token.charAt(offset))) {
+                    addedTokens.add(token);
+                    addedOffsets.add(offset);
+                }
+            }
+        }
+        Integer[] order = new Integer[addedTokens.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compareSuffix(addedTokens.get(a), addedOffsets.get(a),
+                addedTokens.get(b), addedOffsets.get(b)));
+
+        int capacity = suffixTokens.length + order.length;
+        String[] tokens = new String[capacity];
+        int[] offsets = new int[capacity];
+        int size = 0;
+        int a = 0;
+        for (int i = 0; i < suffixTokens.length; i++) {
+            if (vanished.contains(suffixTokens[i])) {
+                continue;
+            }
+            while (a < order.length && compareSuffix(addedTokens.get(order[a]), addedOffsets.get(order[a]),
+                    suffixTokens[i], suffixOffsets[i]) < 0) {
+                tokens[size] = addedTokens.get(order[a]);
+                offsets[size++] = addedOffsets.get(order[a++]);
+            }
+            tokens[size] = suffixTokens[i];
+            offsets[size++] = suffixOffsets[i];
+        }
+        while (a < order.length) {
+            tokens[size] = addedTokens.get(order[a]);
+            offsets[size++] = addedOffsets.get(order[a++]);
+        }
+        return new TermIndex(newPostings, Arrays.copyOf(tokens, size), Arrays.copyOf(offsets, size));
+    }
+
+    /**
+     * 比较 a 从 aOffset 起与 b 从 bOffset 起的后缀，不创建子串
+     */
+    private static int compareSuffix(String a, int aOffset, String b, int bOffset) {
+        int length = Math.min(a.length() - aOffset, b.length() - bOffset);
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(aOffset + i);
+            char y = b.charAt(bOffset + i);
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return (a.length() - aOffset) - (b.length() - bOffset);
+    }
+
+    /**
+     * 从升序倒排中去掉 removed、并入 added，线性归并保持升序
+     */
+    private static long[] mergePosting(long[] posting, LongHashSet removed, LongHashSet added) {
+        long[] additions = added == null ? NO_IDS : added.toArray();
+        Arrays.sort(additions);
+        long[] result = new long[posting.length + additions.length];
+        int size = 0;
+        int a = 0;
+        for (long id : posting) {
+            if (removed != null && removed.contains(id)) {
+                continue;
+            }
+            while (a < additions.length && additions[a] < id) {
+                result[size++] = additions[a++];
+            }
+            result[size++] = id;
+        }
+        while (a < additions.length) {
+            result[size++] = additions[a++];
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,330 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.FavoriteMapper;
+import com.bookstore.utils.LongIntHashMap;
+import com.bookstore.utils.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 收藏趋势索引
+ * 每本近期有收藏变化的图书占用一个槽位，槽位在两个环形缓冲区中各占一段：
+ * 最近 60 分钟的每分钟净收藏数，以及最近 168 小时的每小时净收藏数，全部存放在按槽位平铺的 int[] 中。
+ * 时间前进时按需清零已经过去的桶，不需要定时滚动；读取时只把最后写入时间之前的桶视为有效。
+ * 趋势分数为窗口内各桶净收藏数按桶的时间距离做指数衰减后的和（半衰期为窗口的四分之一），
+ * 1h 窗口使用分钟桶，24h 与 7d 窗口使用小时桶。
+ * 启动时流式读取一次最近 7 天的收藏记录构建，之后由收藏/取消收藏在事务提交后增量维护；
+ * 取消收藏记在发生的时刻（不回溯原收藏时间），分数不低于0。
+ */
+@Component
+public class TrendingIndex {
+
+    /**
+     * 趋势窗口
+     */
+    public enum Window {
+        HOUR("1h", true, 60),
+        DAY("24h", false, 24),
+        WEEK("7d", false, 168);
+
+        private final String code;
+
+        /** 是否使用分钟桶，否则使用小时桶 */
+        private final boolean minutes;
+
+        /** 各距离（0 为当前桶）的衰减权重 */
+        private final double[] weights;
+
+        Window(String code, boolean minutes, int buckets) {
+            this.code = code;
+            this.minutes = minutes;
+            this.weights = new double[buckets];
+            double halfLife = buckets / 4.0;
+            for (int age = 0; age < buckets; age++) {
+                weights[age] = Math.pow(0.5, age / halfLife);
+            }
+        }
+
+        /**
+         * 按参数值解析窗口
+         * @param code '1h'、'24h' 或 '7d'
+         * @throws IllegalArgumentException 不支持的窗口
+         */
+        public static Window of(String code) {
+            for (Window window : values()) {
+                if (window.code.equalsIgnoreCase(code)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("不支持的趋势窗口: " + code + "，可选 1h、24h、7d");
+        }
+    }
+
+    private static final long[] NO_IDS = new long[0];
+
+    private static final int MINUTES = 60;
+
+    private static final int HOURS = 168;
+
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    @Autowired
+    private FavoriteMapper favoriteMapper;
+
+    /** 当前时间（毫秒），测试中可替换 */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** bookId -> 槽位 */
+    private LongIntHashMap slots = new LongIntHashMap();
+
+    /** 槽位 -> bookId */
+    private long[] bookIds = new long[0];
+
+    /** 槽位 * MINUTES + 分钟 % MINUTES */
+    private int[] minuteCounts = new int[0];
+
+    /** 槽位 * HOURS + 小时 % HOURS */
+    private int[] hourCounts = new int[0];
+
+    /** 槽位最后写入的分钟（自纪元起），该分钟之后的桶尚未清零 */
+    private long[] lastMinutes = new long[0];
+
+    /** 已释放、可复用的槽位 */
+    private int[] freeSlots = new int[0];
+
+    private int freeCount;
+
+    /** 已分配过的槽位数（含已释放） */
+    private int slotCount;
+
+    /**
+     * 启动时流式读取最近 7 天的收藏记录构建
+     */
+    @PostConstruct
+    public void rebuild() {
+        long now = clock.getAsLong();
+        LocalDateTime since = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(now - HOURS * 60 * MILLIS_PER_MINUTE), ZoneId.systemDefault());
+        lock.writeLock().lock();
+        try {
+            slots = new LongIntHashMap();
+            bookIds = new long[0];
+            minuteCounts = new int[0];
+            hourCounts = new int[0];
+            lastMinutes = new long[0];
+            freeCount = 0;
+            slotCount = 0;
+            favoriteMapper.selectSinceForScan(since, context -> {
+                Favorite favorite = context.getResultObject();
+                if (favorite.getCreateTime() != null) {
+                    long millis = favorite.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    record(favorite.getBookId(), 1, Math.min(millis, now) / MILLIS_PER_MINUTE);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 记录新增收藏。处于事务中时在事务提交后才计入，回滚则丢弃。
+     * @param bookId 图书ID
+     */
+    public void added(Long bookId) {
+        TransactionCallbacks.afterCommit(() -> recordNow(bookId, 1));
+    }
+
+    /**
+     * 记录取消收藏。处于事务中时在事务提交后才计入，回滚则丢弃。
+     * @param bookId 图书ID
+     */
+    public void removed(Long bookId) {
+        TransactionCallbacks.afterCommit(() -> recordNow(bookId, -1));
+    }
+
+    /**
+     * 查询趋势最高的图书
+     * @param window 窗口
+     * @param n 数量
+     * @return 图书ID，按趋势分数降序、ID升序；只包含分数大于0的图书
+     */
+    public long[] top(Window window, int n) {
+        if (n <= 0) {
+            return NO_IDS;
+        }
+        long now = clock.getAsLong() / MILLIS_PER_MINUTE;
+        lock.readLock().lock();
+        try {
+            // 小顶堆保留分数最高的 n 个：堆顶为分数最低（同分时ID最大）者
+            PriorityQueue<double[]> heap = new PriorityQueue<>(n + 1, (a, b) -> a[0] != b[0]
+                    ? Double.compare(a[0], b[0])
+                    : Double.compare(bookIds[(int) b[1]], bookIds[(int) a[1]]));
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (lastMinutes[slot] < 0) {
+                    continue;
+                }
+                double score = score(slot, window, now);
+                if (score > 0) {
+                    heap.add(new double[]{score, slot});
+                    if (heap.size() > n) {
+                        heap.poll();
+                    }
+                }
+            }
+            long[] ids = new long[heap.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = bookIds[(int) heap.poll()[1]];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 定时释放 7 天内没有收藏变化的图书占用的槽位
+     */
+    @Scheduled(fixedDelay = 60_000L, initialDelay = 60_000L)
+    public void evictIdle() {
+        long now = clock.getAsLong() / MILLIS_PER_MINUTE;
+        lock.writeLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (lastMinutes[slot] >= 0 && now / 60 - lastMinutes[slot] / 60 >= HOURS) {
+                    slots.remove(bookIds[slot]);
+                    lastMinutes[slot] = -1;
+                    if (freeCount == freeSlots.length) {
+                        freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+                    }
+                    freeSlots[freeCount++] = slot;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 运行统计：占用槽位的图书数与内存占用
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("books", slots.size());
+            data.put("slots", slotCount);
+            data.put("memoryBytes", slots.memoryBytes() + 8L * bookIds.length + 4L * minuteCounts.length
+                    + 4L * hourCounts.length + 8L * lastMinutes.length + 4L * freeSlots.length);
+            return data;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void recordNow(Long bookId, int delta) {
+        if (bookId == null) {
+            return;
+        }
+        long minute = clock.getAsLong() / MILLIS_PER_MINUTE;
+        lock.writeLock().lock();
+        try {
+            record(bookId, delta, minute);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 在指定分钟的桶上累加，早于槽位最后写入时间、仍在环内的分钟直接写入，已滚出环的丢弃
+     */
+    private void record(long bookId, int delta, long minute) {
+        int slot = slots.containsKey(bookId) ? slots.get(bookId) : allocate(bookId, minute);
+        advance(slot, minute);
+        long last = lastMinutes[slot];
+        if (last - minute < MINUTES) {
+            minuteCounts[slot * MINUTES + (int) (minute % MINUTES)] += delta;
+        }
+        if (last / 60 - minute / 60 < HOURS) {
+            hourCounts[slot * HOURS + (int) (minute / 60 % HOURS)] += delta;
+        }
+    }
+
+    /**
+     * 把槽位推进到指定分钟，清零其间已经过去的分钟桶与小时桶
+     */
+    private void advance(int slot, long minute) {
+        long last = lastMinutes[slot];
+        if (minute <= last) {
+            return;
+        }
+        long elapsed = Math.min(minute - last, MINUTES);
+        for (long m = last + 1; m <= last + elapsed; m++) {
+            minuteCounts[slot * MINUTES + (int) (m % MINUTES)] = 0;
+        }
+        long lastHour = last / 60;
+        long elapsedHours = Math.min(minute / 60 - lastHour, HOURS);
+        for (long h = lastHour + 1; h <= lastHour + elapsedHours; h++) {
+            hourCounts[slot * HOURS + (int) (h % HOURS)] = 0;
+        }
+        lastMinutes[slot] = minute;
+    }
+
+    private double score(int slot, Window window, long now) {
+        long last = lastMinutes[slot];
+        double score = 0;
+        if (window.minutes) {
+            for (int age = 0; age < window.weights.length; age++) {
+                long minute = now - age;
+                if (minute <= last && last - minute < MINUTES) {
+                    score += window.weights[age] * minuteCounts[slot * MINUTES + (int) (minute % MINUTES)];
+                }
+            }
+        } else {
+            long lastHour = last / 60;
+            for (int age = 0; age < window.weights.length; age++) {
+                long hour = now / 60 - age;
+                if (hour <= lastHour && lastHour - hour < HOURS) {
+                    score += window.weights[age] * hourCounts[slot * HOURS + (int) (hour % HOURS)];
+                }
+            }
+        }
+        return score;
+    }
+
+    private int allocate(long bookId, long minute) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+            Arrays.fill(minuteCounts, slot * MINUTES, (slot + 1) * MINUTES, 0);
+            Arrays.fill(hourCounts, slot * HOURS, (slot + 1) * HOURS, 0);
+        } else {
+            if (slotCount == bookIds.length) {
+                int capacity = Math.max(16, slotCount * 2);
+                bookIds = Arrays.copyOf(bookIds, capacity);
+                minuteCounts = Arrays.copyOf(minuteCounts, capacity * MINUTES);
+                hourCounts = Arrays.copyOf(hourCounts, capacity * HOURS);
+                lastMinutes = Arrays.copyOf(lastMinutes, capacity);
+            }
+            slot = slotCount++;
+        }
+        bookIds[slot] = bookId;
+        lastMinutes[slot] = minute;
+        slots.put(bookId, slot);
+        return slot;
+    }
+}
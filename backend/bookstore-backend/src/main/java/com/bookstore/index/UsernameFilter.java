@@ -0,0 +1,160 @@
+package com.bookstore.index;
+
+import com.bookstore.mapper.UserMapper;
+import com.bookstore.utils.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 已存在用户名的布隆过滤器
+ * 启动时流式读取一次用户表的用户名构建，注册时在写入前加入。过滤器回答“不存在”时用户名一定未注册，
+ * 检查可以不访问数据库；回答“可能存在”时仍需一次查询确认。
+ * 数据库按忽略大小写（与重音）的排序规则比较用户名，因此加入与查询前统一转为小写、去掉重音符号与尾部空格，
+ * 只会把更多用户名视为“可能存在”，不会漏判。
+ * 过滤器不支持删除，删除用户后对应的位仍保留，只影响误判率。
+ */
+@Component
+public class UsernameFilter {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private UserMapper userMapper;
+
+    private final long expectedUsers;
+
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    /** 重建期间同时写入的新过滤器，由 this 保护 */
+    private BloomFilter building;
+
+    /** 过滤器回答不存在、跳过数据库的次数 */
+    private final LongAdder negatives = new LongAdder();
+
+    /** 过滤器回答可能存在、经数据库确认确实存在的次数 */
+    private final LongAdder truePositives = new LongAdder();
+
+    /** 过滤器回答可能存在、经数据库确认不存在的次数 */
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * @param expectedUsers 预期用户数，实际用户数的两倍更大时按实际用户数的两倍分配
+     * @param falsePositiveRate 目标误判率
+     */
+    public UsernameFilter(@Value("${bookstore.user.username-filter.expected-users:100000}") long expectedUsers,
+                          @Value("${bookstore.user.username-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    /**
+     * 启动时流式读取用户名构建；构建期间注册的用户名同时写入新旧过滤器
+     */
+    @PostConstruct
+    public void rebuild() {
+        Long count = userMapper.selectCount(null);
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedUsers, 2 * (count == null ? 0 : count)), falsePositiveRate);
+        synchronized (this) {
+            building = rebuilt;
+        }
+        try {
+            userMapper.selectUsernamesForScan(context -> rebuilt.add(hash(context.getResultObject())));
+            synchronized (this) {
+                filter = rebuilt;
+            }
+        } finally {
+            synchronized (this) {
+                building = null;
+            }
+        }
+    }
+
+    /**
+     * @param username 用户名，可以为null
+     * @return 用户名可能已存在时返回true，返回false时一定不存在
+     */
+    public boolean mightContain(String username) {
+        if (username == null) {
+            return false;
+        }
+        if (!filter.mightContain(hash(username))) {
+            negatives.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录数据库对“可能存在”的确认结果，用于统计实际误判率
+     * @param exists 数据库中是否存在
+     */
+    public void confirmed(boolean exists) {
+        (exists ? truePositives : falsePositives).increment();
+    }
+
+    /**
+     * 加入用户名。在写入数据库之前调用：即使事务回滚也只增加误判。
+     * 过滤器不保证并发注册同名用户时只有一方写入（双方可能都在加入之前完成检查），
+     * 这由 user.username 唯一键保证（见 db/user_unique_username.sql）。
+     * @param username 用户名
+     */
+    public synchronized void added(String username) {
+        if (username == null) {
+            return;
+        }
+        long hash = hash(username);
+        filter.add(hash);
+        if (building != null) {
+            building.add(hash);
+        }
+    }
+
+    /**
+     * 运行统计：实际误判率 = 误判次数 / (误判次数 + 回答不存在的次数)，以及按置位比例估算的误判率与内存占用
+     */
+    public Map<String, Object> stats() {
+        BloomFilter current = filter;
+        long negativeCount = negatives.sum();
+        long falsePositiveCount = falsePositives.sum();
+        long absent = negativeCount + falsePositiveCount;
+        Map<String, Object> data = new HashMap<>();
+        data.put("negatives", negativeCount);
+        data.put("truePositives", truePositives.sum());
+        data.put("falsePositives", falsePositiveCount);
+        data.put("falsePositiveRate", absent == 0 ? 0.0 : (double) falsePositiveCount / absent);
+        data.put("estimatedFalsePositiveRate", current.estimatedFalsePositiveRate());
+        data.put("bits", current.bitSize());
+        data.put("hashes", current.hashCount());
+        data.put("memoryBytes", current.memoryBytes());
+        return data;
+    }
+
+    /**
+     * 规范化后的用户名的 64 位哈希（FNV-1a 累加，再做一次 64 位混合）
+     */
+    private static long hash(String username) {
+        String key = Normalizer.normalize(username.stripTrailing(), Normalizer.Form.NFD);
+        key = COMBINING_MARKS.matcher(key).replaceAll("").toLowerCase(Locale.ROOT);
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -3,7 +3,40 @@ package com.bookstore.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bookstore.entity.Book;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface BookMapper extends BaseMapper<Book> {
-} 
\ No newline at end of file
+
+    /**
+     * 按 (update_time, id) 排序的键集分页查询
+     * @param updateTime 上一页最后一条的更新时间，为null时查询第一页
+     * @param id 上一页最后一条的ID，为null时查询第一页
+     * @param asc 是否升序
+     * @param limit 每页条数
+     * @return 图书列表
+     */
+    List<Book> selectByUpdateTimeAfter(@Param("updateTime") LocalDateTime updateTime,
+                                       @Param("id") Long id,
+                                       @Param("asc") boolean asc,
+                                       @Param("limit") int limit);
+
+    /**
+     * 用一条多行 UPDATE 批量累加收藏数，结果限制在 [0, max]
+     * @param deltas 图书ID -> 收藏数增量
+     * @param max 收藏数上限
+     * @return 匹配行数
+     */
+    int applyFavoriteCountDeltas(@Param("deltas") Map<Long, Long> deltas, @Param("max") int max);
+
+    /**
+     * 按ID升序流式读取全部图书，每读取一行回调一次，结果集不会整体加载到内存
+     * @param handler 逐行处理回调
+     */
+    void selectAllForExport(ResultHandler<Book> handler);
+}
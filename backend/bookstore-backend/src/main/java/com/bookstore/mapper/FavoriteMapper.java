@@ -1,9 +1,68 @@
 package com.bookstore.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
  
 @Mapper
 public interface FavoriteMapper extends BaseMapper<Favorite> {
-} 
\ No newline at end of file
+
+    /**
+     * 插入收藏记录
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @return 影响行数
+     * @throws org.springframework.dao.DuplicateKeyException 已收藏（(user_id, book_id) 唯一键冲突）
+     */
+    int insertFavorite(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    /**
+     * 删除用户对图书的收藏记录
+     * @param userId 用户ID
+     * @param bookId 图书ID
+     * @return 影响行数，0 表示未收藏
+     */
+    int deleteByUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId);
+
+    /**
+     * 连接查询用户收藏的图书，按收藏时间倒序
+     * @param userId 用户ID
+     * @return 图书列表
+     */
+    List<Book> selectFavoriteBooks(@Param("userId") Long userId);
+
+    /**
+     * 查询用户收藏的全部图书ID
+     * @param userId 用户ID
+     * @return 图书ID列表
+     */
+    List<Long> selectBookIds(@Param("userId") Long userId);
+
+    /**
+     * 在给定图书中查询用户已收藏的图书ID
+     * @param userId 用户ID
+     * @param bookIds 图书ID列表，不能为空
+     * @return 已收藏的图书ID
+     */
+    List<Long> selectFavoriteBookIdsIn(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * 按用户ID、图书ID升序流式读取全部收藏记录（不含记录ID），每读取一行回调一次，结果集不会整体加载到内存
+     * @param handler 逐行处理回调
+     */
+    void selectAllForScan(ResultHandler<Favorite> handler);
+
+    /**
+     * 流式读取收藏时间不早于 since 的收藏记录（只含图书ID与收藏时间），每读取一行回调一次
+     * @param since 起始时间（含）
+     * @param handler 逐行处理回调
+     */
+    void selectSinceForScan(@Param("since") LocalDateTime since, ResultHandler<Favorite> handler);
+}
@@ -3,7 +3,14 @@ package com.bookstore.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bookstore.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.session.ResultHandler;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-} 
\ No newline at end of file
+
+    /**
+     * 流式读取全部用户名，每读取一行回调一次，结果集不会整体加载到内存
+     * @param handler 逐行处理回调
+     */
+    void selectUsernamesForScan(ResultHandler<String> handler);
+}
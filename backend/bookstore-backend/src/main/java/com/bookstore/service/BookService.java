@@ -1,9 +1,17 @@
 package com.bookstore.service;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.bookstore.dto.BookImportResult;
+import com.bookstore.dto.BookListQuery;
 import com.bookstore.entity.Book;
+import com.bookstore.utils.PageCursor;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 图书服务接口
@@ -45,4 +53,108 @@ public interface BookService extends IService<Book> {
      * @return 是否成功
      */
     boolean decrementFavoriteCount(Long bookId);
-} 
\ No newline at end of file
+    
+    /**
+     * 分页获取图书
+     * @param listQuery 过滤与排序条件
+     * @param current 页码，从1开始
+     * @param size 每页条数
+     * @return 分页结果
+     * @throws IllegalArgumentException 不支持的排序字段
+     */
+    IPage<Book> pageBooks(BookListQuery listQuery, long current, long size);
+    
+    /**
+     * 按 (排序字段, ID) 的键集分页获取图书
+     * @param listQuery 过滤与排序条件
+     * @param after 上一页最后一条的游标，为null时获取第一页
+     * @param size 每页条数
+     * @return 图书列表
+     * @throws IllegalArgumentException 不支持的排序字段或游标无效
+     */
+    List<Book> listBooksAfter(BookListQuery listQuery, PageCursor after, int size);
+    
+    /**
+     * 按收藏量排序分页获取图书
+     * @param listQuery 过滤条件与排序方向（忽略排序字段）
+     * @param current 页码，从1开始
+     * @param size 每页条数
+     * @return 分页结果
+     */
+    IPage<Book> pageBooksByFavoriteCount(BookListQuery listQuery, long current, long size);
+    
+    /**
+     * 按 (收藏量, ID) 排序的键集分页获取图书
+     * @param listQuery 过滤条件与排序方向（忽略排序字段）
+     * @param after 上一页最后一条的游标，为null时获取第一页
+     * @param size 每页条数
+     * @return 图书列表
+     * @throws IllegalArgumentException 游标无效
+     */
+    List<Book> listBooksByFavoriteCountAfter(BookListQuery listQuery, PageCursor after, int size);
+    
+    /**
+     * 获取收藏量排行榜前（或后）N 本图书
+     * @param n 数量
+     * @param sortType 排序类型: 'asc'收藏最少在前, 'desc'收藏最多在前
+     * @return 图书列表
+     */
+    List<Book> listTopBooks(int n, String sortType);
+    
+    /**
+     * 按前缀联想图书（书名、作者或其中单词以前缀开头），按收藏量降序
+     * @param prefix 前缀
+     * @param limit 最多返回条数
+     * @return 图书列表
+     */
+    List<Book> suggestBooks(String prefix, int limit);
+    
+    /**
+     * 查找与指定图书内容相似（书名、分类、描述）的图书，按估计相似度降序
+     * @param id 图书ID
+     * @param limit 最多返回条数
+     * @return 图书列表，不含该图书本身
+     */
+    List<Book> listSimilarBooks(Long id, int limit);
+    
+    /**
+     * 查找与指定图书共同被收藏最多的图书（收藏了这本书的用户也收藏了）
+     * @param id 图书ID
+     * @param limit 最多返回条数
+     * @return 图书列表，按共同收藏的用户数降序
+     */
+    List<Book> listAlsoFavoritedBooks(Long id, int limit);
+    
+    /**
+     * 获取近期收藏趋势最高的 N 本图书
+     * @param window 窗口: '1h'、'24h' 或 '7d'
+     * @param n 数量
+     * @return 图书列表，按时间衰减的趋势分数降序
+     * @throws IllegalArgumentException 不支持的窗口
+     */
+    List<Book> listTrendingBooks(String window, int n);
+    
+    /**
+     * 统计各分类的图书数
+     * @param query 搜索关键词，为空时统计全部图书
+     * @return 分类 -> 图书数，按图书数降序
+     */
+    Map<String, Long> categoryFacets(String query);
+    
+    /**
+     * 批量导入图书，逐行流式解析并按批次写入
+     * @param reader 输入，JSON Lines（每行一个图书对象）或首行为表头的 CSV
+     * @param format 格式: 'jsonl' 或 'csv'
+     * @return 导入结果，包含各批次进度与失败行
+     * @throws IOException 读取输入失败
+     */
+    BookImportResult importBooks(BufferedReader reader, String format) throws IOException;
+    
+    /**
+     * 流式导出全部图书，边读边写，内存占用与图书数量无关
+     * @param writer 输出
+     * @param format 格式: 'jsonl' 或 'csv'
+     * @throws IOException 写出失败
+     */
+    void exportBooks(Writer writer, String format) throws IOException;
+}
@@ -5,22 +5,24 @@ import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
 
 import java.util.List;
+import java.util.Map;
 
 public interface FavoriteService extends IService<Favorite> {
     
     /**
-     * 用户收藏图书
+     * 用户收藏图书，重复收藏是幂等的
      * @param userId 用户ID
      * @param bookId 图书ID
-     * @return 是否收藏成功
+     * @return 是否新增了收藏；已收藏或ID无效时返回false
+     * @throws IllegalArgumentException 图书不存在
      */
     boolean addFavorite(Long userId, Long bookId);
     
     /**
-     * 用户取消收藏
+     * 用户取消收藏，重复取消是幂等的
      * @param userId 用户ID
      * @param bookId 图书ID
-     * @return 是否取消成功
+     * @return 是否删除了收藏；未收藏或ID无效时返回false
      */
     boolean removeFavorite(Long userId, Long bookId);
     
@@ -38,4 +40,19 @@ public interface FavoriteService extends IService<Favorite> {
      * @return 图书列表
      */
     List<Book> getAllUserFavorites(Long userId);
-} 
\ No newline at end of file
+    
+    /**
+     * 批量查询用户是否已收藏各图书
+     * @param userId 用户ID
+     * @param bookIds 图书ID列表
+     * @return 图书ID -> 是否已收藏，顺序与 bookIds 一致
+     */
+    Map<Long, Boolean> checkFavorites(Long userId, List<Long> bookIds);
+    
+    /**
+     * 为图书列表填充当前用户的收藏状态
+     * @param userId 用户ID
+     * @param books 图书列表
+     */
+    void fillFavoriteStatus(Long userId, List<Book> books);
+}
@@ -1,16 +1,45 @@
 package com.bookstore.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.bookstore.cache.SearchResultCache;
+import com.bookstore.counter.FavoriteCountBuffer;
+import com.bookstore.dto.BookImportResult;
+import com.bookstore.dto.BookListQuery;
 import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.BookSimilarityIndex;
+import com.bookstore.index.CoFavoriteIndex;
+import com.bookstore.index.TrendingIndex;
+import com.bookstore.index.BookSuggestIndex;
+import com.bookstore.index.FavoriteLeaderboard;
 import com.bookstore.mapper.BookMapper;
 import com.bookstore.service.BookService;
+import com.bookstore.utils.CsvReader;
+import com.bookstore.utils.CsvWriter;
+import com.bookstore.utils.PageCursor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -20,49 +49,62 @@ import java.util.stream.Collectors;
 @Service
 public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements BookService {
     
+    /** 导入校验规则：标题、作者、描述的最大长度及价格上限（不含） */
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_AUTHOR_LENGTH = 30;
+    private static final int MAX_DESCRIPTION_LENGTH = 200;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("10000");
+    
+    /** 导出 CSV 的表头 */
+    private static final String[] EXPORT_COLUMNS = {
+            "id", "name", "author", "category", "price", "description", "favoriteCount", "createTime", "updateTime"
+    };
+    
+    /** 批量导入每批写入的行数 */
+    @Value("${bookstore.book.import.chunk-size:1000}")
+    private int importChunkSize;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+    
+    @Autowired
+    private FavoriteCountBuffer favoriteCountBuffer;
+    
+    @Autowired
+    private SearchResultCache searchResultCache;
+    
+    @Autowired
+    private FavoriteLeaderboard favoriteLeaderboard;
+    
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+    
+    @Autowired
+    private BookSimilarityIndex bookSimilarityIndex;
+    
+    @Autowired
+    private CoFavoriteIndex coFavoriteIndex;
+    
+    @Autowired
+    private TrendingIndex trendingIndex;
+    
     /**
      * 获取所有图书列表
      * 支持按名称、作者、分类进行模糊查询
-     * 添加了多重条件判断和循环，适合白盒测试的路径覆盖和条件覆盖
+     * 查询由内存倒排索引完成，不再对全表做扫描和逐字段小写化
      */
     @Override
     public List<Book> listAllBooks(String query) {
-        // 先获取全部图书
-        List<Book> allBooks = list();
-        
         // 如果查询条件为空，直接返回全部
         if (!StringUtils.hasText(query)) {
-            return allBooks;
+            return searchIndex(null, false);
         }
         
-        // 使用循环结构进行多条件过滤，而不是直接使用SQL查询
-        List<Book> filteredBooks = new ArrayList<>();
-        for (Book book : allBooks) {
-            // 添加选择结构进行多条件匹配
-            boolean nameMatch = false;
-            boolean authorMatch = false; 
-            boolean categoryMatch = false;
-            
-            // 检查书名是否匹配
-            if (book.getName() != null && book.getName().toLowerCase().contains(query.toLowerCase())) {
-                nameMatch = true;
-            }
-            
-            // 检查作者是否匹配
-            if (book.getAuthor() != null && book.getAuthor().toLowerCase().contains(query.toLowerCase())) {
-                authorMatch = true;
-            }
-            
-            // 检查分类是否匹配
-            if (book.getCategory() != null && book.getCategory().toLowerCase().contains(query.toLowerCase())) {
-                categoryMatch = true;
-            }
-            
-            // 满足任一条件即加入结果集
-            if (nameMatch || authorMatch || categoryMatch) {
-                filteredBooks.add(book);
-            }
-        }
+        // 名称、作者、分类任一匹配即加入结果集
+        List<Book> filteredBooks = searchIndex(query, false);
         
         // 按更新时间排序（使用Stream API的排序功能）
         return filteredBooks.stream()
@@ -72,7 +114,7 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
     
     /**
      * 获取图书详情
-     * 添加了边界条件检查和异常处理
+     * 从目录快照取已规范化的图书副本，不访问数据库，也不修改快照；收藏数合并尚未写回的增量
      */
     @Override
     public Book getBookDetail(Long id) {
@@ -81,130 +123,557 @@ public class BookServiceImpl extends ServiceImpl<BookMapper, Book> implements Bo
             return null;
         }
         
-        Book book = getById(id);
-        
-        // 对图书信息进行后处理（适合测试）
-        if (book != null) {
-            // 确保作者字段不为空（数据规范化）
-            if (book.getAuthor() == null || book.getAuthor().isEmpty()) {
-                book.setAuthor("未知作者");
-            }
-            
-            // 确保类别字段不为空
-            if (book.getCategory() == null || book.getCategory().isEmpty()) {
-                book.setCategory("未分类");
-            }
-            
-            // 确保价格为正数
-            if (book.getPrice() == null || book.getPrice().compareTo(BigDecimal.ZERO) < 0) {
-                book.setPrice(new BigDecimal("0.00"));
-            }
-        }
-        
-        return book;
+        // 作者、类别、价格的规范化在图书进入快照时已完成
+        Book book = bookSearchIndex.detail(id);
+        return book == null ? null : favoriteCountBuffer.merge(book);
     }
 
     /**
      * 增加图书收藏数
-     * 添加了业务规则和限制条件
+     * 与收藏操作一样写入收藏数缓冲，事务提交后计入、由定时任务批量写回
      */
     @Override
     public boolean incrementFavoriteCount(Long bookId) {
-        if (bookId == null || bookId <= 0) {
+        if (bookId == null || bookId <= 0 || !bookSearchIndex.contains(bookId)) {
             return false;
         }
         
-        Book book = getById(bookId);
-        if (book == null) {
-            return false;
-        }
-        
-        // 初始化收藏数（如果为null）
-        int currentCount = book.getFavoriteCount() == null ? 0 : book.getFavoriteCount();
-        
-        // 添加收藏量上限验证（防止刷数据）
-        // 这里有商业规则：单本图书收藏量不超过1000
-        if (currentCount >= 1000) {
-            // 达到上限，不再增加
+        // 这里有商业规则：单本图书收藏量不超过1000，按合并未写回增量后的值判断；写回时同样截断到上限
+        if (favoriteLeaderboard.favoriteCount(bookId) >= FavoriteCountBuffer.MAX_FAVORITE_COUNT) {
             return false;
         }
-        
-        // 正常增加收藏数
-        book.setFavoriteCount(currentCount + 1);
-        
-        return updateById(book);
+        favoriteCountBuffer.add(bookId, 1);
+        return true;
     }
 
     /**
      * 减少图书收藏数
-     * 添加了业务规则和边界条件处理
+     * 写入收藏数缓冲；收藏数已经是0时不做变更但仍视为成功
      */
     @Override
     public boolean decrementFavoriteCount(Long bookId) {
-        if (bookId == null || bookId <= 0) {
+        if (bookId == null || bookId <= 0 || !bookSearchIndex.contains(bookId)) {
             return false;
         }
         
-        Book book = getById(bookId);
-        if (book == null) {
-            return false;
+        if (favoriteLeaderboard.favoriteCount(bookId) > 0) {
+            favoriteCountBuffer.add(bookId, -1);
+        }
+        return true;
+    }
+
+    /**
+     * 获取所有图书并按收藏量排序
+     * 沿排行榜取出全部图书，有关键词时在匹配结果（含描述）中沿排行榜取，不对匹配结果整体排序
+     */
+    @Override
+    public List<Book> listAllBooksAndSortByFavoriteCount(String query, String sortType) {
+        boolean asc = "asc".equalsIgnoreCase(sortType);
+        long[] ids;
+        if (!StringUtils.hasText(query)) {
+            ids = favoriteLeaderboard.page(asc, 0, favoriteLeaderboard.size());
+        } else {
+            long[] candidates = searchResultCache.search(query, true);
+            ids = favoriteLeaderboard.page(candidates, asc, 0, candidates.length);
+        }
+        return rankedFavoriteCounts(bookSearchIndex.get(ids));
+    }
+
+    /**
+     * 获取收藏量排行榜前（或后）N 本图书
+     * 由排行榜直接给出前 N 个ID，再从索引取图书，不加载和排序全部图书
+     */
+    @Override
+    public List<Book> listTopBooks(int n, String sortType) {
+        if (n <= 0) {
+            return new ArrayList<>();
         }
+        long[] ids = favoriteLeaderboard.top(n, "asc".equalsIgnoreCase(sortType));
+        return mergePending(bookSearchIndex.get(ids));
+    }
+
+    /**
+     * 按前缀联想图书
+     * 由前缀树给出排好序的ID，再从目录快照取图书，不扫描目录
+     */
+    @Override
+    public List<Book> suggestBooks(String prefix, int limit) {
+        return mergePending(bookSearchIndex.get(bookSuggestIndex.suggest(prefix, limit)));
+    }
+
+    /**
+     * 查找相似图书
+     * 由 LSH 桶给出候选并按 MinHash 签名估计的相似度排序，只评估共享桶的图书，不扫描目录
+     */
+    @Override
+    public List<Book> listSimilarBooks(Long id, int limit) {
+        return mergePending(bookSearchIndex.get(bookSimilarityIndex.similar(id, limit)));
+    }
+
+    /**
+     * 查找共同被收藏的图书
+     * 由内存中的收藏共现索引给出排好序的ID，不对收藏表做自连接
+     */
+    @Override
+    public List<Book> listAlsoFavoritedBooks(Long id, int limit) {
+        return mergePending(bookSearchIndex.get(coFavoriteIndex.alsoFavorited(id, limit)));
+    }
+
+    /**
+     * 获取收藏趋势最高的图书
+     * 由内存中的分钟/小时环形计数给出排好序的ID，不扫描收藏表
+     */
+    @Override
+    public List<Book> listTrendingBooks(String window, int n) {
+        return mergePending(bookSearchIndex.get(trendingIndex.top(TrendingIndex.Window.of(window), n)));
+    }
+
+    /**
+     * 统计各分类的图书数
+     * 无关键词时直接取分类位图的基数；有关键词时按匹配结果计数，匹配范围与按收藏量排序的列表一致（含描述）
+     */
+    @Override
+    public Map<String, Long> categoryFacets(String query) {
+        long[] ids = StringUtils.hasText(query) ? searchResultCache.search(query, true) : null;
+        return bookSearchIndex.facets(ids);
+    }
+
+    /**
+     * 分页获取图书
+     * 按价格、书名、创建时间排序时从索引的预排序视图取页；按更新时间排序时，
+     * 无过滤条件由数据库沿 (update_time, id) 索引分页，否则同样从预排序视图取页
+     */
+    @Override
+    public IPage<Book> pageBooks(BookListQuery listQuery, long current, long size) {
+        BookSearchIndex.SortKey key = sortKey(listQuery.getSort());
+        boolean asc = listQuery.isAsc();
+        if (key == null && !hasFilter(listQuery)) {
+            LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
+            wrapper.orderBy(true, asc, Book::getUpdateTime).orderBy(true, asc, Book::getId);
+            return mergePending(page(new Page<>(current, size), wrapper));
+        }
+        // 有过滤条件时按更新时间排序也取自预排序视图
+        key = key == null ? BookSearchIndex.SortKey.UPDATE_TIME : key;
+        BookSearchIndex.SortedPage sorted = bookSearchIndex.sortedPage(key, asc, matchIds(listQuery, false),
+                minCents(listQuery), maxCents(listQuery), (current - 1) * size, (int) size);
+        Page<Book> page = new Page<>(current, size, sorted.total());
+        page.setRecords(mergePending(bookSearchIndex.get(sorted.ids())));
+        return page;
+    }
+
+    /**
+     * 按 (排序字段, ID) 的键集分页获取图书
+     */
+    @Override
+    public List<Book> listBooksAfter(BookListQuery listQuery, PageCursor after, int size) {
+        BookSearchIndex.SortKey key = sortKey(listQuery.getSort());
+        boolean asc = listQuery.isAsc();
+        if (key == null && !hasFilter(listQuery)) {
+            if (after == null) {
+                return mergePending(baseMapper.selectByUpdateTimeAfter(null, null, asc, size));
+            }
+            if (after.getSortKeyAsDateTime() == null) {
+                throw new IllegalArgumentException("游标无效");
+            }
+            return mergePending(baseMapper.selectByUpdateTimeAfter(
+                    after.getSortKeyAsDateTime(), after.getId(), asc, size));
+        }
+        key = key == null ? BookSearchIndex.SortKey.UPDATE_TIME : key;
+        Book last = null;
+        if (after != null) {
+            last = new Book();
+            last.setId(after.getId());
+            switch (key) {
+                case PRICE -> last.setPrice(after.getSortKeyAsDecimal());
+                case NAME -> last.setName(after.getSortKey());
+                case CREATE_TIME -> last.setCreateTime(after.getSortKeyAsDateTime());
+                case UPDATE_TIME -> last.setUpdateTime(after.getSortKeyAsDateTime());
+            }
+        }
+        long[] ids = bookSearchIndex.sortedAfter(key, asc, matchIds(listQuery, false),
+                minCents(listQuery), maxCents(listQuery), last, size);
+        return mergePending(bookSearchIndex.get(ids));
+    }
+
+    /**
+     * 按收藏量排序分页获取图书
+     */
+    @Override
+    public IPage<Book> pageBooksByFavoriteCount(BookListQuery listQuery, long current, long size) {
+        boolean asc = listQuery.isAsc();
+        long offset = (current - 1) * size;
+        Page<Book> page;
+        long[] ids;
+        if (!hasFilter(listQuery)) {
+            // 与游标分页一样沿排行榜取页，排序与返回的收藏数都是合并未写回增量后的值
+            page = new Page<>(current, size, favoriteLeaderboard.size());
+            ids = favoriteLeaderboard.page(asc, offset, (int) size);
+        } else {
+            // 有过滤条件时在候选集中沿排行榜取页，不对匹配结果整体排序
+            long[] candidates = favoriteCandidates(listQuery);
+            page = new Page<>(current, size, candidates.length);
+            ids = favoriteLeaderboard.page(candidates, asc, offset, (int) size);
+        }
+        page.setRecords(rankedFavoriteCounts(bookSearchIndex.get(ids)));
+        return page;
+    }
+
+    /**
+     * 按 (收藏量, ID) 排序的键集分页获取图书
+     */
+    @Override
+    public List<Book> listBooksByFavoriteCountAfter(BookListQuery listQuery, PageCursor after, int size) {
+        boolean asc = listQuery.isAsc();
+        long[] ids;
+        if (!hasFilter(listQuery)) {
+            // 由排行榜按合并未写回增量后的收藏数取页，游标与排序使用同一个值
+            ids = after == null
+                    ? favoriteLeaderboard.top(size, asc)
+                    : favoriteLeaderboard.after(after.getSortKeyAsInt(), after.getId(), size, asc, id -> true);
+        } else {
+            long[] candidates = favoriteCandidates(listQuery);
+            ids = after == null
+                    ? favoriteLeaderboard.page(candidates, asc, 0, size)
+                    : favoriteLeaderboard.after(candidates, after.getSortKeyAsInt(), after.getId(), asc, size);
+        }
+        return rankedFavoriteCounts(bookSearchIndex.get(ids));
+    }
+
+    /**
+     * 批量导入图书
+     * 逐行解析、校验，每满一个批次用 saveBatch 写入（配合 rewriteBatchedStatements 合并为多行 INSERT），
+     * 写入成功的图书直接加入搜索索引。单行校验失败或单个批次写入失败不影响其余数据。
+     */
+    @Override
+    public BookImportResult importBooks(BufferedReader reader, String format) throws IOException {
+        BookImportResult result = new BookImportResult();
+        List<Book> chunk = new ArrayList<>(importChunkSize);
+        List<Long> chunkLines = new ArrayList<>(importChunkSize);
         
-        Integer favoriteCount = book.getFavoriteCount();
+        if ("csv".equalsIgnoreCase(format)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                return result;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // 去掉可能存在的 UTF-8 BOM
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(), i);
+            }
+            if (!columns.containsKey("name")) {
+                throw new IllegalArgumentException("CSV表头缺少name列");
+            }
+            
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+                Book book = new Book();
+                book.setName(csvColumn(record, columns, "name"));
+                book.setAuthor(csvColumn(record, columns, "author"));
+                book.setCategory(csvColumn(record, columns, "category"));
+                book.setDescription(csvColumn(record, columns, "description"));
+                String price = csvColumn(record, columns, "price");
+                try {
+                    book.setPrice(price == null ? null : new BigDecimal(price));
+                } catch (NumberFormatException e) {
+                    result.addFailure(csv.getLineNumber(), "价格格式错误");
+                    continue;
+                }
+                acceptImportRow(book, csv.getLineNumber(), chunk, chunkLines, result);
+            }
+        } else {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+                Book book;
+                try {
+                    book = objectMapper.readValue(line, Book.class);
+                } catch (JsonProcessingException e) {
+                    result.addFailure(lineNumber, "JSON格式错误");
+                    continue;
+                }
+                acceptImportRow(book, lineNumber, chunk, chunkLines, result);
+            }
+        }
         
-        // 增加多种边界条件检查
-        if (favoriteCount == null) {
-            // 如果收藏数为null，设置为0
+        flushImportChunk(chunk, chunkLines, result);
+        return result;
+    }
+
+    private void acceptImportRow(Book book, long line, List<Book> chunk, List<Long> chunkLines, BookImportResult result) {
+        String error = validateImportRow(book);
+        if (error != null) {
+            result.addFailure(line, error);
+            return;
+        }
+        chunk.add(book);
+        chunkLines.add(line);
+        if (chunk.size() >= importChunkSize) {
+            flushImportChunk(chunk, chunkLines, result);
+        }
+    }
+
+    /**
+     * 写入一个批次，失败时整批记为失败行
+     */
+    private void flushImportChunk(List<Book> chunk, List<Long> chunkLines, BookImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Book book : chunk) {
+            book.setId(null);
+            book.setIsFavorite(null);
             book.setFavoriteCount(0);
-            return updateById(book);
-        } else if (favoriteCount > 0) {
-            // 正常减少收藏数
-            book.setFavoriteCount(favoriteCount - 1);
-            return updateById(book);
-        } else {
-            // 收藏数已经是0，不做变更
-            return true; // 操作成功但没有实际变更
+            book.setCreateTime(now);
+            book.setUpdateTime(now);
+        }
+        
+        long start = System.nanoTime();
+        int imported = 0;
+        try {
+            saveBatch(chunk, chunk.size());
+            imported = chunk.size();
+            bookSearchIndex.putAll(chunk);
+            chunk.forEach(book -> favoriteLeaderboard.put(book.getId(), 0));
+        } catch (RuntimeException e) {
+            String reason = "写入失败: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Long line : chunkLines) {
+                result.addFailure(line, reason);
+            }
         }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        result.setImportedRows(result.getImportedRows() + imported);
+        result.getChunks().add(new BookImportResult.ChunkProgress(
+                result.getChunks().size() + 1, chunk.size(), imported, result.getImportedRows(), elapsedMillis));
+        chunk.clear();
+        chunkLines.clear();
     }
 
     /**
-     * 获取所有图书并按收藏量排序
-     * 使用Java Stream API进行复杂处理
+     * 校验导入的图书
+     * @return 错误信息，校验通过时返回null
+     */
+    private static String validateImportRow(Book book) {
+        if (!StringUtils.hasText(book.getName())) {
+            return "标题不能为空";
+        }
+        if (book.getName().length() > MAX_NAME_LENGTH) {
+            return "标题过长";
+        }
+        if (book.getAuthor() != null && book.getAuthor().length() > MAX_AUTHOR_LENGTH) {
+            return "作者过长";
+        }
+        if (!StringUtils.hasText(book.getCategory())) {
+            return "分类不能为空";
+        }
+        if (book.getPrice() == null
+                || book.getPrice().compareTo(BigDecimal.ZERO) <= 0
+                || book.getPrice().compareTo(MAX_PRICE) >= 0) {
+            return "价格无效";
+        }
+        if (book.getDescription() != null && book.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "描述过长";
+        }
+        return null;
+    }
+
+    private static String csvColumn(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 流式导出全部图书
+     * 通过 ResultHandler 逐行回调，每行读取后立即写出并丢弃，不构建图书列表。
+     * 导出的 CSV 表头与导入格式兼容，可直接重新导入。
      */
     @Override
-    public List<Book> listAllBooksAndSortByFavoriteCount(String query, String sortType) {
-        // 获取所有图书
-        List<Book> allBooks = list();
+    public void exportBooks(Writer writer, String format) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        CsvWriter csvWriter = csv ? new CsvWriter(writer) : null;
+        if (csv) {
+            csvWriter.writeRecord(EXPORT_COLUMNS);
+        }
         
-        // 使用Stream API进行过滤和排序
-        return allBooks.stream()
-            // 按查询条件过滤
-            .filter(book -> {
-                if (!StringUtils.hasText(query)) {
-                    return true; // 无查询条件时返回所有图书
+        try {
+            baseMapper.selectAllForExport(context -> {
+                Book book = favoriteCountBuffer.merge(context.getResultObject());
+                try {
+                    if (csv) {
+                        csvWriter.writeRecord(book.getId(), book.getName(), book.getAuthor(), book.getCategory(),
+                                book.getPrice(), book.getDescription(), book.getFavoriteCount(),
+                                book.getCreateTime(), book.getUpdateTime());
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(book));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    // 客户端断开等写出失败时中止查询
+                    throw new UncheckedIOException(e);
                 }
-                
-                // 多字段匹配
-                String lowerQuery = query.toLowerCase();
-                boolean nameMatch = book.getName() != null && book.getName().toLowerCase().contains(lowerQuery);
-                boolean authorMatch = book.getAuthor() != null && book.getAuthor().toLowerCase().contains(lowerQuery);
-                boolean categoryMatch = book.getCategory() != null && book.getCategory().toLowerCase().contains(lowerQuery);
-                boolean descMatch = book.getDescription() != null && book.getDescription().toLowerCase().contains(lowerQuery);
-                
-                return nameMatch || authorMatch || categoryMatch || descMatch;
-            })
-            // 按收藏量排序
-            .sorted((b1, b2) -> {
-                int count1 = b1.getFavoriteCount() == null ? 0 : b1.getFavoriteCount();
-                int count2 = b2.getFavoriteCount() == null ? 0 : b2.getFavoriteCount();
-                
-                // 根据排序类型决定升序或降序
-                if ("asc".equalsIgnoreCase(sortType)) {
-                    return Integer.compare(count1, count2);
-                } else {
-                    return Integer.compare(count2, count1);
-                }
-            })
-            .collect(Collectors.toList());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * 从搜索索引查询并合并未写回的收藏数增量
+     * 有查询条件时匹配结果经搜索结果缓存（相同查询合并计算），图书内容仍从索引实时获取
+     */
+    private List<Book> searchIndex(String query, boolean includeDescription) {
+        BookListQuery listQuery = new BookListQuery();
+        listQuery.setQuery(query);
+        return filterIndex(listQuery, includeDescription);
+    }
+
+    /**
+     * 从搜索索引查询满足列表条件的图书：关键词匹配结果与分类位图求交，再按价格过滤
+     */
+    private List<Book> filterIndex(BookListQuery listQuery, boolean includeDescription) {
+        if (!hasFilter(listQuery)) {
+            return mergePending(bookSearchIndex.search(null, includeDescription));
+        }
+        long[] ids = bookSearchIndex.filterByPrice(matchIds(listQuery, includeDescription),
+                minCents(listQuery), maxCents(listQuery));
+        return mergePending(bookSearchIndex.get(ids));
+    }
+
+    /**
+     * 收藏量排序的候选图书ID：关键词（含描述）与分类匹配后按价格过滤
+     * @return 升序ID
+     */
+    private long[] favoriteCandidates(BookListQuery listQuery) {
+        return bookSearchIndex.filterByPrice(matchIds(listQuery, true), minCents(listQuery), maxCents(listQuery));
+    }
+
+    /**
+     * 按关键词与分类求候选图书ID
+     * @return 升序ID，没有关键词和分类条件时返回null（表示全部图书）
+     */
+    private long[] matchIds(BookListQuery listQuery, boolean includeDescription) {
+        if (!StringUtils.hasText(listQuery.getQuery()) && !StringUtils.hasText(listQuery.getCategory())) {
+            return null;
+        }
+        long[] ids = StringUtils.hasText(listQuery.getQuery())
+                ? searchResultCache.search(listQuery.getQuery(), includeDescription)
+                : null;
+        return bookSearchIndex.filterByCategory(ids, listQuery.getCategory());
+    }
+
+    private static boolean hasFilter(BookListQuery listQuery) {
+        return StringUtils.hasText(listQuery.getQuery()) || StringUtils.hasText(listQuery.getCategory())
+                || listQuery.hasPriceRange();
+    }
+
+    private static Long minCents(BookListQuery listQuery) {
+        return listQuery.getMinPrice() == null ? null : BookSearchIndex.priceCents(listQuery.getMinPrice());
+    }
+
+    private static Long maxCents(BookListQuery listQuery) {
+        return listQuery.getMaxPrice() == null ? null : BookSearchIndex.priceCents(listQuery.getMaxPrice());
+    }
+
+    /**
+     * 解析排序字段，按更新时间排序（默认）返回null
+     * @throws IllegalArgumentException 不支持的排序字段
+     */
+    private static BookSearchIndex.SortKey sortKey(String sort) {
+        if (!StringUtils.hasText(sort) || "updateTime".equals(sort)) {
+            return null;
+        }
+        return switch (sort) {
+            case "price" -> BookSearchIndex.SortKey.PRICE;
+            case "name" -> BookSearchIndex.SortKey.NAME;
+            case "createTime" -> BookSearchIndex.SortKey.CREATE_TIME;
+            default -> throw new IllegalArgumentException("不支持的排序字段: " + sort);
+        };
+    }
+
+    private List<Book> mergePending(List<Book> books) {
+        books.forEach(favoriteCountBuffer::merge);
+        return books;
+    }
+
+    /**
+     * 以排行榜中的收藏数（已合并未写回的增量）填充图书，使游标编码的值与排行顺序一致
+     */
+    private List<Book> rankedFavoriteCounts(List<Book> books) {
+        books.forEach(book -> book.setFavoriteCount(favoriteLeaderboard.favoriteCount(book.getId())));
+        return books;
+    }
+
+    private IPage<Book> mergePending(IPage<Book> page) {
+        mergePending(page.getRecords());
+        return page;
+    }
+
+    /**
+     * 添加图书，成功后同步搜索索引
+     */
+    @Override
+    public boolean save(Book entity) {
+        boolean success = super.save(entity);
+        if (success) {
+            bookSearchIndex.refresh(entity.getId());
+            rankFavoriteCount(entity);
+        }
+        return success;
+    }
+
+    /**
+     * 更新图书，成功后同步搜索索引
+     */
+    @Override
+    public boolean updateById(Book entity) {
+        boolean success = super.updateById(entity);
+        if (success) {
+            bookSearchIndex.refresh(entity.getId());
+            // 未传收藏数时数据库中的值不变，排行榜无需更新
+            if (entity.getFavoriteCount() != null) {
+                rankFavoriteCount(entity);
+            }
+        }
+        return success;
+    }
+
+    /**
+     * 删除图书，成功后同步搜索索引
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean success = super.removeById(id);
+        if (success && id instanceof Long bookId) {
+            bookSearchIndex.refresh(bookId);
+            favoriteLeaderboard.remove(bookId);
+        }
+        return success;
+    }
+
+    /**
+     * 以写入的收藏数（合并未写回的增量）更新排行榜
+     */
+    private void rankFavoriteCount(Book entity) {
+        Book ranked = new Book(entity);
+        if (ranked.getFavoriteCount() == null) {
+            ranked.setFavoriteCount(0);
+        }
+        favoriteLeaderboard.put(ranked.getId(), favoriteCountBuffer.merge(ranked).getFavoriteCount());
     }
-} 
\ No newline at end of file
+}
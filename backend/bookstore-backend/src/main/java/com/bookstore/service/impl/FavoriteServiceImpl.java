@@ -2,18 +2,31 @@ package com.bookstore.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.bookstore.cache.FavoriteSetCache;
+import com.bookstore.counter.FavoriteCountBuffer;
 import com.bookstore.entity.Book;
 import com.bookstore.entity.Favorite;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.CoFavoriteIndex;
+import com.bookstore.index.TrendingIndex;
 import com.bookstore.mapper.BookMapper;
 import com.bookstore.mapper.FavoriteMapper;
-import com.bookstore.service.BookService;
 import com.bookstore.service.FavoriteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,59 +36,144 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
     private BookMapper bookMapper;
     
     @Autowired
-    private BookService bookService;
+    private BookSearchIndex bookSearchIndex;
     
+    @Autowired
+    private FavoriteCountBuffer favoriteCountBuffer;
+    
+    @Autowired
+    private FavoriteSetCache favoriteSetCache;
+    
+    @Autowired
+    private CoFavoriteIndex coFavoriteIndex;
+    
+    @Autowired
+    private TrendingIndex trendingIndex;
+    
+    /** 是否使用连接查询获取收藏图书 */
+    @Value("${bookstore.favorite.use-join-query:true}")
+    private boolean useJoinQuery;
+    
+    /**
+     * 收藏图书
+     * 先按内存目录快照确认图书存在（快照中没有时再查一次数据库），收藏表没有到图书表的外键，
+     * 不检查会让不存在的图书进入收藏数缓冲与各个收藏索引；检查之后图书被并发删除的极少数情况不做处理。
+     * 再由一条 INSERT 完成查重与写入，由唯一键冲突判断已收藏，
+     * 并发的重复点击只有一次会插入成功，收藏数也只增加一次
+     */
     @Override
     @Transactional
     public boolean addFavorite(Long userId, Long bookId) {
-        // 先检查是否已收藏
-        if (isFavorite(userId, bookId)) {
+        if (!isValidId(userId) || !isValidId(bookId)) {
             return false;
         }
+        if (!bookSearchIndex.contains(bookId) && bookMapper.selectById(bookId) == null) {
+            throw new IllegalArgumentException("图书不存在");
+        }
         
-        Favorite favorite = new Favorite();
-        favorite.setUserId(userId);
-        favorite.setBookId(bookId);
-        
-        boolean success = save(favorite);
-        if (success) {
-            // 增加图书收藏数
-            bookService.incrementFavoriteCount(bookId);
+        try {
+            baseMapper.insertFavorite(userId, bookId);
+        } catch (DuplicateKeyException e) {
+            return false;
         }
-        return success;
+        favoriteSetCache.added(userId, bookId);
+        // 增加图书收藏数（写入缓冲，事务提交后计入并定时批量写回）
+        favoriteCountBuffer.add(bookId, 1);
+        coFavoriteIndex.added(userId, bookId);
+        trendingIndex.added(bookId);
+        return true;
     }
     
+    /**
+     * 取消收藏
+     * 直接执行 DELETE，由影响行数判断此前是否已收藏，收藏数只在确实删除时减少
+     */
     @Override
     @Transactional
     public boolean removeFavorite(Long userId, Long bookId) {
-        LambdaQueryWrapper<Favorite> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(Favorite::getUserId, userId).eq(Favorite::getBookId, bookId);
+        if (!isValidId(userId) || !isValidId(bookId)) {
+            return false;
+        }
         
-        boolean success = remove(queryWrapper);
-        if (success) {
-            // 减少图书收藏数
-            bookService.decrementFavoriteCount(bookId);
+        int deleted = baseMapper.deleteByUserAndBook(userId, bookId);
+        if (deleted == 0) {
+            return false;
         }
-        return success;
+        favoriteSetCache.removed(userId, bookId);
+        // 减少图书收藏数（写入缓冲，事务提交后计入并定时批量写回）
+        favoriteCountBuffer.add(bookId, -deleted);
+        coFavoriteIndex.removed(userId, bookId);
+        trendingIndex.removed(bookId);
+        return true;
     }
     
     @Override
     public boolean isFavorite(Long userId, Long bookId) {
-        // 构建查询条件
-        LambdaQueryWrapper<Favorite> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Favorite::getUserId, userId)
-               .eq(Favorite::getBookId, bookId);
+        if (userId == null || bookId == null) {
+            return false;
+        }
         
-        // 统计结果
-        return count(wrapper) > 0;
+        // 从用户收藏集合缓存中判断，未缓存时加载一次该用户的全部收藏
+        return favoriteSetCache.contains(userId, bookId);
+    }
+    
+    @Override
+    public Map<Long, Boolean> checkFavorites(Long userId, List<Long> bookIds) {
+        Map<Long, Boolean> statuses = new LinkedHashMap<>();
+        if (userId == null || bookIds == null || bookIds.isEmpty()) {
+            return statuses;
+        }
+        
+        // 用户收藏集合已缓存时直接作答
+        Map<Long, Boolean> cached = favoriteSetCache.containsAllIfCached(userId, bookIds);
+        if (cached != null) {
+            return cached;
+        }
+        
+        // 否则用一次 IN 查询取回其中已收藏的图书
+        List<Long> validIds = bookIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Set<Long> favoriteIds = validIds.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(baseMapper.selectFavoriteBookIdsIn(userId, validIds));
+        for (Long bookId : bookIds) {
+            statuses.put(bookId, favoriteIds.contains(bookId));
+        }
+        return statuses;
+    }
+    
+    @Override
+    public void fillFavoriteStatus(Long userId, List<Book> books) {
+        if (books == null || books.isEmpty()) {
+            return;
+        }
+        List<Long> bookIds = books.stream().map(Book::getId).collect(Collectors.toList());
+        Map<Long, Boolean> statuses = checkFavorites(userId, bookIds);
+        for (Book book : books) {
+            book.setIsFavorite(Boolean.TRUE.equals(statuses.get(book.getId())));
+        }
     }
     
     @Override
     public List<Book> getAllUserFavorites(Long userId) {
+        List<Book> books = useJoinQuery
+                ? baseMapper.selectFavoriteBooks(userId)
+                : getAllUserFavoritesByTwoQueries(userId);
+        
+        // 合并尚未写回数据库的收藏数增量
+        books.forEach(favoriteCountBuffer::merge);
+        return books;
+    }
+    
+    /**
+     * 分两次查询收藏记录与图书，再按收藏顺序拼接
+     * 用于收藏表与图书表无法连接查询的部署（bookstore.favorite.use-join-query=false）
+     */
+    private List<Book> getAllUserFavoritesByTwoQueries(Long userId) {
         // 查询用户所有收藏记录
         LambdaQueryWrapper<Favorite> favoriteWrapper = new LambdaQueryWrapper<>();
         favoriteWrapper.eq(Favorite::getUserId, userId)
-                      .orderByDesc(Favorite::getCreateTime);
+                      .orderByDesc(Favorite::getCreateTime)
+                      .orderByDesc(Favorite::getId);
         
         List<Favorite> favorites = list(favoriteWrapper);
         
@@ -94,17 +192,32 @@ public class FavoriteServiceImpl extends ServiceImpl<FavoriteMapper, Favorite> i
         bookWrapper.in(Book::getId, bookIds);
         List<Book> books = bookMapper.selectList(bookWrapper);
         
-        // 维护原始顺序
-        List<Book> orderedBooks = new ArrayList<>(books.size());
+        return orderByIds(bookIds, books);
+    }
+    
+    private static boolean isValidId(Long id) {
+        return id != null && id > 0;
+    }
+    
+    /**
+     * 按给定的ID顺序排列图书，借助哈希表在线性时间内完成，ID不存在的图书被跳过
+     * @param bookIds 有序的图书ID
+     * @param books 无序的图书
+     * @return 按 bookIds 顺序排列的图书
+     */
+    static List<Book> orderByIds(List<Long> bookIds, List<Book> books) {
+        Map<Long, Book> booksById = new HashMap<>(books.size() * 4 / 3 + 1);
+        for (Book book : books) {
+            booksById.put(book.getId(), book);
+        }
+        
+        List<Book> orderedBooks = new ArrayList<>(bookIds.size());
         for (Long bookId : bookIds) {
-            for (Book book : books) {
-                if (book.getId().equals(bookId)) {
-                    orderedBooks.add(book);
-                    break;
-                }
+            Book book = booksById.get(bookId);
+            if (book != null) {
+                orderedBooks.add(book);
             }
         }
-        
         return orderedBooks;
     }
-} 
\ No newline at end of file
+}
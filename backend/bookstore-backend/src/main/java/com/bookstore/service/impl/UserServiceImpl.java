@@ -3,8 +3,11 @@ package com.bookstore.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.bookstore.entity.User;
+import com.bookstore.index.UsernameFilter;
 import com.bookstore.mapper.UserMapper;
 import com.bookstore.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,6 +16,9 @@ import java.time.LocalDateTime;
 @Service
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
     
+    @Autowired
+    private UsernameFilter usernameFilter;
+    
     @Override
     public User login(String username, String password) {
         // 实际项目中应该对密码进行加密处理
@@ -43,15 +49,29 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         
         // 实际项目中应该对密码进行加密存储
         
-        // 保存用户
-        return save(user);
+        // 写入前加入用户名过滤器，回滚时只多一次误判
+        usernameFilter.added(user.getUsername());
+        
+        // 保存用户；并发注册同名用户时双方都可能通过上面的检查，由用户名唯一键拒绝后到的一方
+        try {
+            return save(user);
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
     }
     
     @Override
     public boolean checkUsernameExists(String username) {
+        // 过滤器回答不存在时一定不存在，不访问数据库
+        if (!usernameFilter.mightContain(username)) {
+            return false;
+        }
+        
         LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(User::getUsername, username);
         
-        return count(wrapper) > 0;
+        boolean exists = count(wrapper) > 0;
+        usernameFilter.confirmed(exists);
+        return exists;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.bookstore.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 布隆过滤器
+ * 元素由调用方先哈希为 64 位值，再用双重哈希 h1 + i * h2 派生出 k 个位下标。
+ * 位数组为 AtomicLongArray：查询只读不加锁，添加以 CAS 置位，可并发访问。
+ * 不支持删除；mightContain 返回false时元素一定未添加过。
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitSize;
+
+    private final int hashCount;
+
+    /**
+     * 按预期元素数与目标误判率确定位数与哈希函数个数
+     * @param expectedInsertions 预期元素数
+     * @param falsePositiveRate 目标误判率 (0, 1)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("预期元素数必须为正数，误判率必须在 (0, 1) 之间");
+        }
+        // m = -n ln p / (ln 2)^2，k = m / n * ln 2
+        double bits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long wordCount = Math.max(1, (long) Math.ceil(bits / 64));
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("布隆过滤器过大: " + expectedInsertions);
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bitSize = wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 添加元素
+     * @param hash 元素的 64 位哈希值
+     */
+    public void add(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.weakCompareAndSetVolatile(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    /**
+     * @param hash 元素的 64 位哈希值
+     * @return 元素可能已添加时返回true，返回false时一定未添加
+     */
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = secondHash(hash);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按当前置位比例估算的误判率 (置位数 / 位数)^k
+     */
+    public double estimatedFalsePositiveRate() {
+        return Math.pow((double) bitCount() / bitSize, hashCount);
+    }
+
+    /**
+     * @return 已置位的位数
+     */
+    public long bitCount() {
+        long count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return 位数组占用的字节数
+     */
+    public long memoryBytes() {
+        return bitSize / 8;
+    }
+
+    /**
+     * 由第一个哈希值派生第二个，取奇数避免步长为0时 k 个下标全部相同
+     */
+    private static long secondHash(long hash) {
+        long h = Long.rotateLeft(hash, 32) * 0x9E3779B97F4A7C15L;
+        return (h ^ (h >>> 29)) | 1L;
+    }
+}
@@ -0,0 +1,240 @@
+package com.bookstore.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 忽略大小写的子串匹配器
+ * 查询在 {@link #compile(String)} 时折叠一次，之后对任意文本的 {@link #matches(String)}
+ * 直接按码点逐个折叠比较，不创建小写副本，也不分配任何对象。
+ * 折叠规则：全角 ASCII 字符与全角空格先转为半角，再做 Unicode 完整大小写折叠——
+ * 一对一的字符按先转大写再转小写折叠（ſ/s、ς/σ 等归为同一字符），
+ * 一对多的字符展开为多个码点（ß 与 ss、ﬁ 与 fi 相互匹配），匹配可以从展开结果的中间开始。
+ * 实例不可变，可在线程间共享。
+ */
+public final class CaseInsensitiveMatcher {
+
+    private static final int FULLWIDTH_FIRST = 0xFF01;
+    private static final int FULLWIDTH_LAST = 0xFF5E;
+    private static final int FULLWIDTH_OFFSET = 0xFEE0;
+    private static final int IDEOGRAPHIC_SPACE = 0x3000;
+
+    /** 基本多文种平面字符的一对一折叠结果（128KB），避免逐字符查询 Character 的大小写表 */
+    private static final char[] FOLD = new char[0x10000];
+
+    /** 基本多文种平面中折叠结果为多个码点的字符位图 */
+    private static final long[] EXPANDS = new long[0x10000 / 64];
+
+    /** 折叠结果为多个码点的字符（均在基本多文种平面内），升序 */
+    private static final int[] EXPANDING;
+
+    /** 与 EXPANDING 对应的折叠结果 */
+    private static final int[][] EXPANSIONS;
+
+    static {
+        for (int c = 0; c < FOLD.length; c++) {
+            FOLD[c] = (char) computeFold(c);
+        }
+        List<int[]> expansions = new ArrayList<>();
+        List<Integer> expanding = new ArrayList<>();
+        for (int c = 0x80; c <= 0xFFFF; c++) {
+            if (Character.isSurrogate((char) c) || !Character.isDefined(c)) {
+                continue;
+            }
+            // 往返两次，使 ẞ 这类先折叠为 ß 的字符同样展开为 ss
+            String folded = String.valueOf((char) c).toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT)
+                    .toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+            if (folded.codePointCount(0, folded.length()) > 1) {
+                EXPANDS[c >>> 6] |= 1L << c;
+                expanding.add(c);
+                expansions.add(folded.codePoints().map(CaseInsensitiveMatcher::foldSimple).toArray());
+            }
+        }
+        EXPANDING = expanding.stream().mapToInt(Integer::intValue).toArray();
+        EXPANSIONS = expansions.toArray(new int[0][]);
+    }
+
+    /** 折叠后的查询码点 */
+    private final int[] pattern;
+
+    private CaseInsensitiveMatcher(int[] pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * 预编译查询
+     * @param query 查询文本
+     * @return 匹配器
+     */
+    public static CaseInsensitiveMatcher compile(String query) {
+        int[] pattern = new int[query.length() * 3];
+        int size = 0;
+        for (int i = 0; i < query.length(); ) {
+            int codePoint = query.codePointAt(i);
+            int[] expansion = expansion(codePoint);
+            if (expansion == null) {
+                pattern[size++] = foldSimple(codePoint);
+            } else {
+                for (int folded : expansion) {
+                    pattern[size++] = folded;
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        return new CaseInsensitiveMatcher(Arrays.copyOf(pattern, size));
+    }
+
+    /**
+     * 判断文本是否包含查询（忽略大小写与全角半角）
+     * @param text 文本，可以为null
+     * @return 包含时返回true；空查询匹配任何非null文本
+     */
+    public boolean matches(String text) {
+        if (text == null) {
+            return false;
+        }
+        if (pattern.length == 0) {
+            return true;
+        }
+        int first = pattern[0];
+        for (int i = 0; i < text.length(); ) {
+            char c = text.charAt(i);
+            if (isSimple(c)) {
+                // 常见情况：基本平面内一对一折叠的字符，只查一次表
+                if (FOLD[c] == first && matchesAt(text, i, 0)) {
+                    return true;
+                }
+                i++;
+                continue;
+            }
+            int codePoint = text.codePointAt(i);
+            int[] expansion = expansion(codePoint);
+            if (expansion == null) {
+                if (foldSimple(codePoint) == first && matchesAt(text, i, 0)) {
+                    return true;
+                }
+            } else {
+                for (int k = 0; k < expansion.length; k++) {
+                    if (expansion[k] == first && matchesAt(text, i, k)) {
+                        return true;
+                    }
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        return false;
+    }
+
+    /**
+     * 从文本位置 index 处字符折叠结果的第 skip 个码点开始逐个比较
+     */
+    private boolean matchesAt(String text, int index, int skip) {
+        int j = 0;
+        while (j < pattern.length) {
+            if (index >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(index);
+            if (isSimple(c)) {
+                if (FOLD[c] != pattern[j++]) {
+                    return false;
+                }
+                skip = 0;
+                index++;
+                continue;
+            }
+            int codePoint = text.codePointAt(index);
+            int[] expansion = expansion(codePoint);
+            if (expansion == null) {
+                if (foldSimple(codePoint) != pattern[j++]) {
+                    return false;
+                }
+            } else {
+                for (int k = skip; k < expansion.length && j < pattern.length; k++) {
+                    if (expansion[k] != pattern[j++]) {
+                        return false;
+                    }
+                }
+            }
+            skip = 0;
+            index += Character.charCount(codePoint);
+        }
+        return true;
+    }
+
+    /**
+     * 按同样的规则折叠整段文本
+     * @param text 原文，可以为null
+     * @return 折叠后的文本，无需改变时返回原对象
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return null;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            if (expansion(codePoint) != null || foldSimple(codePoint) != codePoint) {
+                break;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (i == text.length()) {
+            return text;
+        }
+        StringBuilder folded = new StringBuilder(text.length() + 8);
+        folded.append(text, 0, i);
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            int[] expansion = expansion(codePoint);
+            if (expansion == null) {
+                folded.appendCodePoint(foldSimple(codePoint));
+            } else {
+                for (int c : expansion) {
+                    folded.appendCodePoint(c);
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        return folded.toString();
+    }
+
+    /**
+     * @return 字符是否为基本平面内一对一折叠的字符（非代理项、无展开）
+     */
+    private static boolean isSimple(char c) {
+        return (EXPANDS[c >>> 6] & (1L << c)) == 0 && !Character.isSurrogate(c);
+    }
+
+    /**
+     * 一对一折叠：全角转半角并统一大小写
+     */
+    private static int foldSimple(int codePoint) {
+        return codePoint < FOLD.length ? FOLD[codePoint] : computeFold(codePoint);
+    }
+
+    private static int computeFold(int codePoint) {
+        if (codePoint < 0x80) {
+            return codePoint >= 'A' && codePoint <= 'Z' ? codePoint + ('a' - 'A') : codePoint;
+        }
+        if (codePoint >= FULLWIDTH_FIRST && codePoint <= FULLWIDTH_LAST) {
+            return computeFold(codePoint - FULLWIDTH_OFFSET);
+        }
+        if (codePoint == IDEOGRAPHIC_SPACE) {
+            return ' ';
+        }
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+
+    /**
+     * @return 一对多折叠的结果，一对一折叠的字符返回null
+     */
+    private static int[] expansion(int codePoint) {
+        if (codePoint >= FOLD.length || (EXPANDS[codePoint >>> 6] & (1L << codePoint)) == 0) {
+            return null;
+        }
+        return EXPANSIONS[Arrays.binarySearch(EXPANDING, codePoint)];
+    }
+}
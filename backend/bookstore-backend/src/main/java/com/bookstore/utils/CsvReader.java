@@ -0,0 +1,89 @@
+package com.bookstore.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器
+ * 逐条读取记录，支持双引号包裹的字段、字段内的逗号与换行以及 "" 转义，不缓存整个输入。
+ */
+public class CsvReader {
+
+    private final BufferedReader reader;
+
+    /** 当前记录起始行号（从1开始） */
+    private long lineNumber;
+
+    private long linesRead;
+
+    public CsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 字段列表，输入结束时返回null
+     * @throws IOException 读取失败
+     * @throws IllegalArgumentException 引号未闭合
+     */
+    public List<String> readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        linesRead++;
+        lineNumber = linesRead;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i >= line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // 引号内的换行属于字段内容
+                line = reader.readLine();
+                if (line == null) {
+                    throw new IllegalArgumentException("第" + lineNumber + "行引号未闭合");
+                }
+                linesRead++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return 最近一条记录的起始行号
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+}
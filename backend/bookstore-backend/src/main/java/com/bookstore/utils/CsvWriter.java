@@ -0,0 +1,55 @@
+package com.bookstore.utils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 流式 CSV 写出器
+ * 逐条写出记录，字段含逗号、引号或换行时用双引号包裹并将 " 转义为 ""，与 CsvReader 的解析规则一致。
+ */
+public class CsvWriter {
+
+    private final Writer writer;
+
+    public CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * 写出一条记录，null 字段写为空
+     * @param fields 字段
+     * @throws IOException 写出失败
+     */
+    public void writeRecord(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writeField(fields[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean needQuote = false;
+        for (int i = 0; i < value.length() && !needQuote; i++) {
+            char c = value.charAt(i);
+            needQuote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needQuote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
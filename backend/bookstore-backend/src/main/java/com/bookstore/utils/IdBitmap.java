@@ -0,0 +1,254 @@
+package com.bookstore.utils;
+
+import java.util.Arrays;
+
+/**
+ * 压缩的 long ID 位图
+ * 参照 Roaring Bitmap：按 ID 的高位（id >>> 16）分块，每块内的低 16 位存放在容器中，
+ * 块内元素不超过 4096 个时用有序 char 数组，超过后转为 1024 个 long 的定长位图（8KB），
+ * 稀疏和稠密的 ID 集合都只占用与元素数量相称的内存。
+ * 非线程安全，并发访问需由调用方同步或在发布后只读。
+ */
+public class IdBitmap {
+
+    /** 数组容器的最大元素数，超过后转为位图容器 */
+    private static final int ARRAY_MAX = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    /** 块的高位键，升序 */
+    private long[] keys = new long[0];
+
+    /** 与 keys 对应的容器：char[]（有序数组）或 long[]（位图） */
+    private Object[] containers = new Object[0];
+
+    /** 与 keys 对应的块内元素数 */
+    private int[] counts = new int[0];
+
+    /** 块数 */
+    private int size;
+
+    private long cardinality;
+
+    /**
+     * 添加ID
+     * @return 位图此前不包含该ID时返回true
+     */
+    public boolean add(long id) {
+        long key = id >>> 16;
+        char low = (char) id;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -(index + 1);
+            insertContainer(index, key);
+        }
+
+        Object container = containers[index];
+        if (container instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) container;
+            int n = counts[index];
+            int position = Arrays.binarySearch(values, 0, n, low);
+            if (position >= 0) {
+                return false;
+            }
+            position = -(position + 1);
+            if (n == ARRAY_MAX) {
+                long[] bits = toBits(values, n);
+                bits[low >>> 6] |= 1L << low;
+                containers[index] = bits;
+            } else {
+                if (n == values.length) {
+                    values = Arrays.copyOf(values, Math.min(n * 2, ARRAY_MAX));
+                    containers[index] = values;
+                }
+                System.arraycopy(values, position, values, position + 1, n - position);
+                values[position] = low;
+            }
+        }
+        counts[index]++;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * 移除ID
+     * @return 位图此前包含该ID时返回true
+     */
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[] bits) {
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            bits[low >>> 6] &= ~mask;
+            if (counts[index] - 1 == ARRAY_MAX) {
+                containers[index] = toValues(bits, ARRAY_MAX);
+            }
+        } else {
+            char[] values = (char[]) container;
+            int n = counts[index];
+            int position = Arrays.binarySearch(values, 0, n, low);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, n - position - 1);
+        }
+        counts[index]--;
+        cardinality--;
+        if (counts[index] == 0) {
+            removeContainer(index);
+        }
+        return true;
+    }
+
+    public boolean contains(long id) {
+        int index = Arrays.binarySearch(keys, 0, size, id >>> 16);
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) id;
+        Object container = containers[index];
+        if (container instanceof long[] bits) {
+            return (bits[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, counts[index], low) >= 0;
+    }
+
+    public long cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * @return 全部ID，升序
+     */
+    public long[] toArray() {
+        long[] ids = new long[(int) cardinality];
+        int i = 0;
+        for (int c = 0; c < size; c++) {
+            long high = keys[c] << 16;
+            if (containers[c] instanceof long[] bits) {
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long w = bits[word];
+                    while (w != 0) {
+                        ids[i++] = high | ((long) word << 6) | Long.numberOfTrailingZeros(w);
+                        w &= w - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) containers[c];
+                for (int v = 0; v < counts[c]; v++) {
+                    ids[i++] = high | values[v];
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 保留升序ID数组中位图包含的ID
+     * @param sortedIds 升序ID
+     * @return 交集，升序
+     */
+    public long[] retain(long[] sortedIds) {
+        long[] result = new long[sortedIds.length];
+        int n = 0;
+        for (long id : sortedIds) {
+            if (contains(id)) {
+                result[n++] = id;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * @return 深拷贝，修改副本不影响原位图
+     */
+    public IdBitmap copy() {
+        IdBitmap copy = new IdBitmap();
+        copy.keys = Arrays.copyOf(keys, size);
+        copy.counts = Arrays.copyOf(counts, size);
+        copy.containers = new Object[size];
+        for (int c = 0; c < size; c++) {
+            copy.containers[c] = containers[c] instanceof long[] bits
+                    ? bits.clone()
+                    : Arrays.copyOf((char[]) containers[c], counts[c]);
+        }
+        copy.size = size;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    /**
+     * @return 占用的字节数（近似）
+     */
+    public long memoryBytes() {
+        long bytes = 16L + 16 + 8L * keys.length + 16 + 4L * containers.length + 16 + 4L * counts.length;
+        for (int c = 0; c < size; c++) {
+            bytes += containers[c] instanceof long[] bits
+                    ? 16 + 8L * bits.length
+                    : 16 + 2L * ((char[]) containers[c]).length;
+        }
+        return bytes;
+    }
+
+    private void insertContainer(int index, long key) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(counts, index, counts, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = new char[4];
+        counts[index] = 0;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(counts, index + 1, counts, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static long[] toBits(char[] values, int n) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = 0; i < n; i++) {
+            bits[values[i] >>> 6] |= 1L << values[i];
+        }
+        return bits;
+    }
+
+    private static char[] toValues(long[] bits, int n) {
+        char[] values = new char[n];
+        int i = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long w = bits[word];
+            while (w != 0) {
+                values[i++] = (char) ((word << 6) | Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+        return values;
+    }
+}
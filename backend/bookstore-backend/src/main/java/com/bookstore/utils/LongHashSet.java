@@ -0,0 +1,179 @@
+package com.bookstore.utils;
+
+import java.util.Arrays;
+
+/**
+ * long 基本类型哈希集合
+ * 开放寻址 + 线性探测，元素直接存放在 long[] 中，不产生 Long 装箱对象。
+ * 非线程安全，并发访问需由调用方同步。
+ */
+public class LongHashSet {
+
+    /** 空槽标记，值为0的元素单独记录 */
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] slots;
+
+    private int size;
+
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(8);
+    }
+
+    public LongHashSet(int expectedSize) {
+        slots = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * 添加元素
+     * @return 集合此前不包含该元素时返回true
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if (size > slots.length * LOAD_FACTOR) {
+            resize(slots.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * 删除元素，采用后移删除保持探测链连续
+     * @return 集合此前包含该元素时返回true
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != value) {
+            if (slots[index] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        // 把后续同一探测链上的元素前移填补空位
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (slots[next] != EMPTY) {
+            int home = hash(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != EMPTY) {
+            if (slots[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return 集合中的元素，顺序不确定
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int i = 0;
+        if (containsZero) {
+            values[i++] = EMPTY;
+        }
+        for (long slot : slots) {
+            if (slot != EMPTY) {
+                values[i++] = slot;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return 底层数组占用的字节数（近似）
+     */
+    public long memoryBytes() {
+        return 16L + (long) slots.length * Long.BYTES;
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int index = hash(value) & mask;
+                while (slots[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    private static int hash(long value) {
+        // 混合高低位，避免连续ID聚集在相邻槽位
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        long[] values = toArray();
+        Arrays.sort(values);
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,220 @@
+package com.bookstore.utils;
+
+import java.util.Arrays;
+
+/**
+ * long -> int 基本类型哈希表
+ * 开放寻址 + 线性探测，键和值分别存放在 long[] 与 int[] 中，不产生装箱对象。
+ * 非线程安全，并发访问需由调用方同步。
+ */
+public class LongIntHashMap {
+
+    /** 空槽标记，键为0的条目单独记录 */
+    private static final long EMPTY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private boolean containsZero;
+
+    private int zeroValue;
+
+    /**
+     * 遍历条目的回调
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    public LongIntHashMap() {
+        this(8);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * @return 键对应的值，不存在时返回0
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return containsZero ? zeroValue : 0;
+        }
+        int index = indexOf(key);
+        return index < 0 ? 0 : values[index];
+    }
+
+    public boolean containsKey(long key) {
+        return key == EMPTY ? containsZero : indexOf(key) >= 0;
+    }
+
+    /**
+     * 设置键的值
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+    }
+
+    /**
+     * 在键的当前值（不存在时为0）上累加
+     * @return 累加后的值
+     */
+    public int addTo(long key, int delta) {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * 删除键，采用后移删除保持探测链连续
+     * @return 映射此前包含该键时返回true
+     */
+    public boolean remove(long key) {
+        if (key == EMPTY) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 遍历全部条目，顺序不确定
+     */
+    public void forEach(EntryConsumer consumer) {
+        if (containsZero) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return 底层数组占用的字节数（近似）
+     */
+    public long memoryBytes() {
+        return 32L + (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // 混合高低位，避免连续ID聚集在相邻槽位
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 8;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        long[] sorted = new long[size];
+        int[] n = new int[1];
+        forEach((key, value) -> sorted[n[0]++] = key);
+        Arrays.sort(sorted);
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < sorted.length; i++) {
+            text.append(i == 0 ? "" : ", ").append(sorted[i]).append('=').append(get(sorted[i]));
+        }
+        return text.append('}').toString();
+    }
+}
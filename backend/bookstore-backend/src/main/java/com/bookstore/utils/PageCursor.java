@@ -0,0 +1,99 @@
+package com.bookstore.utils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ * 由排序键与图书ID组成，对外以 Base64URL 编码的不透明字符串传递。
+ */
+public class PageCursor {
+
+    private final String sortKey;
+
+    private final Long id;
+
+    private PageCursor(String sortKey, Long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * 编码游标
+     * @param sortKey 排序键的值，可以为null
+     * @param id 图书ID
+     * @return 不透明游标字符串
+     */
+    public static String encode(Object sortKey, Long id) {
+        String raw = id + ":" + (sortKey == null ? "" : sortKey.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     * @param token 不透明游标字符串
+     * @return 游标
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("游标无效");
+            }
+            Long id = Long.valueOf(raw.substring(0, separator));
+            String sortKey = raw.substring(separator + 1);
+            return new PageCursor(sortKey.isEmpty() ? null : sortKey, id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("游标无效", e);
+        }
+    }
+
+    /**
+     * 以时间类型读取排序键
+     * @throws IllegalArgumentException 排序键格式错误
+     */
+    public LocalDateTime getSortKeyAsDateTime() {
+        try {
+            return sortKey == null ? null : LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("游标无效", e);
+        }
+    }
+
+    /**
+     * 以整数类型读取排序键，null 视为 0
+     * @throws IllegalArgumentException 排序键格式错误
+     */
+    public int getSortKeyAsInt() {
+        try {
+            return sortKey == null ? 0 : Integer.parseInt(sortKey);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游标无效", e);
+        }
+    }
+
+    /**
+     * 以小数类型读取排序键
+     * @throws IllegalArgumentException 排序键格式错误
+     */
+    public BigDecimal getSortKeyAsDecimal() {
+        try {
+            return sortKey == null ? null : new BigDecimal(sortKey);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("游标无效", e);
+        }
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookstore.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 检索分词
+ * 先归一化：全角 ASCII 字符与全角空格转为半角，再做 Unicode 完整大小写折叠（见 {@link CaseInsensitiveMatcher}）。
+ * 再把归一化后的文本切分为词元：连续的中日韩字符输出相邻两字的二元组（单字成段时输出该字），
+ * 连续的其他字母数字输出整词，空白与标点作为分隔符不输出。
+ * 任何出现在文本中的子串，其包含的二元组与整词片段都出现在文本的词元中，
+ * 因此词元倒排可以作为子串匹配的候选集。
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 归一化文本，规则与 {@link CaseInsensitiveMatcher} 的折叠一致
+     * @param text 原文，可以为null
+     * @return 归一化后的文本，无需改变时返回原对象
+     */
+    public static String normalize(String text) {
+        return CaseInsensitiveMatcher.fold(text);
+    }
+
+    /**
+     * 切分已归一化的文本
+     * @param normalized 归一化后的文本
+     * @return 词元，按出现顺序，可能重复
+     */
+    public static List<String> tokenize(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                int previous = -1;
+                while (i < normalized.length() && isCjk(codePoint = normalized.codePointAt(i))) {
+                    if (previous >= 0) {
+                        tokens.add(normalized.substring(previous, i + Character.charCount(codePoint)));
+                    }
+                    previous = i;
+                    i += Character.charCount(codePoint);
+                }
+                if (previous == start) {
+                    tokens.add(normalized.substring(start, i));
+                }
+            } else if (isWordChar(codePoint)) {
+                int start = i;
+                while (i < normalized.length() && isWordChar(codePoint = normalized.codePointAt(i))
+                        && !isCjk(codePoint)) {
+                    i += Character.charCount(codePoint);
+                }
+                tokens.add(normalized.substring(start, i));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return 词元是否为中日韩二元组（只能整体匹配，不必展开为包含它的词元）
+     */
+    public static boolean isCjkBigram(String token) {
+        return isCjk(token.codePointAt(0)) && token.codePointCount(0, token.length()) == 2;
+    }
+
+    /**
+     * @return 码点是否属于按二元组切分的中日韩文字
+     */
+    public static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+}
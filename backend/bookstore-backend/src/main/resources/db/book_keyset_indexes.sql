@@ -0,0 +1,14 @@
+-- 图书列表键集分页所需的索引
+-- 按更新时间排序的分页只引用列本身（不再包裹 IFNULL、不再匹配 NULL），
+-- 由下面的索引完成排序与范围定位，每页只读取一页的行，部署新版本前执行一次。
+-- 按收藏数排序的分页沿内存排行榜取页，不查询数据库，因此不为 favorite_count 建索引。
+-- 先回填历史数据中的 NULL（与此前 NULL 视为 0、排在最后的语义一致），再把两列改为 NOT NULL。
+
+UPDATE book SET favorite_count = 0 WHERE favorite_count IS NULL;
+
+UPDATE book SET update_time = '1970-01-01 00:00:00' WHERE update_time IS NULL;
+
+ALTER TABLE book
+    MODIFY favorite_count INT NOT NULL DEFAULT 0,
+    MODIFY update_time DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD INDEX idx_book_update_time_id (update_time, id);
@@ -0,0 +1,27 @@
+-- 收藏表 (user_id, book_id) 唯一键
+-- 收藏写入依赖该唯一键拒绝重复收藏（单条 INSERT 遇唯一键冲突即为已收藏），部署新版本前执行一次。
+-- 先删除历史上并发重复收藏产生的多余记录（保留每组ID最小的一条），再建立唯一键；
+-- 唯一键以 user_id 开头，同时覆盖按用户查询收藏的场景。
+-- 重复记录当初都计入了 book.favorite_count，删除后按剩余的收藏记录重算受影响图书的收藏数（上限1000，与写入规则一致）。
+
+CREATE TEMPORARY TABLE favorite_duplicate_book AS
+SELECT DISTINCT f.book_id
+FROM favorite f
+INNER JOIN favorite keep
+    ON keep.user_id = f.user_id
+    AND keep.book_id = f.book_id
+    AND keep.id < f.id;
+
+DELETE f FROM favorite f
+INNER JOIN favorite keep
+    ON keep.user_id = f.user_id
+    AND keep.book_id = f.book_id
+    AND keep.id < f.id;
+
+UPDATE book b
+INNER JOIN favorite_duplicate_book d ON d.book_id = b.id
+SET b.favorite_count = LEAST((SELECT COUNT(*) FROM favorite f WHERE f.book_id = b.id), 1000);
+
+DROP TEMPORARY TABLE favorite_duplicate_book;
+
+ALTER TABLE favorite ADD UNIQUE KEY uk_favorite_user_book (user_id, book_id);
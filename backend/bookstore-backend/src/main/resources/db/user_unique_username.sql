@@ -0,0 +1,12 @@
+-- 用户表 username 唯一键
+-- 注册前的用户名检查与写入不是原子的，并发注册同名用户时双方都可能通过检查，
+-- 由该唯一键拒绝后到的写入（应用返回“用户名已存在”），部署新版本前执行一次。
+-- 唯一键沿用列的排序规则比较（忽略大小写），与注册时的用户名检查一致。
+-- 已有重复用户名时建立唯一键会失败，需先用下面的查询找出并人工处理，不自动删除用户。
+
+SELECT username, COUNT(*) AS users
+FROM `user`
+GROUP BY username
+HAVING COUNT(*) > 1;
+
+ALTER TABLE `user` ADD UNIQUE KEY uk_user_username (username);
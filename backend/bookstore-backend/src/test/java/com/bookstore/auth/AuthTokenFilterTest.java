@@ -0,0 +1,107 @@
+package com.bookstore.auth;
+
+import org.junit.jupiter.api.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 登录令牌过滤器测试 ====================
+ */
+@DisplayName("登录令牌过滤器测试")
+public class AuthTokenFilterTest {
+
+    private final TokenService tokenService =
+            new TokenService("1:" + Base64.getEncoder().encodeToString(new byte[32]), 3600);
+
+    private final TokenRevocationList revocationList = new TokenRevocationList(1000, 64);
+
+    private final AuthTokenFilter filter = new AuthTokenFilter();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(filter, "tokenService", tokenService);
+        ReflectionTestUtils.setField(filter, "revocationList", revocationList);
+    }
+
+    /** AF01: 有效令牌放入用户ID并继续处理 */
+    @Test
+    @DisplayName("AF01: 有效令牌")
+    public void testValidToken_AF01() throws Exception {
+        MockHttpServletRequest request = request("GET", "/api/favorites");
+        request.addHeader("Authorization", "Bearer " + tokenService.issue(9L));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(9L, request.getAttribute(AuthTokenFilter.USER_ID));
+        assertSame(request, chain.getRequest());
+    }
+
+    /** AF02: 收藏接口缺少或携带无效令牌时返回 401，不进入控制器 */
+    @Test
+    @DisplayName("AF02: 收藏接口需要登录")
+    public void testProtected_AF02() throws Exception {
+        for (String header : new String[]{null, "Bearer mock-token-123", "Basic abc"}) {
+            MockHttpServletRequest request = request("POST", "/api/favorites/check");
+            if (header != null) {
+                request.addHeader("Authorization", header);
+            }
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, response, chain);
+
+            assertEquals(401, response.getStatus());
+            assertTrue(response.getContentAsString().contains("\"code\":401"));
+            assertNull(chain.getRequest());
+        }
+    }
+
+    /** AF03: 其他接口与跨域预检请求未登录时照常处理 */
+    @Test
+    @DisplayName("AF03: 无需登录的请求")
+    public void testPublic_AF03() throws Exception {
+        for (MockHttpServletRequest request : new MockHttpServletRequest[]{
+                request("GET", "/api/books"), request("GET", "/api/favorites-old"), request("OPTIONS", "/api/favorites")}) {
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertSame(request, chain.getRequest());
+            assertNull(request.getAttribute(AuthTokenFilter.USER_ID));
+        }
+    }
+
+    /** AF04: 登出撤销后的令牌不再有效，其他令牌不受影响 */
+    @Test
+    @DisplayName("AF04: 撤销的令牌")
+    public void testRevoked_AF04() throws Exception {
+        String revoked = tokenService.issue(9L);
+        String other = tokenService.issue(9L);
+        TokenService.Claims claims = tokenService.parse(revoked);
+        revocationList.revoke(claims.tokenId(), claims.expiresAtMillis());
+
+        MockHttpServletRequest request = request("GET", "/api/favorites");
+        request.addHeader("Authorization", "Bearer " + revoked);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(401, response.getStatus());
+
+        request = request("GET", "/api/favorites");
+        request.addHeader("Authorization", "Bearer " + other);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals(9L, request.getAttribute(AuthTokenFilter.USER_ID));
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath("/api");
+        return request;
+    }
+}
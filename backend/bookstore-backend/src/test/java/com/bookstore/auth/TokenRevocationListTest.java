@@ -0,0 +1,107 @@
+package com.bookstore.auth;
+
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 已撤销令牌集合测试 ====================
+ * 使用可控的时钟手动推进时间轮，不依赖 Spring 调度。
+ */
+@DisplayName("已撤销令牌集合测试")
+public class TokenRevocationListTest {
+
+    private static final long TICK = 1000L;
+
+    private long now = 1_700_000_000_500L;
+
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    public void setUp() {
+        revocationList = list(8);
+    }
+
+    /** RV01: 撤销的令牌在过期前一直有效，过期所在刻度推进后移除 */
+    @Test
+    @DisplayName("RV01: 到期移除")
+    public void testExpire_RV01() {
+        revocationList.revoke(1L, now + 2500);
+        revocationList.revoke(2L, now + 60_000);
+        assertTrue(revocationList.isRevoked(1L));
+        assertFalse(revocationList.isRevoked(3L));
+
+        now += 2499;
+        revocationList.advance();
+        assertTrue(revocationList.isRevoked(1L));
+        now += 1;
+        revocationList.advance();
+        assertFalse(revocationList.isRevoked(1L));
+        // 相差多圈的条目在其所在圈次之前不会被移除
+        assertTrue(revocationList.isRevoked(2L));
+        assertEquals(1, revocationList.stats().get("revoked"));
+    }
+
+    /** RV02: 已过期的令牌不记录，重复撤销只记录一次 */
+    @Test
+    @DisplayName("RV02: 过期与重复撤销")
+    public void testRevokeTwice_RV02() {
+        revocationList.revoke(1L, now);
+        revocationList.revoke(2L, now + 5000);
+        revocationList.revoke(2L, now + 5000);
+
+        assertFalse(revocationList.isRevoked(1L));
+        assertEquals(1, revocationList.stats().get("revoked"));
+        // 过期时间不在刻度上时，于下一个刻度移除
+        now += 5000;
+        revocationList.advance();
+        assertTrue(revocationList.isRevoked(2L));
+        now += 500;
+        revocationList.advance();
+        assertFalse(revocationList.isRevoked(2L));
+        assertEquals(0, revocationList.stats().get("revoked"));
+    }
+
+    /** RV03: 随机撤销与不定期推进（含落后多圈），任何时刻都只保留已撤销且未过期的令牌 */
+    @Test
+    @DisplayName("RV03: 与直接判断一致")
+    public void testRandom_RV03() {
+        Random random = new Random(24);
+        Map<Long, Long> expiries = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            long tokenId = random.nextLong();
+            long expiresAt = now + random.nextInt(40_000);
+            revocationList.revoke(tokenId, expiresAt);
+            if (expiresAt > now) {
+                expiries.put(tokenId, expiresAt);
+            }
+            now += random.nextInt(10) == 0 ? random.nextInt(20_000) : random.nextInt(200);
+            if (random.nextInt(5) == 0) {
+                revocationList.advance();
+                long processed = now / TICK * TICK;
+                for (Map.Entry<Long, Long> entry : expiries.entrySet()) {
+                    boolean revoked = revocationList.isRevoked(entry.getKey());
+                    if (entry.getValue() > now) {
+                        assertTrue(revoked, "未过期的令牌被移除");
+                    } else if (entry.getValue() <= processed) {
+                        assertFalse(revoked, "已过期的令牌未移除");
+                    }
+                }
+                expiries.values().removeIf(expiry -> expiry <= processed);
+                assertEquals(expiries.size(), revocationList.stats().get("revoked"));
+            }
+        }
+    }
+
+    private TokenRevocationList list(int wheelSize) {
+        TokenRevocationList list = new TokenRevocationList(TICK, wheelSize);
+        ReflectionTestUtils.setField(list, "clock", (LongSupplier) () -> now);
+        return list;
+    }
+}
@@ -0,0 +1,70 @@
+package com.bookstore.auth;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录令牌校验基准测试
+ * 衡量过滤器在每个请求上的校验开销：有效令牌需要解码并计算一次 HMAC-SHA256，
+ * 签名被篡改的令牌开销相同，格式错误的令牌在解码前即被拒绝。
+ * 运行（带 -prof gc 查看每次操作的分配字节数）：
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.bookstore.auth.TokenServiceBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenServiceBenchmark {
+
+    TokenService tokenService;
+
+    String validToken;
+
+    String tamperedToken;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService("1:" + Base64.getEncoder().encodeToString(new byte[32]), 3600);
+        validToken = tokenService.issue(42L);
+        char last = validToken.charAt(validToken.length() - 2);
+        tamperedToken = validToken.substring(0, validToken.length() - 2) + (last == 'A' ? 'B' : 'A')
+                + validToken.charAt(validToken.length() - 1);
+    }
+
+    @Benchmark
+    public Long verifyValid() {
+        return tokenService.verify(validToken);
+    }
+
+    @Benchmark
+    public Long verifyTampered() {
+        return tokenService.verify(tamperedToken);
+    }
+
+    @Benchmark
+    public Long verifyMalformed() {
+        return tokenService.verify("mock-token-0123456789abcdef");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long verifyValidConcurrent() {
+        return tokenService.verify(validToken);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TokenServiceBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
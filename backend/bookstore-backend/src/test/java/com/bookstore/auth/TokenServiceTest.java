@@ -0,0 +1,134 @@
+package com.bookstore.auth;
+
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 签名登录令牌测试 ====================
+ * 使用可控的时钟，不依赖数据库与 Spring 容器。
+ */
+@DisplayName("签名登录令牌测试")
+public class TokenServiceTest {
+
+    private static final String KEY_1 = Base64.getEncoder().encodeToString(secret(1));
+
+    private static final String KEY_2 = Base64.getEncoder().encodeToString(secret(2));
+
+    private long now = 1_700_000_000_000L;
+
+    private TokenService tokenService;
+
+    @BeforeEach
+    public void setUp() {
+        tokenService = service("1:" + KEY_1, 3600);
+    }
+
+    /** TK01: 签发的令牌可以校验出用户ID与过期时间，每次签发的令牌不同 */
+    @Test
+    @DisplayName("TK01: 签发与校验")
+    public void testIssueAndVerify_TK01() {
+        String token = tokenService.issue(42L);
+
+        assertEquals(42L, tokenService.verify(token));
+        TokenService.Claims claims = tokenService.parse(token);
+        assertEquals(42L, claims.userId());
+        assertEquals(now + 3600_000L, claims.expiresAtMillis());
+        assertNotEquals(claims.tokenId(), tokenService.parse(tokenService.issue(42L)).tokenId());
+    }
+
+    /** TK02: 到达过期时间后令牌失效 */
+    @Test
+    @DisplayName("TK02: 过期")
+    public void testExpiry_TK02() {
+        String token = tokenService.issue(7L);
+        now += 3599_999L;
+        assertEquals(7L, tokenService.verify(token));
+        now += 1;
+        assertNull(tokenService.verify(token));
+    }
+
+    /** TK03: 篡改载荷或签名、格式错误、其他密钥签发的令牌均无效 */
+    @Test
+    @DisplayName("TK03: 无效令牌")
+    public void testInvalid_TK03() {
+        String token = tokenService.issue(42L);
+        int dot = token.indexOf('.');
+
+        assertNull(tokenService.verify(null));
+        assertNull(tokenService.verify(""));
+        assertNull(tokenService.verify("mock-token-0123456789abcdef"));
+        assertNull(tokenService.verify(token.substring(1)));
+        assertNull(tokenService.verify(token.replace('.', '!')));
+        assertNull(tokenService.verify(flip(token, 3)));
+        assertNull(tokenService.verify(flip(token, dot + 5)));
+        assertNull(tokenService.verify(token.substring(0, dot + 1) + "*" + token.substring(dot + 2)));
+        assertNull(service("1:" + KEY_2, 3600).verify(token));
+    }
+
+    /** TK04: 按配置逐台重启轮换：先增加校验密钥，再切换签发密钥，最后撤下旧密钥 */
+    @Test
+    @DisplayName("TK04: 密钥轮换")
+    public void testRotate_TK04() {
+        String oldToken = tokenService.issue(1L);
+        // 第一步：所有实例仍用旧密钥签发，同时可以校验新密钥
+        TokenService prepared = service("1:" + KEY_1 + ", 2:" + KEY_2, 3600);
+        // 第二步：逐台切换为新密钥签发，新旧配置的实例可以互相校验
+        TokenService switched = service("2:" + KEY_2 + ", 1:" + KEY_1, 3600);
+        String newToken = switched.issue(2L);
+
+        assertEquals(1, prepared.stats().get("signingKeyId"));
+        assertEquals(2L, prepared.verify(newToken));
+        assertEquals(1L, switched.verify(oldToken));
+        assertEquals(2, switched.stats().get("signingKeyId"));
+        assertEquals(List.of(1, 2), switched.stats().get("verifyingKeyIds"));
+
+        // 第三步：旧令牌全部过期后撤下旧密钥
+        TokenService retired = service("2:" + KEY_2, 3600);
+        assertEquals(2L, retired.verify(newToken));
+        assertNull(retired.verify(oldToken));
+    }
+
+    /** TK05: 配置中第一个密钥用于签发，其余只用于校验；密钥缺失、过短或格式错误时拒绝启动 */
+    @Test
+    @DisplayName("TK05: 密钥配置")
+    public void testConfig_TK05() {
+        TokenService old = service("1:" + KEY_1, 3600);
+        String oldToken = old.issue(5L);
+        TokenService rotated = service("2:" + KEY_2 + ", 1:" + KEY_1, 3600);
+
+        assertEquals(2, rotated.stats().get("signingKeyId"));
+        assertEquals(5L, rotated.verify(oldToken));
+        assertNull(old.verify(rotated.issue(6L)));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService("1:" + Base64.getEncoder().encodeToString(new byte[16]), 3600));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(KEY_1, 3600));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService("256:" + KEY_1, 3600));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService("1:" + KEY_1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenService(" ", 3600));
+    }
+
+    private TokenService service(String keys, long ttlSeconds) {
+        TokenService service = new TokenService(keys, ttlSeconds);
+        ReflectionTestUtils.setField(service, "clock", (LongSupplier) () -> now);
+        return service;
+    }
+
+    private static byte[] secret(int seed) {
+        byte[] secret = new byte[32];
+        for (int i = 0; i < secret.length; i++) {
+            secret[i] = (byte) (seed * 31 + i);
+        }
+        return secret;
+    }
+
+    /** 替换指定位置的 base64url 字符 */
+    private static String flip(String token, int index) {
+        char c = token.charAt(index);
+        return token.substring(0, index) + (c == 'A' ? 'B' : 'A') + token.substring(index + 1);
+    }
+}
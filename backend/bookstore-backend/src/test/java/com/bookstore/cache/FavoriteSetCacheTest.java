@@ -0,0 +1,78 @@
+package com.bookstore.cache;
+
+import com.bookstore.mapper.FavoriteMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 用户收藏集合缓存测试 ====================
+ * 用内存中的收藏列表模拟数据库，手动触发事务同步回调。
+ */
+@DisplayName("用户收藏集合缓存测试")
+public class FavoriteSetCacheTest {
+
+    /** 已提交的收藏 */
+    private final List<Long> committed = new ArrayList<>();
+
+    private FavoriteMapper favoriteMapper;
+
+    private FavoriteSetCache favoriteSetCache;
+
+    @BeforeEach
+    public void setUp() {
+        favoriteMapper = mock(FavoriteMapper.class);
+        when(favoriteMapper.selectBookIds(1L)).thenAnswer(invocation -> new ArrayList<>(committed));
+        favoriteSetCache = new FavoriteSetCache(100, 600);
+        ReflectionTestUtils.setField(favoriteSetCache, "favoriteMapper", favoriteMapper);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /** FS01: 事务提交前其他请求看不到新收藏，提交后重新加载得到已提交的数据 */
+    @Test
+    @DisplayName("FS01: 提交后失效")
+    public void testAfterCommit_FS01() {
+        committed.add(10L);
+        assertTrue(favoriteSetCache.contains(1L, 10L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        committed.add(20L);
+        favoriteSetCache.added(1L, 20L);
+        assertFalse(favoriteSetCache.contains(1L, 20L));
+
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        assertTrue(favoriteSetCache.contains(1L, 20L));
+        verify(favoriteMapper, times(2)).selectBookIds(1L);
+    }
+
+    /** FS02: 提交前已缓存的旧集合（例如并发加载的结果）在提交后被丢弃 */
+    @Test
+    @DisplayName("FS02: 提交前加载的集合不残留")
+    public void testStaleLoad_FS02() {
+        committed.add(20L);
+        TransactionSynchronizationManager.initSynchronization();
+        favoriteSetCache.removed(1L, 20L);
+        // 提交前另一请求加载到了删除前的状态
+        assertTrue(favoriteSetCache.contains(1L, 20L));
+
+        committed.remove(20L);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+        assertFalse(favoriteSetCache.contains(1L, 20L));
+        assertArrayEquals(new long[0], favoriteSetCache.bookIds(1L));
+    }
+}
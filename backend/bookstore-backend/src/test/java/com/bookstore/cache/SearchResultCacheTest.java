@@ -0,0 +1,92 @@
+package com.bookstore.cache;
+
+import com.bookstore.index.BookSearchIndex;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 搜索结果缓存测试 ====================
+ * 使用 Mock 的搜索索引验证缓存命中、版本失效与并发请求合并。
+ */
+@DisplayName("搜索结果缓存测试")
+public class SearchResultCacheTest {
+
+    private BookSearchIndex bookSearchIndex;
+
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    public void setUp() {
+        bookSearchIndex = mock(BookSearchIndex.class);
+        searchResultCache = new SearchResultCache(bookSearchIndex, 100);
+    }
+
+    /** SR01: 规范化后相同的查询命中缓存 */
+    @Test
+    @DisplayName("SR01: 缓存命中")
+    public void testSearch_SR01_hit() {
+        when(bookSearchIndex.searchIds("java", false)).thenReturn(new long[]{1, 2});
+
+        assertArrayEquals(new long[]{1, 2}, searchResultCache.search("Java", false));
+        assertArrayEquals(new long[]{1, 2}, searchResultCache.search("JAVA", false));
+
+        verify(bookSearchIndex, times(1)).searchIds(anyString(), anyBoolean());
+        assertEquals(1L, searchResultCache.stats().get("hitCount"));
+    }
+
+    /** SR02: 目录版本变化后重新计算 */
+    @Test
+    @DisplayName("SR02: 版本失效")
+    public void testSearch_SR02_version() {
+        when(bookSearchIndex.searchIds("java", true)).thenReturn(new long[]{1}, new long[]{1, 3});
+
+        assertArrayEquals(new long[]{1}, searchResultCache.search("java", true));
+        when(bookSearchIndex.version()).thenReturn(1L);
+        assertArrayEquals(new long[]{1, 3}, searchResultCache.search("java", true));
+    }
+
+    /** SR03: 并发的相同查询只计算一次 */
+    @Test
+    @DisplayName("SR03: 并发合并")
+    public void testSearch_SR03_coalesce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bookSearchIndex.searchIds("java", false)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new long[]{7};
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<long[]>> results = new ArrayList<>();
+        results.add(pool.submit(() -> searchResultCache.search("java", false)));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            results.add(pool.submit(() -> searchResultCache.search("java", false)));
+        }
+        // 等待其余请求进入等待状态后再放行计算
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) searchResultCache.stats().get("coalescedWaiters") < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<long[]> result : results) {
+            assertArrayEquals(new long[]{7}, result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        verify(bookSearchIndex, times(1)).searchIds(anyString(), anyBoolean());
+        assertEquals(7L, searchResultCache.stats().get("coalescedWaiters"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.bookstore.counter;
+
+import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.FavoriteLeaderboard;
+import com.bookstore.mapper.BookMapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 收藏数写缓冲测试 ====================
+ * 不依赖数据库，使用 Mock 的 BookMapper 验证增量累加、合并读取与批量写回。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("收藏数写缓冲测试")
+public class FavoriteCountBufferTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    @InjectMocks
+    private FavoriteCountBuffer favoriteCountBuffer;
+
+    /** FB01: 并发累加不丢失 */
+    @Test
+    @DisplayName("FB01: 并发累加不丢失")
+    public void testAdd_FB01_concurrent() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8000; i++) {
+            pool.execute(() -> favoriteCountBuffer.add(1L, 1));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(8000, favoriteCountBuffer.pending(1L));
+    }
+
+    /** FB02: 读取时合并增量并限制在 [0, 上限] */
+    @Test
+    @DisplayName("FB02: 合并增量并限制范围")
+    public void testMerge_FB02() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setFavoriteCount(999);
+        favoriteCountBuffer.add(1L, 1);
+        favoriteCountBuffer.add(1L, 1);
+        assertEquals(1000, favoriteCountBuffer.merge(book).getFavoriteCount());
+
+        Book other = new Book();
+        other.setId(2L);
+        favoriteCountBuffer.add(2L, -1);
+        assertEquals(0, favoriteCountBuffer.merge(other).getFavoriteCount());
+        assertNull(favoriteCountBuffer.merge(null));
+    }
+
+    /** FB03: 写回时合并为一次批量更新，写回后不再有待写增量 */
+    @Test
+    @DisplayName("FB03: 批量写回")
+    public void testFlush_FB03() {
+        favoriteCountBuffer.add(1L, 1);
+        favoriteCountBuffer.add(1L, 1);
+        favoriteCountBuffer.add(2L, -1);
+        favoriteCountBuffer.add(3L, 1);
+        favoriteCountBuffer.add(3L, -1);
+
+        favoriteCountBuffer.flush();
+
+        verify(bookMapper, times(1)).applyFavoriteCountDeltas(eq(Map.of(1L, 2L, 2L, -1L)), eq(1000));
+        assertEquals(0, favoriteCountBuffer.pending(1L));
+        assertEquals(0, favoriteCountBuffer.pending(2L));
+
+        favoriteCountBuffer.flush();
+        verifyNoMoreInteractions(bookMapper);
+    }
+
+    /** FB04: 写回失败时增量放回缓冲 */
+    @Test
+    @DisplayName("FB04: 写回失败重试")
+    public void testFlush_FB04_failure() {
+        favoriteCountBuffer.add(1L, 1);
+        when(bookMapper.applyFavoriteCountDeltas(anyMap(), anyInt())).thenThrow(new RuntimeException("db down"));
+
+        favoriteCountBuffer.flush();
+
+        assertEquals(1, favoriteCountBuffer.pending(1L));
+        verify(bookSearchIndex, never()).updateFavoriteCounts(any());
+    }
+}
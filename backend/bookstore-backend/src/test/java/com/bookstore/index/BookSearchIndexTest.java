@@ -0,0 +1,503 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.utils.TextTokenizer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 图书搜索索引测试 ====================
+ * 不依赖数据库，使用 Mock 的 BookMapper 验证倒排索引与原子串匹配语义一致。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("图书搜索索引测试")
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Mock
+    private BookSimilarityIndex bookSimilarityIndex;
+
+    @InjectMocks
+    private BookSearchIndex bookSearchIndex;
+
+    private List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        books = new ArrayList<>();
+        books.add(book(1L, "Java编程思想", "Bruce Eckel", "编程", "Java经典教程"));
+        books.add(book(2L, "Effective Java", "Joshua Bloch", "编程", "Java进阶书籍"));
+        books.add(book(3L, "Python入门", "Bruce Lee", "编程", "Python基础教程"));
+        books.add(book(4L, "JavaScript高级程序设计", null, "前端", "JavaScript权威指南"));
+        when(bookMapper.selectList(null)).thenReturn(books);
+        bookSearchIndex.rebuild();
+    }
+
+    /** SI01: 空查询返回全部图书，按id升序 */
+    @Test
+    @DisplayName("SI01: 空查询返回全部图书")
+    public void testSearch_SI01_emptyQuery() {
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(bookSearchIndex.search(null, false)));
+        assertEquals(List.of(1L, 2L, 3L, 4L), ids(bookSearchIndex.search("  ", false)));
+    }
+
+    /** SI02: 长查询（超过gram长度）忽略大小写匹配 */
+    @Test
+    @DisplayName("SI02: 长查询忽略大小写匹配")
+    public void testSearch_SI02_longQueryIgnoreCase() {
+        assertEquals(List.of(1L, 2L, 4L), ids(bookSearchIndex.search("JAVA", false)));
+        assertEquals(List.of(1L, 3L), ids(bookSearchIndex.search("bruce", false)));
+    }
+
+    /** SI03: 短查询（单字、双字）匹配 */
+    @Test
+    @DisplayName("SI03: 短查询匹配")
+    public void testSearch_SI03_shortQuery() {
+        assertEquals(List.of(1L, 2L, 3L), ids(bookSearchIndex.search("编程", false)));
+        assertEquals(List.of(3L), ids(bookSearchIndex.search("入", false)));
+    }
+
+    /** SI04: 描述字段仅在 includeDescription 时参与匹配 */
+    @Test
+    @DisplayName("SI04: 描述字段匹配开关")
+    public void testSearch_SI04_description() {
+        assertTrue(bookSearchIndex.search("权威指南", false).isEmpty());
+        assertEquals(List.of(4L), ids(bookSearchIndex.search("权威指南", true)));
+    }
+
+    /** SI05: 各 gram 都出现但不构成连续子串时不匹配 */
+    @Test
+    @DisplayName("SI05: 候选集需子串校验")
+    public void testSearch_SI05_verifyCandidates() {
+        assertTrue(bookSearchIndex.search("javaeckel", false).isEmpty());
+    }
+
+    /** SI06: 刷新后新增、修改、删除均反映到索引 */
+    @Test
+    @DisplayName("SI06: 按id刷新索引")
+    public void testRefresh_SI06() {
+        Book added = book(5L, "深入理解Java虚拟机", "周志明", "编程", null);
+        when(bookMapper.selectById(5L)).thenReturn(added);
+        bookSearchIndex.refresh(5L);
+        assertEquals(List.of(5L), ids(bookSearchIndex.search("虚拟机", false)));
+
+        when(bookMapper.selectById(3L)).thenReturn(book(3L, "Go语言实战", "Bruce Lee", "编程", null));
+        bookSearchIndex.refresh(3L);
+        assertTrue(bookSearchIndex.search("Python", false).isEmpty());
+        assertEquals(List.of(3L), ids(bookSearchIndex.search("go语言", false)));
+
+        when(bookMapper.selectById(1L)).thenReturn(null);
+        bookSearchIndex.refresh(1L);
+        assertEquals(List.of(2L, 4L, 5L), ids(bookSearchIndex.search("java", false)));
+    }
+
+    /** SI07: 返回结果为副本，修改不影响索引 */
+    @Test
+    @DisplayName("SI07: 返回结果为副本")
+    public void testSearch_SI07_returnsCopies() {
+        bookSearchIndex.search("Python", false).get(0).setName("被修改");
+        assertEquals("Python入门", bookSearchIndex.search("Python", false).get(0).getName());
+    }
+
+    /** SI08: 写回后的收藏数覆盖快照，null 视为0；图书是否存在不复制图书 */
+    @Test
+    @DisplayName("SI08: 收藏数覆盖")
+    public void testUpdateFavoriteCounts_SI08() {
+        Map<Long, Integer> counts = new HashMap<>();
+        counts.put(3L, 2);
+        bookSearchIndex.updateFavoriteCounts(counts);
+        assertEquals(2, bookSearchIndex.search("Python", false).get(0).getFavoriteCount());
+        counts.put(3L, null);
+        bookSearchIndex.updateFavoriteCounts(counts);
+        assertEquals(0, bookSearchIndex.search("Python", false).get(0).getFavoriteCount());
+        assertTrue(bookSearchIndex.contains(3L));
+        assertFalse(bookSearchIndex.contains(99L));
+        assertFalse(bookSearchIndex.contains(null));
+    }
+
+    /** SI09: 批量写入与收藏数更新；仅收藏数变化时版本号不变 */
+    @Test
+    @DisplayName("SI09: 批量更新与版本号")
+    public void testPutAll_SI09() {
+        long version = bookSearchIndex.version();
+        bookSearchIndex.updateFavoriteCounts(Map.of(1L, 7, 4L, 3, 99L, 1));
+        assertEquals(version, bookSearchIndex.version());
+        assertEquals(7, bookSearchIndex.get(1L).getFavoriteCount());
+        assertEquals(3, bookSearchIndex.get(4L).getFavoriteCount());
+
+        bookSearchIndex.putAll(List.of(
+                book(6L, "Rust权威指南", "Steve", "编程", null),
+                book(2L, "Effective Kotlin", "Marcin", "编程", null)));
+        assertTrue(bookSearchIndex.version() > version);
+        assertEquals(List.of(1L, 4L), ids(bookSearchIndex.search("java", false)));
+        assertEquals(List.of(2L), ids(bookSearchIndex.search("kotlin", false)));
+        assertEquals(List.of(4L, 6L), ids(bookSearchIndex.search("权威指南", true)));
+        assertEquals(7, bookSearchIndex.get(1L).getFavoriteCount());
+        assertNull(bookSearchIndex.get(99L));
+    }
+
+    /** SI10: 读取期间发布的新快照不影响已返回的结果 */
+    @Test
+    @DisplayName("SI10: 快照隔离")
+    public void testSnapshot_SI10() {
+        long[] before = bookSearchIndex.searchIds("bruce", false);
+        when(bookMapper.selectById(1L)).thenReturn(null);
+        bookSearchIndex.refresh(1L);
+
+        assertArrayEquals(new long[]{1, 3}, before);
+        assertArrayEquals(new long[]{3}, bookSearchIndex.searchIds("bruce", false));
+        assertEquals(List.of(3L), ids(bookSearchIndex.get(new long[]{1, 3})));
+    }
+
+    /** SI11: 分类过滤与关键词组合，未设置分类归入“未分类” */
+    @Test
+    @DisplayName("SI11: 分类过滤")
+    public void testCategory_SI11() {
+        assertArrayEquals(new long[]{1, 2, 3}, bookSearchIndex.filterByCategory(null, "编程"));
+        assertArrayEquals(new long[]{1, 3}, bookSearchIndex.filterByCategory(bookSearchIndex.searchIds("bruce", false), "编程"));
+        assertArrayEquals(new long[0], bookSearchIndex.filterByCategory(bookSearchIndex.searchIds("java", false), "不存在"));
+        assertArrayEquals(new long[]{1, 2, 4}, bookSearchIndex.filterByCategory(bookSearchIndex.searchIds("java", false), null));
+
+        bookSearchIndex.putAll(List.of(book(5L, "杂记", "佚名", " ", null)));
+        assertArrayEquals(new long[]{5}, bookSearchIndex.filterByCategory(null, BookSearchIndex.UNCATEGORIZED));
+    }
+
+    /** SI12: 分类计数随新增、改分类、删除增量维护 */
+    @Test
+    @DisplayName("SI12: 分类计数增量维护")
+    public void testFacets_SI12() {
+        assertEquals(Map.of("编程", 3L, "前端", 1L), bookSearchIndex.facets(null));
+        assertEquals(List.of("编程", "前端"), List.copyOf(bookSearchIndex.facets(null).keySet()));
+        assertEquals(Map.of("编程", 2L, "前端", 1L), bookSearchIndex.facets(bookSearchIndex.searchIds("java", false)));
+
+        Map<String, Long> before = bookSearchIndex.facets(null);
+        bookSearchIndex.putAll(List.of(book(2L, "Effective Java", "Joshua Bloch", "前端", null)));
+        when(bookMapper.selectById(4L)).thenReturn(null);
+        bookSearchIndex.refresh(4L);
+
+        assertEquals(Map.of("编程", 3L, "前端", 1L), before);
+        assertEquals(Map.of("编程", 2L, "前端", 1L), bookSearchIndex.facets(null));
+        assertArrayEquals(new long[]{2}, bookSearchIndex.filterByCategory(null, "前端"));
+
+        when(bookMapper.selectById(2L)).thenReturn(null);
+        bookSearchIndex.refresh(2L);
+        assertEquals(Map.of("编程", 2L), bookSearchIndex.facets(null));
+    }
+
+    /** SI13: 按价格排序与价格区间分页；价格变更后排列被归并更新 */
+    @Test
+    @DisplayName("SI13: 价格排序与区间")
+    public void testSortedByPrice_SI13() {
+        bookSearchIndex.putAll(List.of(
+                priced(book(1L, "Java编程思想", "Bruce Eckel", "编程", null), "99.00"),
+                priced(book(2L, "Effective Java", "Joshua Bloch", "编程", null), "59.50"),
+                priced(book(3L, "Python入门", "Bruce Lee", "编程", null), "59.50"),
+                priced(book(4L, "JavaScript高级程序设计", null, "前端", null), "129.00")));
+
+        BookSearchIndex.SortedPage page = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.PRICE, true, null, null, null, 0, 3);
+        assertArrayEquals(new long[]{2, 3, 1}, page.ids());
+        assertEquals(4, page.total());
+        page = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.PRICE, false, null, 5950L, 9900L, 1, 10);
+        assertArrayEquals(new long[]{3, 2}, page.ids());
+        assertEquals(3, page.total());
+
+        Book last = priced(book(3L, null, null, null, null), "59.50");
+        assertArrayEquals(new long[]{1, 4}, bookSearchIndex.sortedAfter(BookSearchIndex.SortKey.PRICE, true, null, null, null, last, 5));
+        assertArrayEquals(new long[]{2}, bookSearchIndex.sortedAfter(BookSearchIndex.SortKey.PRICE, false, null, null, null, last, 5));
+
+        bookSearchIndex.putAll(List.of(priced(book(4L, "JavaScript高级程序设计", null, "前端", null), "9.90")));
+        assertArrayEquals(new long[]{4, 2, 3, 1},
+                bookSearchIndex.sortedPage(BookSearchIndex.SortKey.PRICE, true, null, null, null, 0, 10).ids());
+        assertArrayEquals(new long[]{4}, bookSearchIndex.filterByPrice(null, null, 1000L));
+        assertArrayEquals(new long[]{1, 2}, bookSearchIndex.filterByPrice(new long[]{1, 2, 4}, 5000L, null));
+    }
+
+    /** SI14: 按书名、创建时间排序，与候选集和价格条件组合 */
+    @Test
+    @DisplayName("SI14: 书名与创建时间排序")
+    public void testSortedByNameAndCreateTime_SI14() {
+        assertArrayEquals(new long[]{2, 4, 1, 3},
+                bookSearchIndex.sortedPage(BookSearchIndex.SortKey.NAME, true, null, null, null, 0, 10).ids());
+        BookSearchIndex.SortedPage page = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.NAME, false,
+                bookSearchIndex.searchIds("java", false), null, null, 0, 2);
+        assertArrayEquals(new long[]{1, 4}, page.ids());
+        assertEquals(3, page.total());
+        // 未设置价格按0计
+        assertEquals(0, bookSearchIndex.sortedPage(BookSearchIndex.SortKey.NAME, true, null, 1L, null, 0, 10).total());
+
+        Book newest = book(5L, "Go语言", "Alan", "编程", null);
+        newest.setCreateTime(LocalDateTime.of(2024, 1, 2, 0, 0));
+        Book older = book(6L, "C语言", "Dennis", "编程", null);
+        older.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        bookSearchIndex.putAll(List.of(newest, older));
+        assertArrayEquals(new long[]{5, 6, 4}, bookSearchIndex.sortedPage(BookSearchIndex.SortKey.CREATE_TIME, false,
+                null, null, null, 0, 3).ids());
+    }
+
+    /** SI15: 随机增删改后预排序视图与整体重新排序的结果一致 */
+    @Test
+    @DisplayName("SI15: 预排序视图与重新排序一致")
+    public void testSortedRandom_SI15() {
+        Random random = new Random(16);
+        Map<Long, Book> expected = new TreeMap<>();
+        books.forEach(book -> expected.put(book.getId(), book));
+        for (int round = 0; round < 200; round++) {
+            List<Book> changes = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                long id = 1 + random.nextInt(60);
+                Book book = priced(book(id, "书" + random.nextInt(30), null, "c" + random.nextInt(3), null),
+                        random.nextInt(2000) + "." + random.nextInt(10));
+                book.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(100)));
+                changes.add(book);
+                expected.put(id, book);
+            }
+            bookSearchIndex.putAll(changes);
+            if (random.nextInt(4) == 0) {
+                long id = 1 + random.nextInt(60);
+                when(bookMapper.selectById(id)).thenReturn(null);
+                bookSearchIndex.refresh(id);
+                expected.remove(id);
+            }
+        }
+
+        Comparator<Book> byPrice = Comparator.comparingLong((Book book) -> BookSearchIndex.priceCents(book.getPrice()))
+                .thenComparing(Book::getId);
+        long[] all = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.PRICE, true, null, null, null, 0, 1000).ids();
+        assertArrayEquals(expected.values().stream().sorted(byPrice).mapToLong(Book::getId).toArray(), all);
+
+        Comparator<Book> byName = Comparator.comparing((Book book) -> book.getName() == null ? "" : book.getName())
+                .thenComparing(Book::getId);
+        long[] candidates = bookSearchIndex.filterByCategory(null, "c1");
+        BookSearchIndex.SortedPage page = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.NAME, false,
+                candidates, 50000L, 150000L, 2, 5);
+        long[] expectedIds = expected.values().stream()
+                .filter(book -> "c1".equals(book.getCategory()))
+                .filter(book -> BookSearchIndex.priceCents(book.getPrice()) >= 50000
+                        && BookSearchIndex.priceCents(book.getPrice()) <= 150000)
+                .sorted(byName.reversed()).mapToLong(Book::getId).toArray();
+        assertEquals(expectedIds.length, page.total());
+        assertArrayEquals(Arrays.copyOfRange(expectedIds, Math.min(2, expectedIds.length), Math.min(7, expectedIds.length)),
+                page.ids());
+    }
+
+    /** SI16: 词元检索忽略全角半角，单字与词内片段通过词表后缀展开 */
+    @Test
+    @DisplayName("SI16: 词元检索")
+    public void testTokenSearch_SI16() {
+        assertEquals(List.of(1L, 2L, 4L), ids(bookSearchIndex.search("ＪＡＶＡ", false)));
+        assertEquals(List.of(4L), ids(bookSearchIndex.search("avaS", false)));
+        assertEquals(List.of(1L), ids(bookSearchIndex.search("a编程思", false)));
+        assertEquals(List.of(1L), ids(bookSearchIndex.search("想", false)));
+        assertEquals(List.of(1L, 3L), ids(bookSearchIndex.search("bruce ", false)));
+        assertEquals(List.of(2L), ids(bookSearchIndex.search("e j", false)));
+        assertTrue(bookSearchIndex.search("程序设计思想", false).isEmpty());
+    }
+
+    /** SI17: 随机中英文混排的增删改后，检索结果与归一化后逐本 contains 一致 */
+    @Test
+    @DisplayName("SI17: 词元检索与逐本匹配一致")
+    public void testTokenSearchRandom_SI17() {
+        String alphabet = "编程思想入门设计ab ＡcＢ-,";
+        Random random = new Random(17);
+        Map<Long, Book> expected = new TreeMap<>();
+        books.forEach(book -> expected.put(book.getId(), book));
+        for (int round = 0; round < 300; round++) {
+            long id = 1 + random.nextInt(80);
+            if (random.nextInt(5) == 0) {
+                when(bookMapper.selectById(id)).thenReturn(null);
+                bookSearchIndex.refresh(id);
+                expected.remove(id);
+            } else {
+                Book book = book(id, randomText(random, alphabet, 8), randomText(random, alphabet, 4), null,
+                        randomText(random, alphabet, 12));
+                bookSearchIndex.putAll(List.of(book));
+                expected.put(id, book);
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            String query = randomText(random, alphabet, 1 + random.nextInt(4));
+            if (query.isBlank()) {
+                continue;
+            }
+            boolean includeDescription = random.nextBoolean();
+            String folded = TextTokenizer.normalize(query);
+            List<Long> brute = expected.values().stream()
+                    .filter(book -> Stream.of(book.getName(), book.getAuthor(), book.getCategory(),
+                                    includeDescription ? book.getDescription() : null)
+                            .anyMatch(text -> text != null && TextTokenizer.normalize(text).contains(folded)))
+                    .map(Book::getId).collect(Collectors.toList());
+            assertEquals(brute, ids(bookSearchIndex.search(query, includeDescription)), query);
+        }
+    }
+
+    /** SI18: 定期比对时数据库无变化不发布新快照；只改价格不递增版本号，改文本递增 */
+    @Test
+    @DisplayName("SI18: 全量比对与版本号")
+    public void testRebuildDiff_SI18() {
+        long version = bookSearchIndex.version();
+        clearInvocations(bookSuggestIndex, bookSimilarityIndex);
+        bookSearchIndex.rebuild();
+        assertEquals(version, bookSearchIndex.version());
+        verifyNoInteractions(bookSuggestIndex, bookSimilarityIndex);
+
+        List<Book> rows = new ArrayList<>(books);
+        rows.set(2, priced(book(3L, "Python入门", "Bruce Lee", "编程", "Python基础教程"), "45.00"));
+        when(bookMapper.selectList(null)).thenReturn(rows);
+        bookSearchIndex.rebuild();
+        assertEquals(version, bookSearchIndex.version());
+        assertEquals(new BigDecimal("45.00"), bookSearchIndex.get(3L).getPrice());
+
+        rows.set(2, book(3L, "Go语言实战", "Bruce Lee", "编程", null));
+        rows.remove(3);
+        bookSearchIndex.rebuild();
+        assertTrue(bookSearchIndex.version() > version);
+        assertEquals(List.of(3L), ids(bookSearchIndex.search("go语言", false)));
+        assertNull(bookSearchIndex.get(4L));
+        verify(bookSuggestIndex).remove(4L);
+    }
+
+    /** SI19: 全量读库期间的增量写入不被较早读到的数据覆盖 */
+    @Test
+    @DisplayName("SI19: 重建期间的增量写入")
+    public void testRebuildConcurrentWrite_SI19() {
+        List<Book> rows = new ArrayList<>(books);
+        rows.add(book(5L, "深入理解Java虚拟机", "周志明", "编程", null));
+        when(bookMapper.selectList(null)).thenAnswer(invocation -> {
+            // 读库期间另一请求修改了图书2并增加了收藏
+            bookSearchIndex.putAll(List.of(book(2L, "Effective Kotlin", "Marcin", "编程", null)));
+            bookSearchIndex.updateFavoriteCounts(Map.of(1L, 1));
+            return rows;
+        });
+        bookSearchIndex.rebuild();
+
+        assertEquals(List.of(2L), ids(bookSearchIndex.search("kotlin", false)));
+        assertEquals(1, bookSearchIndex.get(1L).getFavoriteCount());
+        assertEquals(List.of(5L), ids(bookSearchIndex.search("虚拟机", false)));
+    }
+
+    /** SI20: 图书详情在进入快照时规范化，搜索仍按原文匹配；统计详情命中率 */
+    @Test
+    @DisplayName("SI20: 图书详情规范化")
+    public void testDetail_SI20() {
+        bookSearchIndex.putAll(List.of(priced(book(5L, "杂记", "", null, null), "-1")));
+        Book detail = bookSearchIndex.detail(5L);
+        assertEquals(BookSearchIndex.UNKNOWN_AUTHOR, detail.getAuthor());
+        assertEquals(BookSearchIndex.UNCATEGORIZED, detail.getCategory());
+        assertEquals(new BigDecimal("0.00"), detail.getPrice());
+        assertEquals("", bookSearchIndex.get(5L).getAuthor());
+        assertTrue(bookSearchIndex.search("未知作者", false).isEmpty());
+
+        bookSearchIndex.updateFavoriteCounts(Map.of(4L, 2));
+        detail = bookSearchIndex.detail(4L);
+        assertEquals(BookSearchIndex.UNKNOWN_AUTHOR, detail.getAuthor());
+        assertEquals(2, detail.getFavoriteCount());
+        assertEquals("Bruce Eckel", bookSearchIndex.detail(1L).getAuthor());
+        assertNull(bookSearchIndex.detail(99L));
+
+        Map<String, Object> stats = bookSearchIndex.stats();
+        assertEquals(3L, stats.get("detailHitCount"));
+        assertEquals(1L, stats.get("detailMissCount"));
+        assertEquals(0.75, stats.get("detailHitRate"));
+    }
+
+    /** SI21: 按更新时间降序的预排序视图，未设置更新时间的排在最后；游标分页不重复、不遗漏 */
+    @Test
+    @DisplayName("SI21: 更新时间排序")
+    public void testSortedByUpdateTime_SI21() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Book> updated = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            Book book = new Book(books.get((int) id - 1));
+            book.setUpdateTime(id == 2 ? null : base.plusHours(id % 3));
+            updated.add(book);
+        }
+        bookSearchIndex.putAll(updated);
+
+        // 更新时间 1:1h 3:0h 4:1h 2:null
+        BookSearchIndex.SortedPage page = bookSearchIndex.sortedPage(BookSearchIndex.SortKey.UPDATE_TIME, false,
+                null, null, null, 0, 10);
+        assertArrayEquals(new long[]{4, 1, 3, 2}, page.ids());
+        Book last = new Book();
+        last.setId(1L);
+        last.setUpdateTime(base.plusHours(1));
+        assertArrayEquals(new long[]{3, 2}, bookSearchIndex.sortedAfter(BookSearchIndex.SortKey.UPDATE_TIME, false,
+                null, null, null, last, 5));
+        assertArrayEquals(new long[]{1, 3}, bookSearchIndex.sortedAfter(BookSearchIndex.SortKey.UPDATE_TIME, false,
+                bookSearchIndex.searchIds("bruce", false), null, null, null, 5));
+    }
+
+    /** SI22: 文本不变的写入共享词元索引，版本号不变；统计报告单次写入的复制量 */
+    @Test
+    @DisplayName("SI22: 写入复制范围")
+    public void testWriteSharesTerms_SI22() {
+        TermIndex terms = snapshot().terms;
+        long version = bookSearchIndex.version();
+        bookSearchIndex.putAll(List.of(priced(new Book(books.get(2)), "42.50")));
+        assertSame(terms, snapshot().terms);
+        assertEquals(version, bookSearchIndex.version());
+        assertArrayEquals(new long[]{3}, bookSearchIndex.filterByPrice(null, 4250L, 4250L));
+
+        bookSearchIndex.putAll(List.of(book(3L, "Python进阶", "Bruce Lee", "编程", "Python基础教程")));
+        assertNotSame(terms, snapshot().terms);
+        assertEquals(version + 1, bookSearchIndex.version());
+        assertEquals(4L * CatalogSnapshot.BYTES_PER_BOOK, bookSearchIndex.stats().get("copyBytesPerWrite"));
+    }
+
+    private CatalogSnapshot snapshot() {
+        return (CatalogSnapshot) ReflectionTestUtils.getField(bookSearchIndex, "catalog");
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    private static Book priced(Book book, String price) {
+        book.setPrice(new BigDecimal(price));
+        return book;
+    }
+
+    private static List<Long> ids(List<Book> result) {
+        return result.stream().map(Book::getId).collect(Collectors.toList());
+    }
+
+    private static Book book(Long id, String name, String author, String category, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setCategory(category);
+        book.setDescription(description);
+        return book;
+    }
+}
@@ -0,0 +1,146 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 相似图书索引测试 ====================
+ * 哈希参数由固定种子生成，结果可复现，不依赖数据库。
+ */
+@DisplayName("相似图书索引测试")
+public class BookSimilarityIndexTest {
+
+    private BookSimilarityIndex bookSimilarityIndex;
+
+    @BeforeEach
+    public void setUp() {
+        bookSimilarityIndex = new BookSimilarityIndex(16, 2, 500);
+        List<Book> books = new ArrayList<>();
+        books.add(book(1L, "Java编程思想", "编程", "Java语言经典教程，面向对象编程"));
+        books.add(book(2L, "Java编程思想（第4版）", "编程", "Java语言经典教程，面向对象编程"));
+        books.add(book(3L, "Java核心技术", "编程", "Java语言经典教程"));
+        books.add(book(4L, "红楼梦", "文学", "中国古典小说"));
+        books.add(book(5L, null, null, null));
+        bookSimilarityIndex.rebuild(books);
+    }
+
+    /** SM01: 内容相近的图书排在前面，不含自身，不相关的图书不出现 */
+    @Test
+    @DisplayName("SM01: 相似度排序")
+    public void testSimilar_SM01() {
+        long[] similar = bookSimilarityIndex.similar(1L, 10);
+        assertTrue(similar.length >= 1);
+        assertEquals(2L, similar[0]);
+        for (long id : similar) {
+            assertNotEquals(1L, id);
+            assertNotEquals(4L, id);
+        }
+        assertTrue(bookSimilarityIndex.similarity(1L, 2L) > bookSimilarityIndex.similarity(1L, 4L));
+        assertEquals(1, bookSimilarityIndex.similar(1L, 1).length);
+    }
+
+    /** SM02: 没有文本或未收录的图书返回空 */
+    @Test
+    @DisplayName("SM02: 未收录图书")
+    public void testSimilar_SM02() {
+        assertEquals(0, bookSimilarityIndex.similar(5L, 10).length);
+        assertEquals(0, bookSimilarityIndex.similar(99L, 10).length);
+        assertEquals(0, bookSimilarityIndex.similar(null, 10).length);
+        assertEquals(0, bookSimilarityIndex.similar(1L, 0).length);
+    }
+
+    /** SM03: 更新文本后按新内容匹配，删除后不再出现 */
+    @Test
+    @DisplayName("SM03: 增量维护")
+    public void testSimilar_SM03() {
+        bookSimilarityIndex.put(book(4L, "Java编程思想精要", "编程", "Java语言经典教程，面向对象编程"));
+        assertTrue(contains(bookSimilarityIndex.similar(1L, 10), 4L));
+
+        bookSimilarityIndex.remove(2L);
+        assertFalse(contains(bookSimilarityIndex.similar(1L, 10), 2L));
+        assertEquals(0, bookSimilarityIndex.similar(2L, 10).length);
+
+        bookSimilarityIndex.put(book(6L, "红楼梦", "文学", "中国古典小说"));
+        bookSimilarityIndex.put(book(7L, "红楼梦（脂评本）", "文学", "中国古典小说"));
+        assertArrayEquals(new long[]{6L}, bookSimilarityIndex.similar(7L, 1));
+    }
+
+    /** SM04: 随机增删改后的结果与按最终状态全量重建的结果一致 */
+    @Test
+    @DisplayName("SM04: 增量维护与全量重建一致")
+    public void testSimilar_SM04_incrementalMatchesRebuild() {
+        Random random = new Random(42);
+        String[] words = {"Java", "Python", "编程", "入门", "经典", "小说", "历史", "设计", "数据", "算法"};
+        List<Book> current = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            current.add(book(id, randomText(random, words), words[random.nextInt(3)], randomText(random, words)));
+        }
+        bookSimilarityIndex.rebuild(current);
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(current.size());
+            Book book = current.get(index);
+            if (random.nextInt(10) == 0) {
+                bookSimilarityIndex.remove(book.getId());
+                current.set(index, book(book.getId(), null, null, null));
+            } else {
+                Book updated = book(book.getId(), randomText(random, words), words[random.nextInt(3)],
+                        randomText(random, words));
+                bookSimilarityIndex.put(updated);
+                current.set(index, updated);
+            }
+        }
+
+        BookSimilarityIndex rebuilt = new BookSimilarityIndex(16, 2, 500);
+        rebuilt.rebuild(current);
+        for (long id = 1; id <= 200; id++) {
+            assertArrayEquals(rebuilt.similar(id, 20), bookSimilarityIndex.similar(id, 20), "id=" + id);
+        }
+    }
+
+    /** SM05: 候选数上限限制单次查询评估的图书数 */
+    @Test
+    @DisplayName("SM05: 候选数上限")
+    public void testSimilar_SM05_maxCandidates() {
+        BookSimilarityIndex limited = new BookSimilarityIndex(16, 2, 3);
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            books.add(book(id, "Java编程思想", "编程", "Java语言经典教程"));
+        }
+        limited.rebuild(books);
+        assertEquals(3, limited.similar(1L, 10).length);
+        assertEquals(1.0, limited.similarity(1L, 2L));
+    }
+
+    private static boolean contains(long[] ids, long id) {
+        for (long value : ids) {
+            if (value == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String randomText(Random random, String[] words) {
+        StringBuilder text = new StringBuilder();
+        int n = 1 + random.nextInt(4);
+        for (int i = 0; i < n; i++) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.toString();
+    }
+
+    private static Book book(Long id, String name, String category, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setCategory(category);
+        book.setDescription(description);
+        return book;
+    }
+}
@@ -0,0 +1,141 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Book;
+import org.junit.jupiter.api.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 图书前缀联想测试 ====================
+ * 使用真实的排行榜提供收藏数，不依赖数据库。
+ */
+@DisplayName("图书前缀联想测试")
+public class BookSuggestIndexTest {
+
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    private BookSuggestIndex bookSuggestIndex;
+
+    @BeforeEach
+    public void setUp() {
+        favoriteLeaderboard = new FavoriteLeaderboard();
+        bookSuggestIndex = new BookSuggestIndex();
+        ReflectionTestUtils.setField(bookSuggestIndex, "favoriteLeaderboard", favoriteLeaderboard);
+        List<Book> books = new ArrayList<>();
+        books.add(book(1L, "Java编程思想", "Bruce Eckel", 5));
+        books.add(book(2L, "Effective Java", "Joshua Bloch", 9));
+        books.add(book(3L, "JavaScript高级程序设计", "Nicholas Zakas", 7));
+        books.add(book(4L, "Python入门", "Bruce Lee", 1));
+        books.forEach(b -> favoriteLeaderboard.put(b.getId(), b.getFavoriteCount()));
+        bookSuggestIndex.rebuild(books);
+    }
+
+    /** SG01: 书名、作者及单词开头的前缀匹配，按收藏数降序 */
+    @Test
+    @DisplayName("SG01: 前缀匹配与排序")
+    public void testSuggest_SG01() {
+        assertArrayEquals(new long[]{2, 3, 1}, bookSuggestIndex.suggest("JAVA", 10));
+        assertArrayEquals(new long[]{3}, bookSuggestIndex.suggest("javas", 10));
+        assertArrayEquals(new long[]{1, 4}, bookSuggestIndex.suggest("bruce", 10));
+        assertArrayEquals(new long[]{4}, bookSuggestIndex.suggest("lee", 10));
+        assertArrayEquals(new long[]{2}, bookSuggestIndex.suggest("java", 1));
+        assertEquals(0, bookSuggestIndex.suggest("编程", 10).length);
+        assertEquals(0, bookSuggestIndex.suggest(" ", 10).length);
+    }
+
+    /** SG02: 增量更新与删除，空节点被回收 */
+    @Test
+    @DisplayName("SG02: 增量维护")
+    public void testPut_SG02() {
+        bookSuggestIndex.put(book(2L, "Effective Kotlin", "Marcin", 9));
+        assertArrayEquals(new long[]{3, 1}, bookSuggestIndex.suggest("java", 10));
+        assertArrayEquals(new long[]{2}, bookSuggestIndex.suggest("kot", 10));
+
+        bookSuggestIndex.remove(1L);
+        bookSuggestIndex.remove(3L);
+        assertEquals(0, bookSuggestIndex.suggest("java", 10).length);
+        assertEquals(0, bookSuggestIndex.suggest("bruce e", 10).length);
+        assertArrayEquals(new long[]{4}, bookSuggestIndex.suggest("bruce", 10));
+
+        bookSuggestIndex.remove(2L);
+        bookSuggestIndex.remove(4L);
+        assertEquals(1L, bookSuggestIndex.stats().get("nodes"));
+    }
+
+    /** SG03: 收藏数变化后排序随之变化 */
+    @Test
+    @DisplayName("SG03: 按当前收藏数排序")
+    public void testSuggest_SG03_ranking() {
+        favoriteLeaderboard.adjust(1L, 10);
+        assertArrayEquals(new long[]{1, 2, 3}, bookSuggestIndex.suggest("java", 10));
+    }
+
+    /** SG04: 大规模数据下前缀子树很大时沿排行榜取前 N，结果与逐本比较一致，并给出内存估算 */
+    @Test
+    @DisplayName("SG04: 大规模数据")
+    public void testSuggest_SG04_large() {
+        Random random = new Random(42);
+        String[] words = {"java", "python", "spring", "data", "design", "deep", "learning", "go", "rust", "web"};
+        List<Book> books = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+            books.add(book(id, name, "author" + random.nextInt(5000), random.nextInt(1001)));
+            favoriteLeaderboard.put(id, books.get(books.size() - 1).getFavoriteCount());
+        }
+        bookSuggestIndex.rebuild(books);
+
+        long[] top = bookSuggestIndex.suggest("de", 5);
+        List<Book> expected = new ArrayList<>();
+        for (Book book : books) {
+            if (book.getName().startsWith("de") || book.getName().contains(" de")) {
+                expected.add(book);
+            }
+        }
+        expected.sort((a, b) -> a.getFavoriteCount().equals(b.getFavoriteCount())
+                ? Long.compare(b.getId(), a.getId())
+                : Integer.compare(b.getFavoriteCount(), a.getFavoriteCount()));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(expected.get(i).getId(), top[i]);
+        }
+
+        Map<String, Object> stats = bookSuggestIndex.stats();
+        System.out.println("suggest index stats: " + stats);
+        assertTrue((long) stats.get("bytesPerBook") < 1024);
+    }
+
+    /** SG05: 与检索相同的归一化：全角字符与半角等价，大小写折叠不受默认语言环境影响 */
+    @Test
+    @DisplayName("SG05: 全角与语言环境")
+    public void testNormalize_SG05() {
+        assertArrayEquals(new long[]{2, 3, 1}, bookSuggestIndex.suggest("ＪＡＶＡ", 10));
+        assertArrayEquals(new long[]{4}, bookSuggestIndex.suggest("ｐｙ", 10));
+
+        Locale original = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            bookSuggestIndex.put(book(5L, "ＳＱＬ必知必会", "Ian Forta", 2));
+            assertArrayEquals(new long[]{5}, bookSuggestIndex.suggest("sql", 10));
+            // 土耳其语环境下 toLowerCase 把 I 转成无点的 ı，作者 Ian 将无法用 ian 联想到
+            assertArrayEquals(new long[]{5}, bookSuggestIndex.suggest("ian", 10));
+            assertArrayEquals(new long[]{5}, bookSuggestIndex.suggest("IAN", 10));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    private static Book book(Long id, String name, String author, int favoriteCount) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setFavoriteCount(favoriteCount);
+        return book;
+    }
+}
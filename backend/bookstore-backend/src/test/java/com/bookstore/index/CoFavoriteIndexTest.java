@@ -0,0 +1,190 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.FavoriteMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * ==================== 收藏共现索引测试 ====================
+ * 用内存中的收藏表模拟流式扫描，不依赖数据库。
+ */
+@DisplayName("收藏共现索引测试")
+public class CoFavoriteIndexTest {
+
+    /** userId -> 收藏的图书ID，按用户、图书升序模拟收藏表 */
+    private final Map<Long, TreeSet<Long>> favorites = Collections.synchronizedMap(new TreeMap<>());
+
+    /** CF01: 启动扫描构建，按共同收藏的用户数降序、ID升序 */
+    @Test
+    @DisplayName("CF01: 扫描构建")
+    public void testRebuild_CF01() {
+        favorite(1L, 10L, 11L, 12L);
+        favorite(2L, 10L, 11L);
+        favorite(3L, 10L, 13L);
+        CoFavoriteIndex index = index(50, 500);
+
+        assertArrayEquals(new long[]{11, 12, 13}, index.alsoFavorited(10L, 10));
+        assertArrayEquals(new long[]{11}, index.alsoFavorited(10L, 1));
+        assertArrayEquals(new long[]{10, 12}, index.alsoFavorited(11L, 10));
+        assertEquals(0, index.alsoFavorited(99L, 10).length);
+        assertEquals(0, index.alsoFavorited(null, 10).length);
+    }
+
+    /** CF02: 随机收藏/取消收藏（含越过用户收藏上限）后与按最终收藏表重建的结果一致 */
+    @Test
+    @DisplayName("CF02: 增量维护与重建一致")
+    public void testIncremental_CF02() {
+        CoFavoriteIndex index = index(1000, 6);
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            long userId = 1 + random.nextInt(20);
+            long bookId = 1 + random.nextInt(30);
+            TreeSet<Long> books = favorites.computeIfAbsent(userId, k -> new TreeSet<>());
+            if (books.add(bookId)) {
+                index.added(userId, bookId);
+            } else {
+                books.remove(bookId);
+                index.removed(userId, bookId);
+            }
+        }
+
+        CoFavoriteIndex rebuilt = index(1000, 6);
+        for (long bookId = 1; bookId <= 30; bookId++) {
+            assertArrayEquals(rebuilt.alsoFavorited(bookId, 100), index.alsoFavorited(bookId, 100), "bookId=" + bookId);
+        }
+    }
+
+    /** CF03: 每本书的共现表按 topK 裁剪，计数最高的图书保留 */
+    @Test
+    @DisplayName("CF03: topK 裁剪")
+    public void testPrune_CF03() {
+        CoFavoriteIndex index = index(2, 500);
+        for (long userId = 1; userId <= 3; userId++) {
+            favorite(userId, 1L, 2L);
+            index.added(userId, 1L);
+            index.added(userId, 2L);
+        }
+        favorite(4L, 1L, 3L);
+        index.added(4L, 1L);
+        index.added(4L, 3L);
+        favorite(5L, 1L);
+        index.added(5L, 1L);
+        for (long other = 100; other < 110; other++) {
+            favorite(5L, other);
+            index.added(5L, other);
+        }
+
+        assertArrayEquals(new long[]{2, 3}, index.alsoFavorited(1L, 10));
+        Map<String, Object> stats = index.stats();
+        assertTrue(((Number) stats.get("entries")).longValue() <= 4L * ((Number) stats.get("books")).longValue());
+    }
+
+    /** CF04: 同一用户并发收藏两本书，后提交的事务等先提交的计入后才提交，两本书的共现只计一次 */
+    @Test
+    @DisplayName("CF04: 同一用户并发收藏")
+    public void testConcurrentAdds_CF04() throws InterruptedException {
+        favorite(2L, 10L, 12L);
+        favorite(3L, 10L, 12L);
+        CoFavoriteIndex index = index(50, 500);
+        TransactionSynchronization first = register(() -> index.added(1L, 10L));
+        TransactionSynchronization second = register(() -> index.added(1L, 11L));
+
+        first.beforeCommit(false);
+        favorite(1L, 10L);
+        Thread other = new Thread(() -> {
+            second.beforeCommit(false);
+            favorite(1L, 11L);
+            second.afterCommit();
+            second.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        });
+        other.start();
+        other.join(200);
+        assertTrue(other.isAlive(), "第二个事务应等待第一个计入后再提交");
+        first.afterCommit();
+        first.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        other.join(5000);
+        assertFalse(other.isAlive());
+
+        // 10 与 12 共现 2 次，与 11 共现 1 次；重复计数时 11 会因计数相同、ID较小排到前面
+        assertArrayEquals(new long[]{12, 11}, index.alsoFavorited(10L, 10));
+        CoFavoriteIndex rebuilt = index(50, 500);
+        assertArrayEquals(rebuilt.alsoFavorited(11L, 10), index.alsoFavorited(11L, 10));
+    }
+
+    /** CF05: 事务回滚时不计入共现并释放用户锁，之后其他线程的收藏仍然计入 */
+    @Test
+    @DisplayName("CF05: 事务回滚")
+    public void testRollback_CF05() throws InterruptedException {
+        favorite(1L, 10L);
+        CoFavoriteIndex index = index(50, 500);
+        TransactionSynchronization rolledBack = register(() -> index.added(1L, 11L));
+        rolledBack.beforeCommit(false);
+        rolledBack.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertEquals(0, index.alsoFavorited(10L, 10).length);
+
+        favorite(1L, 12L);
+        Thread other = new Thread(() -> index.added(1L, 12L));
+        other.start();
+        other.join(5000);
+        assertFalse(other.isAlive());
+        assertArrayEquals(new long[]{12}, index.alsoFavorited(10L, 10));
+    }
+
+    /**
+     * 在模拟的事务中执行操作，返回其注册的事务回调
+     */
+    private static TransactionSynchronization register(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+            return TransactionSynchronizationManager.getSynchronizations().get(0);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void favorite(Long userId, Long... bookIds) {
+        TreeSet<Long> books = favorites.computeIfAbsent(userId, k -> new TreeSet<>());
+        for (Long bookId : bookIds) {
+            books.add(bookId);
+        }
+    }
+
+    private CoFavoriteIndex index(int topK, int maxUserFavorites) {
+        FavoriteMapper favoriteMapper = Mockito.mock(FavoriteMapper.class);
+        doAnswer(invocation -> {
+            ResultHandler<Favorite> handler = invocation.getArgument(0);
+            DefaultResultContext<Favorite> context = new DefaultResultContext<>();
+            favorites.forEach((userId, books) -> books.forEach(bookId -> {
+                context.nextResultObject(new Favorite(userId, bookId));
+                handler.handleResult(context);
+            }));
+            return null;
+        }).when(favoriteMapper).selectAllForScan(any());
+        doAnswer(invocation -> new ArrayList<>(favorites.getOrDefault(invocation.<Long>getArgument(0), new TreeSet<>())))
+                .when(favoriteMapper).selectBookIds(anyLong());
+
+        CoFavoriteIndex index = new CoFavoriteIndex(topK, maxUserFavorites);
+        ReflectionTestUtils.setField(index, "favoriteMapper", favoriteMapper);
+        index.rebuild();
+        return index;
+    }
+}
@@ -0,0 +1,119 @@
+package com.bookstore.index;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 收藏量排行榜测试 ====================
+ * 不依赖数据库，直接通过 put/adjust/remove 构造排行榜。
+ */
+@DisplayName("收藏量排行榜测试")
+public class FavoriteLeaderboardTest {
+
+    private FavoriteLeaderboard leaderboard;
+
+    @BeforeEach
+    public void setUp() {
+        leaderboard = new FavoriteLeaderboard();
+        leaderboard.put(1L, 5);
+        leaderboard.put(2L, 10);
+        leaderboard.put(3L, 5);
+        leaderboard.put(4L, 0);
+    }
+
+    /** LB01: 按 (收藏数, id) 排序取前后 N 名 */
+    @Test
+    @DisplayName("LB01: 排行顺序")
+    public void testTop_LB01() {
+        assertArrayEquals(new long[]{2, 3, 1}, leaderboard.top(3, false));
+        assertArrayEquals(new long[]{4, 1, 3, 2}, leaderboard.top(4, true));
+        assertArrayEquals(new long[]{2, 3, 1, 4}, leaderboard.top(100, false));
+    }
+
+    /** LB02: 增量调整、上下限截断与移除 */
+    @Test
+    @DisplayName("LB02: 调整与移除")
+    public void testAdjust_LB02() {
+        leaderboard.adjust(4L, 20);
+        leaderboard.adjust(2L, -100);
+        leaderboard.adjust(99L, 1);
+        assertArrayEquals(new long[]{4, 3, 1, 2}, leaderboard.top(4, false));
+
+        leaderboard.put(1L, 5000);
+        assertArrayEquals(new long[]{1}, leaderboard.top(1, false));
+
+        leaderboard.remove(1L);
+        assertEquals(3, leaderboard.size());
+        assertArrayEquals(new long[]{4, 3, 2}, leaderboard.top(4, false));
+    }
+
+    /** LB03: 并发调整与读取，结束后无重复键 */
+    @Test
+    @DisplayName("LB03: 并发调整")
+    public void testConcurrent_LB03() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            long id = 1 + i % 4;
+            pool.execute(() -> {
+                leaderboard.adjust(id, 1);
+                assertTrue(leaderboard.top(4, false).length <= 4);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        // 每本书各加了1000，超过上限的截断为1000，按 id 降序
+        assertArrayEquals(new long[]{4, 3, 2, 1}, leaderboard.top(10, false));
+    }
+
+    /** LB04: 按游标接着取下一页，升降序都不重复、不遗漏 */
+    @Test
+    @DisplayName("LB04: 游标分页")
+    public void testAfter_LB04() {
+        assertArrayEquals(new long[]{3, 1}, leaderboard.after(10, 2L, 2, false, id -> true));
+        assertArrayEquals(new long[]{1, 4}, leaderboard.after(5, 3L, 5, false, id -> true));
+        assertArrayEquals(new long[]{3, 2}, leaderboard.after(5, 1L, 5, true, id -> true));
+        assertArrayEquals(new long[]{4}, leaderboard.after(5, 3L, 5, false, id -> id % 2 == 0));
+        assertEquals(0, leaderboard.after(0, 4L, 5, false, id -> true).length);
+    }
+
+    /** LB05: 候选集分页：候选较少时对候选排序，较多时沿排行榜遍历，两种方式与整体排序的结果一致 */
+    @Test
+    @DisplayName("LB05: 候选集分页")
+    public void testCandidates_LB05() {
+        FavoriteLeaderboard large = new FavoriteLeaderboard();
+        Random random = new Random(5);
+        for (long id = 1; id <= 400; id++) {
+            large.put(id, random.nextInt(20));
+        }
+        for (int size : new int[]{10, 300}) {
+            long[] candidates = random.longs(size, 1, 401).distinct().sorted().toArray();
+            for (boolean asc : new boolean[]{true, false}) {
+                Comparator<Long> order = Comparator.comparingInt((Long id) -> large.favoriteCount(id)).thenComparing(id -> id);
+                long[] expected = Arrays.stream(candidates).boxed().sorted(asc ? order : order.reversed())
+                        .mapToLong(Long::longValue).toArray();
+
+                assertArrayEquals(Arrays.copyOfRange(expected, 3, Math.min(10, expected.length)),
+                        large.page(candidates, asc, 3, 7));
+                List<Long> walked = new ArrayList<>();
+                long[] page = large.page(candidates, asc, 0, 4);
+                while (page.length > 0) {
+                    Arrays.stream(page).forEach(walked::add);
+                    long last = page[page.length - 1];
+                    page = large.after(candidates, large.favoriteCount(last), last, asc, 4);
+                }
+                assertArrayEquals(expected, walked.stream().mapToLong(Long::longValue).toArray());
+            }
+        }
+    }
+}
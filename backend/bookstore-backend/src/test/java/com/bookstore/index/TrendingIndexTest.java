@@ -0,0 +1,195 @@
+package com.bookstore.index;
+
+import com.bookstore.entity.Favorite;
+import com.bookstore.mapper.FavoriteMapper;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * ==================== 收藏趋势索引测试 ====================
+ * 使用可控的时钟与内存中的收藏记录，不依赖数据库。
+ */
+@DisplayName("收藏趋势索引测试")
+public class TrendingIndexTest {
+
+    private static final long MINUTE = 60_000L;
+
+    private static final long HOUR = 60 * MINUTE;
+
+    /** 起始时间取整点后 30 分钟，便于推算桶的归属 */
+    private static final long START = 480_000L * HOUR + 30 * MINUTE;
+
+    private long now = START;
+
+    private final List<Favorite> favorites = new ArrayList<>();
+
+    private TrendingIndex trendingIndex;
+
+    @BeforeEach
+    public void setUp() {
+        trendingIndex = index();
+    }
+
+    /** TR01: 越近的收藏权重越高，1h 与 7d 窗口的排序不同 */
+    @Test
+    @DisplayName("TR01: 指数衰减")
+    public void testDecay_TR01() {
+        for (int i = 0; i < 3; i++) {
+            trendingIndex.added(1L);
+        }
+        now += 50 * MINUTE;
+        trendingIndex.added(2L);
+        trendingIndex.added(2L);
+
+        assertArrayEquals(new long[]{2, 1}, trendingIndex.top(TrendingIndex.Window.HOUR, 10));
+        assertArrayEquals(new long[]{1, 2}, trendingIndex.top(TrendingIndex.Window.WEEK, 10));
+        assertArrayEquals(new long[]{2}, trendingIndex.top(TrendingIndex.Window.HOUR, 1));
+    }
+
+    /** TR02: 滑出窗口的收藏不再计分 */
+    @Test
+    @DisplayName("TR02: 窗口滑动")
+    public void testWindow_TR02() {
+        trendingIndex.added(1L);
+        now += 2 * HOUR;
+        assertEquals(0, trendingIndex.top(TrendingIndex.Window.HOUR, 10).length);
+        assertArrayEquals(new long[]{1}, trendingIndex.top(TrendingIndex.Window.DAY, 10));
+        now += 28 * HOUR;
+        assertEquals(0, trendingIndex.top(TrendingIndex.Window.DAY, 10).length);
+        assertArrayEquals(new long[]{1}, trendingIndex.top(TrendingIndex.Window.WEEK, 10));
+        now += 7 * 24 * HOUR;
+        assertEquals(0, trendingIndex.top(TrendingIndex.Window.WEEK, 10).length);
+
+        // 槽位释放后重新收藏，旧计数不会残留
+        trendingIndex.evictIdle();
+        assertEquals(0, trendingIndex.stats().get("books"));
+        trendingIndex.added(3L);
+        trendingIndex.removed(3L);
+        assertEquals(1, trendingIndex.stats().get("slots"));
+        trendingIndex.added(1L);
+        assertArrayEquals(new long[]{1}, trendingIndex.top(TrendingIndex.Window.WEEK, 10));
+    }
+
+    /** TR03: 启动时从收藏记录构建，结果与逐条在线记录一致 */
+    @Test
+    @DisplayName("TR03: 扫描构建")
+    public void testRebuild_TR03() {
+        Random random = new Random(3);
+        TrendingIndex online = index();
+        long begin = now;
+        for (int i = 0; i < 3000; i++) {
+            now = begin + (long) i * 4 * MINUTE;
+            long bookId = 1 + random.nextInt(40);
+            online.added(bookId);
+            favorites.add(favorite(bookId, now));
+        }
+        // 早于 7 天的记录不计分
+        favorites.add(favorite(41L, begin - 8 * 24 * HOUR));
+
+        TrendingIndex rebuilt = index();
+        for (TrendingIndex.Window window : TrendingIndex.Window.values()) {
+            assertArrayEquals(online.top(window, 50), rebuilt.top(window, 50), window.name());
+        }
+    }
+
+    /** TR04: 随机收藏/取消收藏与按桶直接计算的分数排序一致 */
+    @Test
+    @DisplayName("TR04: 与直接计算一致")
+    public void testRandom_TR04() {
+        Random random = new Random(4);
+        Map<Long, Map<Long, Integer>> minuteBuckets = new HashMap<>();
+        Map<Long, Map<Long, Integer>> hourBuckets = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            now += random.nextInt(3) == 0 ? (long) random.nextInt(120) * MINUTE : 0;
+            long bookId = 1 + random.nextInt(30);
+            int delta = random.nextInt(4) == 0 ? -1 : 1;
+            if (delta > 0) {
+                trendingIndex.added(bookId);
+            } else {
+                trendingIndex.removed(bookId);
+            }
+            minuteBuckets.computeIfAbsent(bookId, k -> new HashMap<>()).merge(now / MINUTE, delta, Integer::sum);
+            hourBuckets.computeIfAbsent(bookId, k -> new HashMap<>()).merge(now / HOUR, delta, Integer::sum);
+
+            if (i % 500 == 0) {
+                now += random.nextInt(30) * MINUTE;
+                for (TrendingIndex.Window window : TrendingIndex.Window.values()) {
+                    boolean minutes = window == TrendingIndex.Window.HOUR;
+                    int buckets = minutes ? 60 : window == TrendingIndex.Window.DAY ? 24 : 168;
+                    long current = minutes ? now / MINUTE : now / HOUR;
+                    List<double[]> expected = new ArrayList<>();
+                    for (long id = 1; id <= 30; id++) {
+                        Map<Long, Integer> counts = (minutes ? minuteBuckets : hourBuckets).getOrDefault(id, Map.of());
+                        double score = 0;
+                        for (int age = 0; age < buckets; age++) {
+                            score += Math.pow(0.5, age / (buckets / 4.0)) * counts.getOrDefault(current - age, 0);
+                        }
+                        if (score > 0) {
+                            expected.add(new double[]{score, id});
+                        }
+                    }
+                    expected.sort(Comparator.<double[]>comparingDouble(e -> -e[0]).thenComparingDouble(e -> e[1]));
+                    long[] ids = expected.stream().limit(10).mapToLong(e -> (long) e[1]).toArray();
+                    assertArrayEquals(ids, trendingIndex.top(window, 10), window.name() + " at " + i);
+                }
+            }
+        }
+    }
+
+    /** TR05: 不支持的窗口参数 */
+    @Test
+    @DisplayName("TR05: 窗口参数解析")
+    public void testWindowOf_TR05() {
+        assertEquals(TrendingIndex.Window.DAY, TrendingIndex.Window.of("24H"));
+        assertEquals(TrendingIndex.Window.WEEK, TrendingIndex.Window.of("7d"));
+        assertThrows(IllegalArgumentException.class, () -> TrendingIndex.Window.of("30d"));
+        assertThrows(IllegalArgumentException.class, () -> TrendingIndex.Window.of(null));
+    }
+
+    private Favorite favorite(long bookId, long millis) {
+        Favorite favorite = new Favorite();
+        favorite.setBookId(bookId);
+        favorite.setCreateTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+        return favorite;
+    }
+
+    private TrendingIndex index() {
+        FavoriteMapper favoriteMapper = Mockito.mock(FavoriteMapper.class);
+        doAnswer(invocation -> {
+            LocalDateTime since = invocation.getArgument(0);
+            ResultHandler<Favorite> handler = invocation.getArgument(1);
+            DefaultResultContext<Favorite> context = new DefaultResultContext<>();
+            for (Favorite favorite : favorites) {
+                if (!favorite.getCreateTime().isBefore(since)) {
+                    context.nextResultObject(favorite);
+                    handler.handleResult(context);
+                }
+            }
+            return null;
+        }).when(favoriteMapper).selectSinceForScan(any(), any());
+
+        TrendingIndex index = new TrendingIndex();
+        ReflectionTestUtils.setField(index, "favoriteMapper", favoriteMapper);
+        ReflectionTestUtils.setField(index, "clock", (LongSupplier) () -> now);
+        index.rebuild();
+        return index;
+    }
+}
@@ -1,9 +1,11 @@
 package com.bookstore.service;
 
+import com.bookstore.counter.FavoriteCountBuffer;
 import com.bookstore.entity.Book;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -25,6 +27,10 @@ public class BookSearchTest {
     @Autowired
     private BookService bookService;
 
+    /** 收藏数经缓冲在事务提交后计入：SS04-SS06 在事务外执行，写回后再读库，创建的图书由 tearDown 删除 */
+    @Autowired
+    private FavoriteCountBuffer favoriteCountBuffer;
+
     private List<Book> testBooks;
 
     @BeforeEach
@@ -117,6 +123,7 @@ public class BookSearchTest {
      * SS04: 收藏数为null，设置为0并返回true
      */
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("SS04: 收藏数为null，设置为0并返回true")
     public void testDecrementFavoriteCount_SS04_favoriteCountNull() {
         Book book = new Book();
@@ -128,6 +135,7 @@ public class BookSearchTest {
         bookService.save(book);
         testBooks.add(book);
         assertTrue(bookService.decrementFavoriteCount(book.getId()));
+        favoriteCountBuffer.flush();
         Book updated = bookService.getById(book.getId());
         assertEquals(0, updated.getFavoriteCount());
     }
@@ -136,6 +144,7 @@ public class BookSearchTest {
      * SS05: 收藏数大于0，减1并返回true
      */
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("SS05: 收藏数大于0，减1并返回true")
     public void testDecrementFavoriteCount_SS05_favoriteCountGT0() {
         Book book = new Book();
@@ -147,6 +156,7 @@ public class BookSearchTest {
         bookService.save(book);
         testBooks.add(book);
         assertTrue(bookService.decrementFavoriteCount(book.getId()));
+        favoriteCountBuffer.flush();
         Book updated = bookService.getById(book.getId());
         assertEquals(4, updated.getFavoriteCount());
     }
@@ -155,6 +165,7 @@ public class BookSearchTest {
      * SS06: 收藏数为0，不变并返回true
      */
     @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     @DisplayName("SS06: 收藏数为0，不变并返回true")
     public void testDecrementFavoriteCount_SS06_favoriteCountZero() {
         Book book = new Book();
@@ -166,6 +177,7 @@ public class BookSearchTest {
         bookService.save(book);
         testBooks.add(book);
         assertTrue(bookService.decrementFavoriteCount(book.getId()));
+        favoriteCountBuffer.flush();
         Book updated = bookService.getById(book.getId());
         assertEquals(0, updated.getFavoriteCount());
     }
@@ -0,0 +1,249 @@
+package com.bookstore.service.impl;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.bookstore.cache.SearchResultCache;
+import com.bookstore.counter.FavoriteCountBuffer;
+import com.bookstore.dto.BookListQuery;
+import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.BookSimilarityIndex;
+import com.bookstore.index.BookSuggestIndex;
+import com.bookstore.index.FavoriteLeaderboard;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.utils.PageCursor;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 图书列表键集分页测试 ====================
+ * 不依赖数据库：目录快照与排行榜使用真实实现，由 Mock 的 BookMapper 加载；
+ * 验证有过滤条件时各排序方式按游标逐页取完全部匹配图书，既不重复也不遗漏。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("图书列表键集分页测试")
+public class BookServiceImplTest {
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private FavoriteCountBuffer favoriteCountBuffer;
+
+    @Mock
+    private SearchResultCache searchResultCache;
+
+    private BookSearchIndex bookSearchIndex;
+
+    private FavoriteLeaderboard favoriteLeaderboard;
+
+    private BookServiceImpl bookService;
+
+    private List<Book> books;
+
+    @BeforeEach
+    public void setUp() {
+        books = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (long id = 1; id <= 60; id++) {
+            Book book = new Book();
+            book.setId(id);
+            book.setName("书" + id);
+            book.setCategory(id % 3 == 0 ? "编程" : "文学");
+            book.setPrice(new BigDecimal(10 + id % 7));
+            book.setFavoriteCount((int) (id * 7 % 5));
+            // 更新时间有重复，检验相同排序键按ID区分
+            book.setUpdateTime(base.plusMinutes(id % 4));
+            books.add(book);
+        }
+
+        bookSearchIndex = new BookSearchIndex();
+        ReflectionTestUtils.setField(bookSearchIndex, "bookMapper", bookMapper);
+        ReflectionTestUtils.setField(bookSearchIndex, "bookSuggestIndex", mock(BookSuggestIndex.class));
+        ReflectionTestUtils.setField(bookSearchIndex, "bookSimilarityIndex", mock(BookSimilarityIndex.class));
+        when(bookMapper.selectList(null)).thenReturn(books);
+        bookSearchIndex.rebuild();
+
+        favoriteLeaderboard = new FavoriteLeaderboard();
+        books.forEach(book -> favoriteLeaderboard.put(book.getId(), book.getFavoriteCount()));
+
+        bookService = new BookServiceImpl();
+        ReflectionTestUtils.setField(bookService, "baseMapper", bookMapper);
+        ReflectionTestUtils.setField(bookService, "bookSearchIndex", bookSearchIndex);
+        ReflectionTestUtils.setField(bookService, "favoriteLeaderboard", favoriteLeaderboard);
+        ReflectionTestUtils.setField(bookService, "favoriteCountBuffer", favoriteCountBuffer);
+        ReflectionTestUtils.setField(bookService, "searchResultCache", searchResultCache);
+        lenient().when(favoriteCountBuffer.merge(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    /** BK01: 有分类条件时按更新时间逐页取完，升降序均与整体排序一致，页码分页与游标分页一致 */
+    @Test
+    @DisplayName("BK01: 更新时间游标分页")
+    public void testUpdateTimeCursor_BK01() {
+        BookListQuery query = new BookListQuery();
+        query.setCategory("编程");
+        for (boolean asc : new boolean[]{true, false}) {
+            query.setOrder(asc ? "asc" : "desc");
+            Comparator<Book> order = Comparator.comparing(Book::getUpdateTime).thenComparing(Book::getId);
+            List<Long> expected = books.stream().filter(book -> "编程".equals(book.getCategory()))
+                    .sorted(asc ? order : order.reversed())
+                    .map(Book::getId).collect(Collectors.toList());
+
+            List<Long> walked = new ArrayList<>();
+            List<Book> page = bookService.listBooksAfter(query, null, 3);
+            while (!page.isEmpty()) {
+                page.forEach(book -> walked.add(book.getId()));
+                Book last = page.get(page.size() - 1);
+                page = bookService.listBooksAfter(query,
+                        PageCursor.decode(PageCursor.encode(last.getUpdateTime(), last.getId())), 3);
+            }
+            assertEquals(expected, walked);
+
+            IPage<Book> second = bookService.pageBooks(query, 2, 3);
+            assertEquals(expected.size(), second.getTotal());
+            assertEquals(expected.subList(3, 6), ids(second.getRecords()));
+        }
+    }
+
+    /** BK02: 有价格条件时按收藏量逐页取完，升降序均与整体排序一致 */
+    @Test
+    @DisplayName("BK02: 收藏量游标分页")
+    public void testFavoriteCountCursor_BK02() {
+        BookListQuery query = new BookListQuery();
+        query.setMinPrice(new BigDecimal("12"));
+        query.setMaxPrice(new BigDecimal("14"));
+        for (boolean asc : new boolean[]{true, false}) {
+            query.setOrder(asc ? "asc" : "desc");
+            Comparator<Book> order = Comparator.comparing(Book::getFavoriteCount).thenComparing(Book::getId);
+            List<Long> expected = books.stream()
+                    .filter(book -> book.getPrice().compareTo(new BigDecimal("12")) >= 0
+                            && book.getPrice().compareTo(new BigDecimal("14")) <= 0)
+                    .sorted(asc ? order : order.reversed())
+                    .map(Book::getId).collect(Collectors.toList());
+
+            List<Long> walked = new ArrayList<>();
+            List<Book> page = bookService.listBooksByFavoriteCountAfter(query, null, 4);
+            while (!page.isEmpty()) {
+                page.forEach(book -> walked.add(book.getId()));
+                Book last = page.get(page.size() - 1);
+                page = bookService.listBooksByFavoriteCountAfter(query,
+                        PageCursor.decode(PageCursor.encode(last.getFavoriteCount(), last.getId())), 4);
+            }
+            assertEquals(expected, walked);
+
+            IPage<Book> second = bookService.pageBooksByFavoriteCount(query, 2, 4);
+            assertEquals(expected.size(), second.getTotal());
+            assertEquals(expected.subList(4, 8), ids(second.getRecords()));
+        }
+    }
+
+    /** BK03: 无过滤条件时游标 (更新时间, ID) 与排序方向原样传给数据库；缺少更新时间的游标无效 */
+    @Test
+    @DisplayName("BK03: 数据库键集分页参数")
+    public void testDatabaseCursor_BK03() {
+        BookListQuery query = new BookListQuery();
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 3);
+        when(bookMapper.selectByUpdateTimeAfter(eq(time), eq(7L), anyBoolean(), eq(5))).thenReturn(new ArrayList<>());
+        bookService.listBooksAfter(query, PageCursor.decode(PageCursor.encode(time, 7L)), 5);
+        verify(bookMapper).selectByUpdateTimeAfter(time, 7L, false, 5);
+        query.setOrder("asc");
+        bookService.listBooksAfter(query, PageCursor.decode(PageCursor.encode(time, 7L)), 5);
+        verify(bookMapper).selectByUpdateTimeAfter(time, 7L, true, 5);
+
+        PageCursor noTime = PageCursor.decode(PageCursor.encode(null, 7L));
+        assertThrows(IllegalArgumentException.class, () -> bookService.listBooksAfter(query, noTime, 5));
+    }
+
+    /** BK04: 无过滤条件时页码分页也沿排行榜取页，含未写回增量时与游标分页的顺序和收藏数一致 */
+    @Test
+    @DisplayName("BK04: 无过滤条件的收藏量分页")
+    public void testFavoriteCountPage_BK04() {
+        // 模拟未写回的增量：排行榜已计入，数据库中的值未变
+        favoriteLeaderboard.adjust(5L, 3);
+        favoriteLeaderboard.adjust(12L, -2);
+        BookListQuery query = new BookListQuery();
+        for (boolean asc : new boolean[]{true, false}) {
+            query.setOrder(asc ? "asc" : "desc");
+            List<Book> paged = new ArrayList<>();
+            for (long current = 1; current <= 6; current++) {
+                IPage<Book> page = bookService.pageBooksByFavoriteCount(query, current, 10);
+                assertEquals(books.size(), page.getTotal());
+                paged.addAll(page.getRecords());
+            }
+            List<Book> walked = new ArrayList<>();
+            List<Book> page = bookService.listBooksByFavoriteCountAfter(query, null, 7);
+            while (!page.isEmpty()) {
+                walked.addAll(page);
+                Book last = page.get(page.size() - 1);
+                page = bookService.listBooksByFavoriteCountAfter(query,
+                        PageCursor.decode(PageCursor.encode(last.getFavoriteCount(), last.getId())), 7);
+            }
+            assertEquals(ids(walked), ids(paged));
+            for (int i = 1; i < paged.size(); i++) {
+                int previous = paged.get(i - 1).getFavoriteCount();
+                int current = paged.get(i).getFavoriteCount();
+                assertTrue(asc ? previous <= current : previous >= current, "第" + i + "条顺序错误");
+            }
+            assertEquals(favoriteLeaderboard.favoriteCount(5L),
+                    paged.stream().filter(book -> book.getId() == 5L).findFirst().orElseThrow().getFavoriteCount());
+        }
+        verify(bookMapper, never()).selectPage(any(), any());
+    }
+
+    /** BK05: 按收藏量排序的全量列表沿排行榜取出，有关键词时只含匹配结果，与分页顺序一致 */
+    @Test
+    @DisplayName("BK05: 按收藏量排序的全量列表")
+    public void testListSortedByFavoriteCount_BK05() {
+        favoriteLeaderboard.adjust(5L, 3);
+        BookListQuery query = new BookListQuery();
+        query.setOrder("asc");
+        List<Book> all = bookService.listAllBooksAndSortByFavoriteCount("", "asc");
+        assertEquals(ids(bookService.pageBooksByFavoriteCount(query, 1, books.size()).getRecords()), ids(all));
+
+        when(searchResultCache.search("书1", true)).thenReturn(new long[]{1, 10, 11, 12});
+        List<Long> expected = ids(all).stream().filter(id -> id == 1 || id >= 10 && id <= 12)
+                .collect(Collectors.toList());
+        assertEquals(expected, ids(bookService.listAllBooksAndSortByFavoriteCount("书1", "asc")));
+        List<Long> desc = ids(bookService.listAllBooksAndSortByFavoriteCount("书1", "desc"));
+        assertEquals(4, desc.size());
+        assertEquals(favoriteLeaderboard.favoriteCount(desc.get(0)),
+                expected.stream().mapToInt(favoriteLeaderboard::favoriteCount).max().orElseThrow());
+    }
+
+    /** BK06: 单独增减收藏数也写入收藏数缓冲；图书不存在、达到上限或已为0时不写入 */
+    @Test
+    @DisplayName("BK06: 增减收藏数经缓冲")
+    public void testFavoriteCountAdjust_BK06() {
+        assertFalse(bookService.incrementFavoriteCount(99L));
+        assertFalse(bookService.decrementFavoriteCount(99L));
+        favoriteLeaderboard.put(2L, FavoriteCountBuffer.MAX_FAVORITE_COUNT);
+        assertFalse(bookService.incrementFavoriteCount(2L));
+
+        assertTrue(bookService.incrementFavoriteCount(3L));
+        verify(favoriteCountBuffer).add(3L, 1);
+        assertTrue(bookService.decrementFavoriteCount(1L));
+        verify(favoriteCountBuffer).add(1L, -1);
+        // 图书5的收藏数为0
+        assertTrue(bookService.decrementFavoriteCount(5L));
+        verify(favoriteCountBuffer, never()).add(eq(5L), anyInt());
+        verify(favoriteCountBuffer, never()).add(eq(2L), anyInt());
+        verify(bookMapper, never()).updateById(any());
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,119 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 收藏列表排序拼接基准测试
+ * 对比原嵌套循环与哈希拼接在不同收藏数量下的耗时。比较规模时看每条收藏的耗时（得分 / 收藏数）：
+ * ordered 布局下图书按分配顺序访问，只反映算法本身的工作量；shuffled 布局按随机顺序访问，
+ * 数据超出 CPU 缓存后每条收藏还要多付一次缓存未命中，两种布局的结果不能混在一起比较。
+ * 运行：java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.bookstore.service.impl.FavoriteOrderBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FavoriteOrderBenchmark {
+
+    /**
+     * 哈希拼接的数据规模，最大10万条收藏
+     */
+    @State(Scope.Benchmark)
+    public static class Favorites {
+
+        @Param({"1000", "10000", "100000"})
+        int favorites;
+
+        @Param({"ordered", "shuffled"})
+        String layout;
+
+        List<Long> bookIds;
+
+        List<Book> books;
+
+        @Setup
+        public void setUp() {
+            bookIds = new ArrayList<>(favorites);
+            books = new ArrayList<>(favorites);
+            fill(bookIds, books, favorites, "shuffled".equals(layout));
+        }
+    }
+
+    /**
+     * 嵌套循环为 O(n²)，只在较小规模下对比；参数名与 {@link Favorites} 不同，避免同名参数
+     */
+    @State(Scope.Benchmark)
+    public static class FewFavorites {
+
+        @Param({"1000", "10000"})
+        int fewFavorites;
+
+        List<Long> bookIds;
+
+        List<Book> books;
+
+        @Setup
+        public void setUp() {
+            bookIds = new ArrayList<>(fewFavorites);
+            books = new ArrayList<>(fewFavorites);
+            fill(bookIds, books, fewFavorites, true);
+        }
+    }
+
+    /**
+     * 按ID顺序创建图书；shuffled 时打乱收藏顺序与数据库返回的图书顺序，两者互不相关
+     */
+    private static void fill(List<Long> bookIds, List<Book> books, int n, boolean shuffled) {
+        for (long id = 1; id <= n; id++) {
+            bookIds.add(id);
+            Book book = new Book();
+            book.setId(id);
+            books.add(book);
+        }
+        if (shuffled) {
+            Collections.shuffle(bookIds, new Random(42));
+            Collections.shuffle(books, new Random(7));
+        }
+    }
+
+    @Benchmark
+    public List<Book> hashJoin(Favorites state) {
+        return FavoriteServiceImpl.orderByIds(state.bookIds, state.books);
+    }
+
+    /**
+     * 原实现：对每个收藏ID线性查找图书
+     */
+    @Benchmark
+    public List<Book> nestedLoop(FewFavorites state) {
+        List<Book> orderedBooks = new ArrayList<>(state.books.size());
+        for (Long bookId : state.bookIds) {
+            for (Book book : state.books) {
+                if (book.getId().equals(bookId)) {
+                    orderedBooks.add(book);
+                    break;
+                }
+            }
+        }
+        return orderedBooks;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FavoriteOrderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
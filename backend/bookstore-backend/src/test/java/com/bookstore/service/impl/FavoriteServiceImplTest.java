@@ -0,0 +1,135 @@
+package com.bookstore.service.impl;
+
+import com.bookstore.cache.FavoriteSetCache;
+import com.bookstore.counter.FavoriteCountBuffer;
+import com.bookstore.entity.Book;
+import com.bookstore.index.BookSearchIndex;
+import com.bookstore.index.CoFavoriteIndex;
+import com.bookstore.index.TrendingIndex;
+import com.bookstore.mapper.BookMapper;
+import com.bookstore.mapper.FavoriteMapper;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 收藏写入测试 ====================
+ * 不依赖数据库，验证收藏/取消收藏只执行一条语句，且只在影响行数不为0时更新计数与索引。
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("收藏写入测试")
+public class FavoriteServiceImplTest {
+
+    @Mock
+    private FavoriteMapper favoriteMapper;
+
+    @Mock
+    private BookMapper bookMapper;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private FavoriteCountBuffer favoriteCountBuffer;
+
+    @Mock
+    private FavoriteSetCache favoriteSetCache;
+
+    @Mock
+    private CoFavoriteIndex coFavoriteIndex;
+
+    @Mock
+    private TrendingIndex trendingIndex;
+
+    @InjectMocks
+    private FavoriteServiceImpl favoriteService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(favoriteService, "baseMapper", favoriteMapper);
+    }
+
+    /** FW01: 新增收藏只执行一条插入，收藏数加一 */
+    @Test
+    @DisplayName("FW01: 新增收藏")
+    public void testAddFavorite_FW01_inserted() {
+        when(bookSearchIndex.contains(2L)).thenReturn(true);
+        when(favoriteMapper.insertFavorite(1L, 2L)).thenReturn(1);
+
+        assertTrue(favoriteService.addFavorite(1L, 2L));
+        verify(favoriteSetCache, never()).contains(anyLong(), anyLong());
+        verify(favoriteSetCache).added(1L, 2L);
+        verify(favoriteCountBuffer).add(2L, 1);
+        verify(coFavoriteIndex).added(1L, 2L);
+        verify(trendingIndex).added(2L);
+        verifyNoInteractions(bookMapper);
+    }
+
+    /** FW02: 重复收藏被唯一键拒绝，计数与索引不变；其他约束错误不被当作已收藏 */
+    @Test
+    @DisplayName("FW02: 重复收藏")
+    public void testAddFavorite_FW02_duplicate() {
+        when(bookSearchIndex.contains(anyLong())).thenReturn(true);
+        when(favoriteMapper.insertFavorite(1L, 2L)).thenThrow(new DuplicateKeyException("uk_favorite_user_book"));
+        when(favoriteMapper.insertFavorite(1L, 3L)).thenThrow(new DataIntegrityViolationException("data too long"));
+
+        assertFalse(favoriteService.addFavorite(1L, 2L));
+        assertThrows(DataIntegrityViolationException.class, () -> favoriteService.addFavorite(1L, 3L));
+        verifyNoInteractions(favoriteSetCache, favoriteCountBuffer, coFavoriteIndex, trendingIndex);
+    }
+
+    /** FW05: 图书不存在时不写入收藏，也不进入计数与索引；快照中没有的图书再查一次数据库 */
+    @Test
+    @DisplayName("FW05: 图书不存在")
+    public void testAddFavorite_FW05_missingBook() {
+        when(bookMapper.selectById(9L)).thenReturn(null);
+        assertEquals("图书不存在",
+                assertThrows(IllegalArgumentException.class, () -> favoriteService.addFavorite(1L, 9L)).getMessage());
+        verify(favoriteMapper, never()).insertFavorite(anyLong(), anyLong());
+        verifyNoInteractions(favoriteSetCache, favoriteCountBuffer, coFavoriteIndex, trendingIndex);
+
+        // 其他实例新增、本实例快照尚未刷新的图书由数据库确认
+        Book book = new Book();
+        book.setId(8L);
+        when(bookMapper.selectById(8L)).thenReturn(book);
+        assertTrue(favoriteService.addFavorite(1L, 8L));
+        verify(favoriteCountBuffer).add(8L, 1);
+    }
+
+    /** FW03: 取消收藏按删除的行数决定是否减少收藏数 */
+    @Test
+    @DisplayName("FW03: 取消收藏")
+    public void testRemoveFavorite_FW03() {
+        when(favoriteMapper.deleteByUserAndBook(1L, 2L)).thenReturn(1, 0);
+
+        assertTrue(favoriteService.removeFavorite(1L, 2L));
+        assertFalse(favoriteService.removeFavorite(1L, 2L));
+        verify(favoriteMapper, times(2)).deleteByUserAndBook(1L, 2L);
+        verify(favoriteSetCache, times(1)).removed(1L, 2L);
+        verify(favoriteCountBuffer, times(1)).add(2L, -1);
+        verify(coFavoriteIndex, times(1)).removed(1L, 2L);
+        verify(trendingIndex, times(1)).removed(2L);
+    }
+
+    /** FW04: 无效ID不访问数据库 */
+    @Test
+    @DisplayName("FW04: 无效ID")
+    public void testInvalidIds_FW04() {
+        assertFalse(favoriteService.addFavorite(null, 2L));
+        assertFalse(favoriteService.addFavorite(1L, -1L));
+        assertFalse(favoriteService.removeFavorite(0L, 2L));
+        verifyNoInteractions(favoriteMapper);
+        verify(favoriteCountBuffer, never()).add(any(), anyInt());
+    }
+}
@@ -0,0 +1,118 @@
+package com.bookstore.service.impl;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.bookstore.entity.User;
+import com.bookstore.index.UsernameFilter;
+import com.bookstore.mapper.UserMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * ==================== 用户名检查测试 ====================
+ * 用内存中的用户名模拟用户表扫描，验证过滤器回答不存在时不访问数据库，可能存在时只查询一次确认。
+ */
+@DisplayName("用户名检查测试")
+public class UserServiceImplTest {
+
+    private final UserMapper userMapper = Mockito.mock(UserMapper.class);
+
+    private UsernameFilter usernameFilter;
+
+    private UserServiceImpl userService;
+
+    @BeforeAll
+    public static void initTableInfo() {
+        // LambdaQueryWrapper 解析列名需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), User.class);
+    }
+
+    @BeforeEach
+    public void setUp() {
+        List<String> usernames = List.of("alice", "Bob", "José");
+        when(userMapper.selectCount(isNull())).thenReturn((long) usernames.size());
+        doAnswer(invocation -> {
+            ResultHandler<String> handler = invocation.getArgument(0);
+            DefaultResultContext<String> context = new DefaultResultContext<>();
+            for (String username : usernames) {
+                context.nextResultObject(username);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).selectUsernamesForScan(any());
+
+        usernameFilter = new UsernameFilter(1000, 0.01);
+        ReflectionTestUtils.setField(usernameFilter, "userMapper", userMapper);
+        usernameFilter.rebuild();
+        clearInvocations(userMapper);
+
+        userService = new UserServiceImpl();
+        ReflectionTestUtils.setField(userService, "baseMapper", userMapper);
+        ReflectionTestUtils.setField(userService, "usernameFilter", usernameFilter);
+    }
+
+    /** UN01: 过滤器回答不存在时不查询数据库 */
+    @Test
+    @DisplayName("UN01: 不存在的用户名")
+    public void testAbsent_UN01() {
+        assertFalse(userService.checkUsernameExists("carol"));
+        assertFalse(userService.checkUsernameExists(null));
+        verify(userMapper, never()).selectCount(any());
+        assertEquals(1L, usernameFilter.stats().get("negatives"));
+    }
+
+    /** UN02: 已存在的用户名（按数据库忽略大小写与重音的比较）经一次查询确认 */
+    @Test
+    @DisplayName("UN02: 已存在的用户名")
+    public void testPresent_UN02() {
+        when(userMapper.selectCount(any())).thenReturn(1L);
+
+        for (String username : new String[]{"alice", "ALICE", "bob ", "jose"}) {
+            clearInvocations(userMapper);
+            assertTrue(userService.checkUsernameExists(username), username);
+            verify(userMapper, times(1)).selectCount(any());
+        }
+        Map<String, Object> stats = usernameFilter.stats();
+        assertEquals(4L, stats.get("truePositives"));
+        assertEquals(0.0, stats.get("falsePositiveRate"));
+    }
+
+    /** UN03: 注册时在写入前加入过滤器，之后同名检查会查询数据库 */
+    @Test
+    @DisplayName("UN03: 注册后加入过滤器")
+    public void testRegister_UN03() {
+        when(userMapper.insert(any(User.class))).thenReturn(1);
+        User user = new User();
+        user.setUsername("dave");
+        user.setPassword("secret");
+
+        assertTrue(userService.register(user));
+        verify(userMapper, never()).selectCount(any());
+        assertTrue(usernameFilter.mightContain("Dave"));
+    }
+
+    /** UN04: 并发注册同名用户时双方都通过检查，后写入的一方被用户名唯一键拒绝，注册返回false */
+    @Test
+    @DisplayName("UN04: 并发注册同名用户")
+    public void testRegisterRace_UN04() {
+        when(userMapper.insert(any(User.class))).thenThrow(new DuplicateKeyException("uk_user_username"));
+        User user = new User();
+        user.setUsername("erin");
+        user.setPassword("secret");
+
+        assertFalse(userService.register(user));
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 布隆过滤器测试 ====================
+ */
+@DisplayName("布隆过滤器测试")
+public class BloomFilterTest {
+
+    /** BF01: 加入的元素一定命中，未加入元素的误判率接近目标值 */
+    @Test
+    @DisplayName("BF01: 无漏判且误判率接近目标")
+    public void testFalsePositiveRate_BF01() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        Random random = new Random(25);
+        long[] added = new long[100_000];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = random.nextLong();
+            filter.add(added[i]);
+        }
+        for (long hash : added) {
+            assertTrue(filter.mightContain(hash));
+        }
+
+        int falsePositives = 0;
+        int trials = 200_000;
+        for (int i = 0; i < trials; i++) {
+            if (filter.mightContain(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / trials;
+        assertTrue(rate < 0.015, "误判率 " + rate);
+        assertEquals(rate, filter.estimatedFalsePositiveRate(), 0.005);
+    }
+
+    /** BF02: 位数与哈希函数个数按公式计算，空过滤器不命中任何元素 */
+    @Test
+    @DisplayName("BF02: 容量计算")
+    public void testSizing_BF02() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        assertEquals(9600, filter.bitSize());
+        assertEquals(7, filter.hashCount());
+        assertEquals(1200, filter.memoryBytes());
+        assertEquals(0, filter.bitCount());
+        assertFalse(filter.mightContain(42L));
+        filter.add(42L);
+        assertTrue(filter.mightContain(42L));
+        assertTrue(filter.bitCount() > 0 && filter.bitCount() <= 7);
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 1));
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookstore.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 忽略大小写子串匹配基准测试
+ * 对比原实现（每个字段 toLowerCase() 后 contains）与预编译的 CaseInsensitiveMatcher
+ * 在 1 万本图书 × 4 个字段上过滤一次的耗时与分配量。
+ * 运行（带 -prof gc 查看每次操作的分配字节数）：
+ * java -cp target/test-classes:target/classes:&lt;test classpath&gt; com.bookstore.utils.CaseInsensitiveMatcherBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CaseInsensitiveMatcherBenchmark {
+
+    private static final String[] WORDS = {
+            "Java", "Python", "深度学习", "编程思想", "Effective", "数据结构", "算法导论", "Rust", "Web开发", "操作系统"
+    };
+
+    @Param({"java", "深度学习", "EFFECTIVE RUST"})
+    String query;
+
+    /** [图书][书名, 作者, 分类, 描述] */
+    String[][] books;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(18);
+        books = new String[10000][];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = new String[]{
+                    WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + i,
+                    "Author " + random.nextInt(5000),
+                    "分类" + random.nextInt(20),
+                    "这是一本关于" + WORDS[random.nextInt(WORDS.length)] + "的书，适合 Beginners 阅读，第" + i + "版"
+            };
+        }
+    }
+
+    /**
+     * 原实现：每本书每个字段都创建一个小写副本
+     */
+    @Benchmark
+    public int toLowerCaseContains() {
+        String lowerQuery = query.toLowerCase();
+        int matched = 0;
+        for (String[] fields : books) {
+            for (String field : fields) {
+                if (field.toLowerCase().contains(lowerQuery)) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int matcher() {
+        CaseInsensitiveMatcher matcher = CaseInsensitiveMatcher.compile(query);
+        int matched = 0;
+        for (String[] fields : books) {
+            for (String field : fields) {
+                if (matcher.matches(field)) {
+                    matched++;
+                    break;
+                }
+            }
+        }
+        return matched;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CaseInsensitiveMatcherBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
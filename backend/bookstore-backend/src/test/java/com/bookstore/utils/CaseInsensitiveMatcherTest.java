@@ -0,0 +1,64 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 忽略大小写匹配器测试 ====================
+ */
+@DisplayName("忽略大小写匹配器测试")
+public class CaseInsensitiveMatcherTest {
+
+    /** CM01: ASCII、中文与全角字符忽略大小写匹配 */
+    @Test
+    @DisplayName("CM01: 基本匹配")
+    public void testBasic_CM01() {
+        CaseInsensitiveMatcher matcher = CaseInsensitiveMatcher.compile("JAVA编程");
+        assertTrue(matcher.matches("Thinking in java编程思想"));
+        assertTrue(matcher.matches("ｊａｖａ编程"));
+        assertFalse(matcher.matches("java 编程"));
+        assertFalse(matcher.matches("jav"));
+        assertFalse(matcher.matches(null));
+        assertTrue(CaseInsensitiveMatcher.compile("").matches(""));
+    }
+
+    /** CM02: 完整大小写折叠：一对多展开双向匹配，可从展开结果中间开始 */
+    @Test
+    @DisplayName("CM02: 完整大小写折叠")
+    public void testFullCaseFolding_CM02() {
+        assertTrue(CaseInsensitiveMatcher.compile("STRASSE").matches("Die Straße"));
+        assertTrue(CaseInsensitiveMatcher.compile("straße").matches("STRASSE"));
+        assertTrue(CaseInsensitiveMatcher.compile("ẞ").matches("ss"));
+        assertTrue(CaseInsensitiveMatcher.compile("sa").matches("ßa"));
+        assertTrue(CaseInsensitiveMatcher.compile("file").matches("ﬁle"));
+        assertTrue(CaseInsensitiveMatcher.compile("ΟΔΟΣ").matches("οδος"));
+        assertTrue(CaseInsensitiveMatcher.compile("οδοσ").matches("ΟΔΟΣ"));
+        assertFalse(CaseInsensitiveMatcher.compile("sss").matches("ß"));
+    }
+
+    /** CM03: 随机文本上与“整体折叠后 contains”的结果一致 */
+    @Test
+    @DisplayName("CM03: 与折叠后contains一致")
+    public void testRandom_CM03() {
+        String alphabet = "aAsSßẞﬁfiIΣσς编程Ａ 𠀀";
+        Random random = new Random(18);
+        for (int i = 0; i < 20000; i++) {
+            String text = randomText(random, alphabet, random.nextInt(10));
+            String query = randomText(random, alphabet, 1 + random.nextInt(3));
+            boolean expected = CaseInsensitiveMatcher.fold(text).contains(CaseInsensitiveMatcher.fold(query));
+            assertEquals(expected, CaseInsensitiveMatcher.compile(query).matches(text), query + " in " + text);
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder();
+        int[] codePoints = alphabet.codePoints().toArray();
+        for (int i = 0; i < length; i++) {
+            text.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== CSV 读取器测试 ====================
+ */
+@DisplayName("CSV读取器测试")
+public class CsvReaderTest {
+
+    private static CsvReader reader(String text) {
+        return new CsvReader(new BufferedReader(new StringReader(text)));
+    }
+
+    /** CR01: 引号字段中的逗号、转义引号与换行 */
+    @Test
+    @DisplayName("CR01: 引号字段")
+    public void testReadRecord_CR01_quoted() throws IOException {
+        CsvReader csv = reader("name,price\n\"a, \"\"b\"\"\nc\",12.5\nd,1\n");
+
+        assertEquals(List.of("name", "price"), csv.readRecord());
+        assertEquals(List.of("a, \"b\"\nc", "12.5"), csv.readRecord());
+        assertEquals(2, csv.getLineNumber());
+        assertEquals(List.of("d", "1"), csv.readRecord());
+        assertEquals(4, csv.getLineNumber());
+        assertNull(csv.readRecord());
+    }
+
+    /** CR02: 引号未闭合 */
+    @Test
+    @DisplayName("CR02: 引号未闭合")
+    public void testReadRecord_CR02_unclosed() throws IOException {
+        CsvReader csv = reader("\"abc,1\n");
+        assertThrows(IllegalArgumentException.class, csv::readRecord);
+    }
+
+    /** CR03: CsvWriter 写出的记录可被原样读回 */
+    @Test
+    @DisplayName("CR03: 写出后读回")
+    public void testRoundTrip_CR03() throws IOException {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRecord("plain", "a,b", "say \"hi\"", "line1\nline2", null, 12);
+
+        CsvReader csv = reader(out.toString());
+        assertEquals(List.of("plain", "a,b", "say \"hi\"", "line1\nline2", "", "12"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+}
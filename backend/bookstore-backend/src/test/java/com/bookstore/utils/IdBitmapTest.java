@@ -0,0 +1,86 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 压缩ID位图测试 ====================
+ */
+@DisplayName("压缩ID位图测试")
+public class IdBitmapTest {
+
+    /** IB01: 基本增删查，跨块ID按升序输出 */
+    @Test
+    @DisplayName("IB01: 基本增删查")
+    public void testBasic_IB01() {
+        IdBitmap bitmap = new IdBitmap();
+        assertTrue(bitmap.isEmpty());
+        assertTrue(bitmap.add(70000));
+        assertTrue(bitmap.add(3));
+        assertTrue(bitmap.add(1L << 40));
+        assertFalse(bitmap.add(3));
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(4));
+        assertArrayEquals(new long[]{3, 70000, 1L << 40}, bitmap.toArray());
+        assertArrayEquals(new long[]{3, 1L << 40}, bitmap.retain(new long[]{1, 3, 5, 1L << 40}));
+
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertArrayEquals(new long[]{3, 1L << 40}, bitmap.toArray());
+    }
+
+    /** IB02: 稠密块在数组与位图容器间转换后结果不变 */
+    @Test
+    @DisplayName("IB02: 数组与位图容器转换")
+    public void testContainerConversion_IB02() {
+        IdBitmap bitmap = new IdBitmap();
+        for (long id = 0; id < 10000; id++) {
+            bitmap.add(id);
+        }
+        assertEquals(10000, bitmap.cardinality());
+        assertTrue(bitmap.memoryBytes() < 10000 * 2);
+        for (long id = 0; id < 10000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertEquals(5000, bitmap.cardinality());
+        for (long id = 1; id < 3000; id += 2) {
+            bitmap.remove(id);
+        }
+        assertEquals(3500, bitmap.cardinality());
+        long[] ids = bitmap.toArray();
+        assertEquals(3001, ids[0]);
+        assertEquals(9999, ids[ids.length - 1]);
+        assertFalse(bitmap.contains(3000));
+        assertTrue(bitmap.contains(3001));
+    }
+
+    /** IB03: 随机操作与 TreeSet 结果一致，副本互不影响 */
+    @Test
+    @DisplayName("IB03: 随机操作与TreeSet一致")
+    public void testRandomOperations_IB03() {
+        IdBitmap bitmap = new IdBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        Random random = new Random(15);
+        for (int i = 0; i < 200000; i++) {
+            long id = random.nextInt(300000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), bitmap.remove(id));
+            } else {
+                assertEquals(expected.add(id), bitmap.add(id));
+            }
+        }
+        IdBitmap copy = bitmap.copy();
+        copy.add(500000);
+        copy.remove(expected.first());
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), bitmap.toArray());
+        assertEquals(expected.size(), copy.cardinality());
+        assertFalse(bitmap.contains(500000));
+    }
+}
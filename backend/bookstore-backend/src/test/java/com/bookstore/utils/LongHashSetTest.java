@@ -0,0 +1,56 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== long 哈希集合测试 ====================
+ */
+@DisplayName("long哈希集合测试")
+public class LongHashSetTest {
+
+    /** LS01: 基本增删查，包含0与负数 */
+    @Test
+    @DisplayName("LS01: 基本增删查")
+    public void testBasic_LS01() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(0));
+        assertTrue(set.add(-5));
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+        assertEquals(3, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-5));
+        assertFalse(set.contains(7));
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertEquals("[-5, 42]", set.toString());
+    }
+
+    /** LS02: 随机操作与 HashSet 结果一致（覆盖扩容与后移删除） */
+    @Test
+    @DisplayName("LS02: 随机操作与HashSet一致")
+    public void testRandomOperations_LS02() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(2024);
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value = 0; value < 5000; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== long -> int 哈希表测试 ====================
+ */
+@DisplayName("long->int哈希表测试")
+public class LongIntHashMapTest {
+
+    /** LM01: 基本增删查与累加，包含0与负数键 */
+    @Test
+    @DisplayName("LM01: 基本增删查")
+    public void testBasic_LM01() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertTrue(map.isEmpty());
+        map.put(0, 3);
+        map.put(-5, 1);
+        assertEquals(4, map.addTo(42, 4));
+        assertEquals(6, map.addTo(42, 2));
+        assertEquals(3, map.size());
+        assertEquals(3, map.get(0));
+        assertEquals(0, map.get(7));
+        assertFalse(map.containsKey(7));
+        assertTrue(map.remove(0));
+        assertFalse(map.remove(0));
+        assertEquals("{-5=1, 42=6}", map.toString());
+    }
+
+    /** LM02: 随机操作与 HashMap 结果一致（覆盖扩容与后移删除） */
+    @Test
+    @DisplayName("LM02: 随机操作与HashMap一致")
+    public void testRandomOperations_LM02() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(2024);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                int delta = random.nextInt(10);
+                assertEquals((int) expected.merge(key, delta, Integer::sum), map.addTo(key, delta));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
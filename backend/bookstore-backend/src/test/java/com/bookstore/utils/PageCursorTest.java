@@ -0,0 +1,64 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 键集分页游标测试 ====================
+ */
+@DisplayName("键集分页游标测试")
+public class PageCursorTest {
+
+    /** PC01: 各类型排序键编码后原样解码 */
+    @Test
+    @DisplayName("PC01: 编码与解码")
+    public void testRoundTrip_PC01() {
+        LocalDateTime time = LocalDateTime.of(2024, 3, 1, 8, 30, 0, 123_000_000);
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(time, 42L));
+        assertEquals(42L, cursor.getId());
+        assertEquals(time, cursor.getSortKeyAsDateTime());
+
+        assertEquals(17, PageCursor.decode(PageCursor.encode(17, 1L)).getSortKeyAsInt());
+        assertEquals(new BigDecimal("59.50"), PageCursor.decode(PageCursor.encode("59.50", 1L)).getSortKeyAsDecimal());
+        // 排序键本身含分隔符与非 ASCII 字符
+        assertEquals("Java:编程 思想", PageCursor.decode(PageCursor.encode("Java:编程 思想", 7L)).getSortKey());
+    }
+
+    /** PC02: 排序键为null时解码为null，整数按0读取 */
+    @Test
+    @DisplayName("PC02: 空排序键")
+    public void testNullSortKey_PC02() {
+        PageCursor cursor = PageCursor.decode(PageCursor.encode(null, 3L));
+        assertNull(cursor.getSortKey());
+        assertNull(cursor.getSortKeyAsDateTime());
+        assertNull(cursor.getSortKeyAsDecimal());
+        assertEquals(0, cursor.getSortKeyAsInt());
+    }
+
+    /** PC03: 格式错误的游标与排序键统一报“游标无效” */
+    @Test
+    @DisplayName("PC03: 无效游标")
+    public void testInvalid_PC03() {
+        assertEquals("游标无效", assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode("不是base64")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw(":5")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("abc:5")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("12")));
+
+        PageCursor cursor = PageCursor.decode(PageCursor.encode("x", 1L));
+        assertThrows(IllegalArgumentException.class, cursor::getSortKeyAsDateTime);
+        assertThrows(IllegalArgumentException.class, cursor::getSortKeyAsInt);
+        assertThrows(IllegalArgumentException.class, cursor::getSortKeyAsDecimal);
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
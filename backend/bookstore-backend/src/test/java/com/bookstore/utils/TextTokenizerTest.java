@@ -0,0 +1,38 @@
+package com.bookstore.utils;
+
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ==================== 检索分词测试 ====================
+ */
+@DisplayName("检索分词测试")
+public class TextTokenizerTest {
+
+    /** TT01: 全角转半角与大小写折叠，无需改变时返回原对象 */
+    @Test
+    @DisplayName("TT01: 归一化")
+    public void testNormalize_TT01() {
+        assertEquals("java 编程 c++", TextTokenizer.normalize("ＪＡＶＡ　编程 Ｃ＋＋"));
+        assertEquals("strasse σσ", TextTokenizer.normalize("STRAẞE Σς"));
+        String unchanged = "java编程";
+        assertSame(unchanged, TextTokenizer.normalize(unchanged));
+        assertNull(TextTokenizer.normalize(null));
+    }
+
+    /** TT02: 中日韩二元组、单字成段、字母数字整词，标点为分隔符 */
+    @Test
+    @DisplayName("TT02: 切分词元")
+    public void testTokenize_TT02() {
+        assertEquals(List.of("java", "编程", "程思", "思想"), TextTokenizer.tokenize("java编程思想"));
+        assertEquals(List.of("c", "书", "v2", "0"), TextTokenizer.tokenize("c++书 v2.0"));
+        assertEquals(List.of("𠀀字"), TextTokenizer.tokenize("𠀀字"));
+        assertTrue(TextTokenizer.tokenize(" ,。-").isEmpty());
+        assertTrue(TextTokenizer.isCjkBigram("编程"));
+        assertFalse(TextTokenizer.isCjkBigram("书"));
+        assertFalse(TextTokenizer.isCjkBigram("ab"));
+    }
+}
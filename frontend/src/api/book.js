@@ -2,13 +2,16 @@ import request from './request'
 
 /**
  * 获取图书列表
- * 支持搜索查询功能
- * @param {Object} params 请求参数
+ * 支持搜索查询功能，按游标分页
+ * @param {Object} params 请求参数 (query, size, cursor, withFavorite)
  * @returns {Promise} 图书列表响应
  */
 export function getBookList(params) {
   const requestParams = {
-    query: params?.query || ''
+    query: params?.query || '',
+    size: params?.size,
+    cursor: params?.cursor || undefined,
+    withFavorite: params?.withFavorite || undefined
   };
   
   return request({
@@ -85,13 +88,17 @@ export function deleteBook(id) {
 
 /**
  * 按收藏量排序获取图书列表
- * @param {Object} params 查询参数
+ * 按游标分页
+ * @param {Object} params 查询参数 (query, sortType, size, cursor, withFavorite)
  * @returns {Promise} 排序后的图书列表响应
  */
 export function getBooksByFavoriteCount(params) {
   const requestParams = {
     query: params?.query || '',
-    sortType: params?.sortType || 'desc'  // 默认降序(高到低)
+    sortType: params?.sortType || 'desc',  // 默认降序(高到低)
+    size: params?.size,
+    cursor: params?.cursor || undefined,
+    withFavorite: params?.withFavorite || undefined
   };
   
   return request({
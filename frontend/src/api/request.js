@@ -16,7 +16,11 @@ const service = axios.create({
  */
 service.interceptors.request.use(
   config => {
-    // 这里可以添加认证令牌等通用请求配置
+    // 每次请求从localStorage读取登录令牌，刷新页面后依然有效
+    const token = localStorage.getItem('token')
+    if (token) {
+      config.headers.Authorization = `Bearer ${token}`
+    }
     return config
   },
   error => {
@@ -1,5 +1,4 @@
 import { defineStore } from 'pinia'
-import axios from 'axios'
 import { login as loginApi, logout as logoutApi } from '@/api/auth'
 
 export const useUserStore = defineStore('user', {
@@ -56,8 +55,6 @@ export const useUserStore = defineStore('user', {
       try {
         localStorage.setItem('token', token)
         localStorage.setItem('user', JSON.stringify(user))
-        // 设置请求头
-        axios.defaults.headers.common['Authorization'] = `Bearer ${token}`
       } catch (e) {
         console.error('Error storing user data:', e)
       }
@@ -71,7 +68,6 @@ export const useUserStore = defineStore('user', {
       try {
         localStorage.removeItem('token')
         localStorage.removeItem('user')
-        delete axios.defaults.headers.common['Authorization']
       } catch (e) {
         console.error('Error clearing user data:', e)
       }